@@ -0,0 +1,97 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/v1';
+const MODE = __ENV.MODE || 'platform';
+const VUS = parseInt(__ENV.VUS || '500');
+const DURATION = __ENV.DURATION || '2m';
+
+export const options = {
+    setupTimeout: '5m',
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    scenarios: {
+        borrow: {
+            executor: 'constant-vus',
+            exec: 'borrowAndReturn',
+            vus: VUS,
+            duration: DURATION,
+            tags: { mode: MODE },
+        },
+        list: {
+            executor: 'constant-vus',
+            exec: 'listBooks',
+            vus: VUS,
+            duration: DURATION,
+            tags: { mode: MODE },
+        },
+    },
+    // The always-true thresholds make k6 keep per-endpoint sub-metrics for the summary.
+    thresholds: {
+        'http_req_failed{scenario:borrow}': ['rate<0.01'],
+        'http_req_failed{scenario:list}': ['rate<0.01'],
+        'http_req_duration{endpoint:borrowBook}': ['p(99)>=0'],
+        'http_req_duration{endpoint:books}': ['p(99)>=0'],
+        'http_reqs{endpoint:borrowBook}': ['count>=0'],
+        'http_reqs{endpoint:books}': ['count>=0'],
+    },
+};
+
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+// Every borrowing VU gets its own member and book so the 409s of the limit and
+// inventory guards do not mix into the latency numbers.
+export function setup() {
+    const pairs = [];
+    for (let i = 0; i < VUS; i++) {
+        const member = http.post(`${BASE_URL}/members`,
+            JSON.stringify({ name: 'Load', surname: `Tester${i}` }), JSON_HEADERS);
+        const book = http.post(`${BASE_URL}/books`,
+            JSON.stringify({ title: `Load Test Book ${MODE} ${i}`, author: 'Load Tester' }), JSON_HEADERS);
+        check(member, { 'member created': (r) => r.status === 201 });
+        check(book, { 'book created': (r) => r.status === 201 });
+        pairs.push({ memberId: member.json('id'), bookId: book.json('id') });
+    }
+    return { pairs };
+}
+
+export function borrowAndReturn(data) {
+    const { memberId, bookId } = data.pairs[(__VU - 1) % data.pairs.length];
+    const params = `memberId=${memberId}&bookId=${bookId}`;
+
+    const borrowed = http.post(`${BASE_URL}/library/borrowBook?${params}`, null,
+        { tags: { endpoint: 'borrowBook' } });
+    check(borrowed, { 'borrowed': (r) => r.status === 200 });
+
+    const returned = http.post(`${BASE_URL}/library/returnBook?${params}`, null,
+        { tags: { endpoint: 'returnBook' } });
+    check(returned, { 'returned': (r) => r.status === 200 });
+}
+
+export function listBooks() {
+    const page = Math.floor(Math.random() * 10);
+    const response = http.get(`${BASE_URL}/books?page=${page}&size=20`,
+        { tags: { endpoint: 'books' } });
+    check(response, { 'listed': (r) => r.status === 200 });
+}
+
+export function handleSummary(data) {
+    const endpoint = (name) => {
+        const latency = data.metrics[`http_req_duration{endpoint:${name}}`].values;
+        return {
+            requestsPerSecond: data.metrics[`http_reqs{endpoint:${name}}`].values.rate,
+            p50: latency['p(50)'],
+            p99: latency['p(99)'],
+        };
+    };
+    const report = {
+        mode: MODE,
+        vus: VUS,
+        duration: DURATION,
+        borrowBook: endpoint('borrowBook'),
+        books: endpoint('books'),
+    };
+    return {
+        stdout: JSON.stringify(report, null, 2) + '\n',
+        [`load-test/results-${MODE}.json`]: JSON.stringify(report, null, 2),
+    };
+}
@@ -0,0 +1,47 @@
+package com.stepaniuk.nerdysoft.book;
+
+import com.stepaniuk.nerdysoft.book.payload.BookResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.hateoas.Link;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookMapperBenchmark {
+    private static final int PAGE_SIZE = 1000;
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+
+    private List<Book> page;
+
+    @Setup
+    public void setUp() {
+        page = new ArrayList<>(PAGE_SIZE);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            page.add(new Book(id, "Title " + id, "Author Name", 1));
+        }
+    }
+
+    @Benchmark
+    public void concatenatedLinks(Blackhole blackhole) {
+        for (var book : page) {
+            var response = new BookResponse(book.getId(), book.getTitle(), book.getAuthor(), book.getAmount());
+            response.add(Link.of("/books/" + book.getId()).withSelfRel());
+            response.add(Link.of("/books/" + book.getId()).withRel("update"));
+            response.add(Link.of("/books/" + book.getId()).withRel("delete"));
+            blackhole.consume(response);
+        }
+    }
+
+    @Benchmark
+    public void linkTemplate(Blackhole blackhole) {
+        for (var book : page) {
+            blackhole.consume(bookMapper.toResponse(book));
+        }
+    }
+}
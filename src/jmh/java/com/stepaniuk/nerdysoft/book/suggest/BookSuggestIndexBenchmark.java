@@ -0,0 +1,76 @@
+package com.stepaniuk.nerdysoft.book.suggest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class BookSuggestIndexBenchmark {
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ra", "ten", "dor", "bel", "sha", "vin", "or",
+            "el", "an", "qu", "is", "mar", "tu", "gre", "fal", "wyn", "zo"
+    };
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int AUTHOR_COUNT = 50_000;
+    private static final int LIMIT = 10;
+
+    @Param({"1000000", "3000000"})
+    private int catalogSize;
+
+    @Param({"ka", "kalo", "tenbel", "kalo mi", "rat"})
+    private String query;
+
+    private BookSuggestIndex index;
+
+    @Setup(Level.Trial)
+    public void buildCatalog() {
+        var random = new SplittableRandom(42);
+        var vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = word(random);
+        }
+        var authors = new String[AUTHOR_COUNT];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = capitalize(word(random)) + " " + capitalize(word(random));
+        }
+
+        var before = usedHeap();
+        index = new BookSuggestIndex();
+        index.putAll(LongStream.rangeClosed(1, catalogSize).mapToObj(id -> {
+            var title = new StringBuilder(capitalize(vocabulary[random.nextInt(vocabulary.length)]));
+            for (int words = random.nextInt(1, 5); words > 0; words--) {
+                title.append(' ').append(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            return new BookSuggestIndex.Document(id, title.toString(), new String(authors[random.nextInt(authors.length)]));
+        }));
+        System.out.printf("%nIndexed %d titles, retained heap %d MB%n", index.size(), (usedHeap() - before) >> 20);
+    }
+
+    @Benchmark
+    public Object suggest() {
+        return index.suggest(query, LIMIT);
+    }
+
+    private static String word(SplittableRandom random) {
+        var word = new StringBuilder();
+        for (int syllables = random.nextInt(2, 4); syllables > 0; syllables--) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,109 @@
+package com.stepaniuk.nerdysoft.shared;
+
+import com.stepaniuk.nerdysoft.Application;
+import com.stepaniuk.nerdysoft.book.BookMapper;
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.payload.BookResponse;
+import com.stepaniuk.nerdysoft.member.MemberMapper;
+import com.stepaniuk.nerdysoft.member.MemberRepository;
+import com.stepaniuk.nerdysoft.member.payload.MemberResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+// Entity hydration against the row projections behind GET /books and GET /members, on a real PostgreSQL.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListPageBenchmark {
+    private static final int PAGE_SIZE = 500;
+    private static final int ROWS = 5_000;
+    private static final Pageable PAGE = PageRequest.of(3, PAGE_SIZE, Sort.by("id"));
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private BookRepository bookRepository;
+    private BookMapper bookMapper;
+    private MemberRepository memberRepository;
+    private MemberMapper memberMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16.0"));
+        postgres.start();
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "library.outbox.enabled=false",
+                        "library.loans.overdue.enabled=false",
+                        "library.loans.archive.enabled=false",
+                        "library.holds.expiry.enabled=false",
+                        "library.idempotency.enabled=false")
+                .run();
+
+        seed(context.getBean(JdbcTemplate.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        bookRepository = context.getBean(BookRepository.class);
+        bookMapper = context.getBean(BookMapper.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberMapper = context.getBean(MemberMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public Page<BookResponse> booksAsEntities() {
+        return readOnly.execute(status -> bookRepository.findAll(PAGE).map(bookMapper::toResponse));
+    }
+
+    @Benchmark
+    public Page<BookResponse> booksAsRows() {
+        return readOnly.execute(status -> bookRepository.findListRows(PAGE).map(bookMapper::toResponse));
+    }
+
+    @Benchmark
+    public Page<MemberResponse> membersAsEntities() {
+        return readOnly.execute(status -> memberRepository.findAll(PAGE).map(memberMapper::toResponse));
+    }
+
+    @Benchmark
+    public Page<MemberResponse> membersAsRows() {
+        return readOnly.execute(status -> memberRepository.findListRows(PAGE).map(memberMapper::toResponse));
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        var books = new ArrayList<Object[]>(ROWS);
+        var members = new ArrayList<Object[]>(ROWS);
+        var joined = Timestamp.from(Instant.parse("2024-01-01T00:00:00Z"));
+        for (int i = 1; i <= ROWS; i++) {
+            books.add(new Object[]{"Title " + i, "Author " + i % 100, 1 + i % 5});
+            members.add(new Object[]{"Name" + i, "Surname" + i, joined});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (id, title, author, amount) VALUES (nextval('books_id_seq'), ?, ?, ?)", books);
+        jdbcTemplate.batchUpdate("INSERT INTO members (id, name, surname, membership_date) VALUES (nextval('members_id_seq'), ?, ?, ?)", members);
+    }
+}
@@ -1,7 +1,10 @@
 package com.stepaniuk.nerdysoft.book;
 
+import com.stepaniuk.nerdysoft.cache.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.proxy.HibernateProxy;
 
 import java.util.Objects;
@@ -11,18 +14,25 @@ import java.util.Objects;
 @AllArgsConstructor
 @RequiredArgsConstructor
 @Entity
-@Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.BOOKS_REGION)
+@Table(name = "books", indexes = {
+        @Index(name = "books_title_id_idx", columnList = "title, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "books_title_author_key", columnNames = {"title", "author"})
+})
 public class Book {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_id_gen")
-    @SequenceGenerator(name = "books_id_gen", sequenceName = "books_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "books_id_gen", sequenceName = "books_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
     @Column(name = "title", nullable = false)
     private String title;
     @Column(name = "author", nullable = false)
     private String author;
-    @Column(name = "amount", nullable = false)
+    // Copies are only added or taken by guarded native updates; saving a book never writes the amount back.
+    @Column(name = "amount", nullable = false, updatable = false)
     private Integer amount;
 
     @Override
@@ -1,22 +1,35 @@
 package com.stepaniuk.nerdysoft.book;
 
+import com.stepaniuk.nerdysoft.book.bulk.BookBulkImportService;
+import com.stepaniuk.nerdysoft.book.bulk.BookImportFormat;
 import com.stepaniuk.nerdysoft.book.payload.BookCreateRequest;
+import com.stepaniuk.nerdysoft.book.payload.BookImportResponse;
 import com.stepaniuk.nerdysoft.book.payload.BookResponse;
+import com.stepaniuk.nerdysoft.book.payload.BookSearchResult;
+import com.stepaniuk.nerdysoft.book.payload.BookSuggestion;
 import com.stepaniuk.nerdysoft.book.payload.BookUpdateRequest;
+import com.stepaniuk.nerdysoft.shared.pagination.CursorPage;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping(path = "/books", produces = "application/json")
 @RequiredArgsConstructor
 public class BookController {
     private final BookService bookService;
+    private final BookBulkImportService bookBulkImportService;
 
     @PostMapping
     public ResponseEntity<BookResponse> createBook(@RequestBody @Valid BookCreateRequest bookRequest) {
@@ -24,11 +37,47 @@ public class BookController {
                 HttpStatus.CREATED);
     }
 
+    @PostMapping(path = "/bulk", consumes = "text/csv")
+    public ResponseEntity<BookImportResponse> importBooksFromCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookBulkImportService.importBooks(body, BookImportFormat.CSV));
+    }
+
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BookImportResponse> importBooksFromNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookBulkImportService.importBooks(body, BookImportFormat.NDJSON));
+    }
+
     @GetMapping
     public ResponseEntity<Page<BookResponse>> getAllBooks(Pageable pageable) {
         return ResponseEntity.ok(bookService.getAllBooks(pageable));
     }
 
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPage<BookResponse>> getBooksAfter(@RequestParam String after,
+                                                                  @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(bookService.getBooksAfter(after, size));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<BookSearchResult>> searchBooks(@RequestParam String q,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(bookService.searchBooks(q, after, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestion>> suggestBooks(@RequestParam String q,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.suggestBooks(q, limit));
+    }
+
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookService::exportBooks);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<BookResponse> getBook(@PathVariable Long id) {
         return ResponseEntity.ok(bookService.getBook(id));
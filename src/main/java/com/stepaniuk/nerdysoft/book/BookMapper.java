@@ -1,21 +1,32 @@
 package com.stepaniuk.nerdysoft.book;
 
+import com.stepaniuk.nerdysoft.book.payload.BookListRow;
 import com.stepaniuk.nerdysoft.book.payload.BookResponse;
+import com.stepaniuk.nerdysoft.shared.hateoas.LibraryLinkRelations;
+import com.stepaniuk.nerdysoft.shared.hateoas.LinkTemplate;
 import org.mapstruct.*;
-import org.springframework.hateoas.Link;
+import org.springframework.hateoas.IanaLinkRelations;
 
 @Mapper(componentModel = "spring", injectionStrategy = InjectionStrategy.CONSTRUCTOR)
 public interface BookMapper {
+    LinkTemplate LINKS = new LinkTemplate("/books/{id}",
+            IanaLinkRelations.SELF, LibraryLinkRelations.UPDATE, LibraryLinkRelations.DELETE);
+
     @BeanMapping(qualifiedByName = "addLinks")
     BookResponse toResponse(Book book);
 
     @AfterMapping
     @Named("addLinks")
     default BookResponse addLinks(Book book, @MappingTarget BookResponse response) {
-        response.add(Link.of("/books/" + book.getId()).withSelfRel());
-        response.add(Link.of("/books/" + book.getId()).withRel("update"));
-        response.add(Link.of("/books/" + book.getId()).withRel("delete"));
+        return LINKS.addLinks(response, book.getId());
+    }
 
-        return response;
+    @BeanMapping(qualifiedByName = "addRowLinks")
+    BookResponse toResponse(BookListRow row);
+
+    @AfterMapping
+    @Named("addRowLinks")
+    default BookResponse addLinks(BookListRow row, @MappingTarget BookResponse response) {
+        return LINKS.addLinks(response, row.getId());
     }
 }
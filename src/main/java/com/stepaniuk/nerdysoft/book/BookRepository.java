@@ -1,11 +1,131 @@
 package com.stepaniuk.nerdysoft.book;
 
+import com.stepaniuk.nerdysoft.book.payload.BookExportRow;
+import com.stepaniuk.nerdysoft.book.payload.BookListRow;
+import com.stepaniuk.nerdysoft.book.payload.BookSearchRow;
+import com.stepaniuk.nerdysoft.book.payload.BookUpsertRow;
+import com.stepaniuk.nerdysoft.cache.SecondLevelCacheConfig;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByTitleAndAuthor(String title, String author);
+
+    @Query("select coalesce(sum(b.amount), 0) from Book b")
+    long sumAmounts();
+
+    @Transactional
+    @Query(value = """
+            INSERT INTO books (id, title, author, amount)
+            VALUES (nextval('books_id_seq'), :title, :author, :copies)
+            ON CONFLICT (title, author) DO UPDATE SET amount = books.amount + EXCLUDED.amount
+            RETURNING *
+            """, nativeQuery = true)
+    Book upsertCopies(String title, String author, int copies);
+
+    // One statement per chunk; rows are sorted so concurrent imports lock existing titles in the same order.
+    // xmax is 0 only for rows this statement inserted.
+    @Transactional
+    @Query(value = """
+            INSERT INTO books (id, title, author, amount)
+            SELECT nextval('books_id_seq'), c.title, c.author, c.copies
+            FROM unnest(CAST(:titles AS varchar[]), CAST(:authors AS varchar[]), CAST(:copies AS integer[]))
+                AS c(title, author, copies)
+            ORDER BY c.title, c.author
+            ON CONFLICT (title, author) DO UPDATE SET amount = books.amount + EXCLUDED.amount
+            RETURNING id, title, author, amount, (xmax = 0) AS created
+            """, nativeQuery = true)
+    List<BookUpsertRow> upsertAllCopies(String[] titles, String[] authors, Integer[] copies);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.stepaniuk.nerdysoft.book.payload.BookExportRow(b.id, b.title, b.author, b.amount) from Book b order by b.id")
+    Stream<BookExportRow> streamExportRows();
+
+    // List pages select straight into rows: no managed entities, no dirty-checking snapshots.
+    @Query(value = "select new com.stepaniuk.nerdysoft.book.payload.BookListRow(b.id, b.title, b.author, b.amount) from Book b",
+            countQuery = "select count(b) from Book b")
+    Page<BookListRow> findListRows(Pageable pageable);
+
+    List<Book> findByOrderByTitleAscIdAsc(Limit limit);
+
+    @Query(value = """
+            SELECT * FROM books
+            WHERE (title, id) > (:title, :id)
+            ORDER BY title, id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Book> findPageAfter(String title, Long id, int limit);
+
+    @Query(value = """
+            SELECT ranked.id, ranked.title, ranked.author, ranked.amount, ranked.rank FROM (
+                SELECT b.id, b.title, b.author, b.amount,
+                       ts_rank(b.search_vector, websearch_to_tsquery('english', :query))
+                           + word_similarity(:query, b.title || ' ' || b.author) AS rank
+                FROM books b
+                WHERE b.search_vector @@ websearch_to_tsquery('english', :query)
+                   OR :query <% (b.title || ' ' || b.author)
+            ) ranked
+            ORDER BY ranked.rank DESC, ranked.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<BookSearchRow> search(String query, int limit);
+
+    @Query(value = """
+            SELECT ranked.id, ranked.title, ranked.author, ranked.amount, ranked.rank FROM (
+                SELECT b.id, b.title, b.author, b.amount,
+                       ts_rank(b.search_vector, websearch_to_tsquery('english', :query))
+                           + word_similarity(:query, b.title || ' ' || b.author) AS rank
+                FROM books b
+                WHERE b.search_vector @@ websearch_to_tsquery('english', :query)
+                   OR :query <% (b.title || ' ' || b.author)
+            ) ranked
+            WHERE ranked.rank < :rank OR (ranked.rank = :rank AND ranked.id > :id)
+            ORDER BY ranked.rank DESC, ranked.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<BookSearchRow> searchAfter(String query, float rank, Long id, int limit);
+
+    // Counter updates leave the books region alone; callers evict the ids they changed.
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SecondLevelCacheConfig.EVICTED_BY_ID_SPACE))
+    @Query(value = "UPDATE books SET amount = amount - 1 WHERE id = :id AND amount > 0", nativeQuery = true)
+    int decrementAmount(Long id);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SecondLevelCacheConfig.EVICTED_BY_ID_SPACE))
+    @Query(value = "UPDATE books SET amount = amount + 1 WHERE id = :id", nativeQuery = true)
+    int incrementAmount(Long id);
+
+    // Runs as a select, so Hibernate evicts nothing; callers evict the returned ids.
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "books"))
+    @Query(value = """
+            UPDATE books SET amount = amount - 1
+            WHERE id IN (:ids) AND amount > 0
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> decrementAmounts(Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SecondLevelCacheConfig.EVICTED_BY_ID_SPACE))
+    @Query(value = "UPDATE books SET amount = amount + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int incrementAmounts(Collection<Long> ids);
 }
@@ -1,18 +1,35 @@
 package com.stepaniuk.nerdysoft.book;
 
 import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyExistsException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
 import com.stepaniuk.nerdysoft.book.exception.BorrowedBookCannotBeDeletedException;
 import com.stepaniuk.nerdysoft.book.payload.BookCreateRequest;
 import com.stepaniuk.nerdysoft.book.payload.BookResponse;
+import com.stepaniuk.nerdysoft.book.payload.BookSearchResult;
+import com.stepaniuk.nerdysoft.book.payload.BookSearchRow;
+import com.stepaniuk.nerdysoft.book.payload.BookSuggestion;
 import com.stepaniuk.nerdysoft.book.payload.BookUpdateRequest;
+import com.stepaniuk.nerdysoft.book.suggest.BookSuggestService;
+import com.stepaniuk.nerdysoft.cache.EntityCacheEvictor;
+import com.stepaniuk.nerdysoft.library.LibraryService;
+import com.stepaniuk.nerdysoft.shared.exception.InvalidCursorException;
+import com.stepaniuk.nerdysoft.shared.export.NdjsonWriter;
+import com.stepaniuk.nerdysoft.shared.pagination.CursorPage;
+import com.stepaniuk.nerdysoft.shared.pagination.KeysetCursor;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.data.domain.Pageable;
 
-import java.util.Optional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -20,25 +37,25 @@ public class BookService {
     private final BookRepository bookRepository;
     private final BorrowedBookRepository borrowedBookRepository;
     private final BookMapper bookMapper;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final NdjsonWriter ndjsonWriter;
+    private final BookSuggestService bookSuggestService;
+    private final LibraryService libraryService;
 
+    @Transactional
+    @Timed(value = "library.books.create", histogram = true)
     public BookResponse createBook(BookCreateRequest bookRequest) {
-        Optional<Book> bookOptional = bookRepository.findByTitleAndAuthor(bookRequest.getTitle(), bookRequest.getAuthor());
-
-        if (bookOptional.isPresent()) {
-            Book bookToUpdate = bookOptional.get();
-            bookToUpdate.setAmount(bookToUpdate.getAmount() + 1);
-            return bookMapper.toResponse(bookRepository.save(bookToUpdate));
-        }
-
-        Book newBook = new Book();
-        newBook.setTitle(bookRequest.getTitle());
-        newBook.setAuthor(bookRequest.getAuthor());
-        newBook.setAmount(1);
-
-        var savedBook = bookRepository.save(newBook);
-        return bookMapper.toResponse(savedBook);
+        var book = bookRepository.upsertCopies(bookRequest.getTitle(), bookRequest.getAuthor(), 1);
+        var lent = libraryService.allocateAddedCopies(List.of(book.getId()));
+        entityCacheEvictor.evictAfterCommit(Book.class, book.getId());
+        bookSuggestService.indexAfterCommit(book.getId(), book.getTitle(), book.getAuthor());
+
+        // The managed row is left untouched; the new copy may already be lent to a waiting hold.
+        return bookMapper.toResponse(lent == 0 ? book
+                : new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getAmount() - lent));
     }
 
+    @Transactional(readOnly = true)
     public BookResponse getBook(Long id) {
         Book bookToReturn = bookRepository.findById(id)
                 .orElseThrow(() -> new BookNotFoundByIdException(id));
@@ -46,11 +63,62 @@ public class BookService {
         return bookMapper.toResponse(bookToReturn);
     }
 
+    @Transactional(readOnly = true)
+    @Timed(value = "library.books.read", extraTags = {"pagination", "offset"}, histogram = true)
     public Page<BookResponse> getAllBooks(Pageable pageable){
-        return bookRepository.findAll(pageable)
+        return bookRepository.findListRows(pageable)
                 .map(bookMapper::toResponse);
     }
 
+    @Transactional(readOnly = true)
+    @Timed(value = "library.books.read", extraTags = {"pagination", "keyset"}, histogram = true)
+    public CursorPage<BookResponse> getBooksAfter(String after, int size) {
+        var pageSize = CursorPage.sizeOf(size);
+        List<Book> books;
+        if (after == null || after.isEmpty()) {
+            books = bookRepository.findByOrderByTitleAscIdAsc(Limit.of(pageSize + 1));
+        } else {
+            var cursor = KeysetCursor.decode(after);
+            books = bookRepository.findPageAfter(cursor.key(), cursor.id(), pageSize + 1);
+        }
+
+        return CursorPage.of(books, pageSize,
+                book -> new KeysetCursor(book.getTitle(), book.getId()),
+                bookMapper::toResponse);
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = "library.books.search", histogram = true)
+    public CursorPage<BookSearchResult> searchBooks(String query, String after, int size) {
+        if (query == null || query.isBlank()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        var pageSize = CursorPage.sizeOf(size);
+        List<BookSearchRow> rows;
+        if (after == null || after.isEmpty()) {
+            rows = bookRepository.search(query, pageSize + 1);
+        } else {
+            var cursor = KeysetCursor.decode(after);
+            rows = bookRepository.searchAfter(query, parseRank(cursor, after), cursor.id(), pageSize + 1);
+        }
+
+        return CursorPage.of(rows, pageSize,
+                row -> new KeysetCursor(Float.toString(row.getRank()), row.getId()),
+                row -> new BookSearchResult(row.getId(), row.getTitle(), row.getAuthor(), row.getAmount(), row.getRank()));
+    }
+
+    public List<BookSuggestion> suggestBooks(String query, int limit) {
+        return bookSuggestService.suggest(query, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportBooks(OutputStream out) throws IOException {
+        try (var rows = bookRepository.streamExportRows()) {
+            return ndjsonWriter.write(rows, out);
+        }
+    }
+
+    @Transactional
     public BookResponse updateBook(Long id, BookUpdateRequest bookRequest) {
         Book bookToUpdate = bookRepository.findById(id)
                 .orElseThrow(() -> new BookNotFoundByIdException(id));
@@ -62,18 +130,34 @@ public class BookService {
               bookToUpdate.setAuthor(bookRequest.getAuthor());
        }
 
-       var updatedBook = bookRepository.save(bookToUpdate);
+       Book updatedBook;
+       try {
+           // flush here so the title/author unique key fails inside this call instead of at commit
+           updatedBook = bookRepository.saveAndFlush(bookToUpdate);
+       } catch (DataIntegrityViolationException e) {
+           throw new BookAlreadyExistsException(id, bookToUpdate.getTitle(), bookToUpdate.getAuthor());
+       }
+       bookSuggestService.indexAfterCommit(updatedBook.getId(), updatedBook.getTitle(), updatedBook.getAuthor());
 
         return bookMapper.toResponse(updatedBook);
     }
 
     public void deleteBook(Long id){
-        if(!borrowedBookRepository.findByBookIdAndReturnedDateIsNull(id).isEmpty()){
+        if(borrowedBookRepository.existsByBookIdAndReturnedDateIsNull(id)){
             throw new BorrowedBookCannotBeDeletedException(id);
         }
         var bookToDelete = bookRepository.findById(id)
                 .orElseThrow(() -> new BookNotFoundByIdException(id));
 
         bookRepository.delete(bookToDelete);
+        bookSuggestService.removeAfterCommit(id);
+    }
+
+    private static float parseRank(KeysetCursor cursor, String after) {
+        try {
+            return Float.parseFloat(cursor.key());
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(after);
+        }
     }
 }
@@ -18,24 +18,29 @@ import java.util.Objects;
 @RequiredArgsConstructor
 @Entity
 @Table(name = "borrowed_books")
+@NamedEntityGraph(name = "BorrowedBook.book", attributeNodes = @NamedAttributeNode("book"))
+@NamedEntityGraph(name = "BorrowedBook.member", attributeNodes = @NamedAttributeNode("member"))
 public class BorrowedBook {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "borrowed_books_id_gen")
-    @SequenceGenerator(name = "borrowed_books_id_gen", sequenceName = "borrowed_books_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "borrowed_books_id_gen", sequenceName = "borrowed_books_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "member_id")
     private Member member;
 
     @Column(name = "borrowed_date", nullable = false)
     private Instant borrowedDate;
 
+    @Column(name = "due_date", nullable = false)
+    private Instant dueDate;
+
     @Column(name = "returned_date", nullable = true)
     private Instant returnedDate;
 
@@ -59,9 +64,8 @@ public class BorrowedBook {
     public String toString() {
         return getClass().getSimpleName() + "(" +
                 "id = " + id + ", " +
-                "book = " + book + ", " +
-                "member = " + member + ", " +
                 "borrowedDate = " + borrowedDate + ", " +
+                "dueDate = " + dueDate + ", " +
                 "returnedDate = " + returnedDate + ")";
     }
 }
@@ -0,0 +1,67 @@
+package com.stepaniuk.nerdysoft.book.borrowed;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "library.loans.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BorrowedBookArchiver {
+    static final String ARCHIVED_METRIC = "library.loans.archived";
+
+    private final BorrowedBookHistoryRepository borrowedBookHistoryRepository;
+    private final Duration horizon;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Counter archivedCounter;
+
+    public BorrowedBookArchiver(BorrowedBookHistoryRepository borrowedBookHistoryRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${library.loans.archive.horizon:90d}") Duration horizon,
+                                @Value("${library.loans.archive.batch-size:1000}") int batchSize,
+                                @Value("${library.loans.archive.max-batches:100}") int maxBatches) {
+        this.borrowedBookHistoryRepository = borrowedBookHistoryRepository;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.archivedCounter = Counter.builder(ARCHIVED_METRIC)
+                .description("Returned loans moved from borrowed_books to borrowed_books_history")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library.loans.archive.interval:1h}",
+            initialDelayString = "${library.loans.archive.initial-delay:5m}")
+    public void archiveReturnedLoans() {
+        archive(Instant.now());
+    }
+
+    public long archive(Instant now) {
+        var year = now.atZone(ZoneOffset.UTC).getYear();
+        borrowedBookHistoryRepository.ensurePartition(year);
+        borrowedBookHistoryRepository.ensurePartition(year + 1);
+
+        var returnedBefore = now.minus(horizon);
+        long archived = 0;
+        int batches = 0;
+        int moved;
+        do {
+            moved = borrowedBookHistoryRepository.archiveReturnedBefore(returnedBefore, batchSize);
+            archived += moved;
+            archivedCounter.increment(moved);
+        } while (moved == batchSize && ++batches < maxBatches);
+
+        if (archived > 0) {
+            log.info("Archived {} loans returned before {}", archived, returnedBefore);
+        }
+        return archived;
+    }
+}
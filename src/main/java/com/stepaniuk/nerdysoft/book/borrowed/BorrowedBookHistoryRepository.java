@@ -0,0 +1,33 @@
+package com.stepaniuk.nerdysoft.book.borrowed;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface BorrowedBookHistoryRepository extends JpaRepository<BorrowedBookHistory, Long> {
+    @Transactional
+    @Query(value = "SELECT ensure_borrowed_books_history_partition(:year)", nativeQuery = true)
+    String ensurePartition(int year);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            WITH moved AS (
+                DELETE FROM borrowed_books
+                WHERE id IN (
+                    SELECT id FROM borrowed_books
+                    WHERE returned_date < :horizon
+                    ORDER BY returned_date
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING id, book_id, member_id, borrowed_date, returned_date)
+            INSERT INTO borrowed_books_history (id, book_id, member_id, borrowed_date, returned_date)
+            SELECT id, book_id, member_id, borrowed_date, returned_date FROM moved
+            """, nativeQuery = true)
+    int archiveReturnedBefore(Instant horizon, int limit);
+}
@@ -0,0 +1,43 @@
+package com.stepaniuk.nerdysoft.book.borrowed;
+
+import com.stepaniuk.nerdysoft.book.Book;
+import com.stepaniuk.nerdysoft.member.Member;
+import jakarta.persistence.*;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.time.Instant;
+
+@Getter
+@Entity
+@Immutable
+@Subselect("""
+        select id, book_id, member_id, borrowed_date, returned_date, false as archived from borrowed_books
+        union all
+        select id, book_id, member_id, borrowed_date, returned_date, true as archived from borrowed_books_history
+        """)
+@Synchronize({"borrowed_books", "borrowed_books_history"})
+public class BorrowedBookRecord {
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id")
+    private Member member;
+
+    @Column(name = "borrowed_date")
+    private Instant borrowedDate;
+
+    @Column(name = "returned_date")
+    private Instant returnedDate;
+
+    @Column(name = "archived")
+    private boolean archived;
+}
@@ -1,14 +1,104 @@
 package com.stepaniuk.nerdysoft.book.borrowed;
 
+import com.stepaniuk.nerdysoft.book.borrowed.payload.BorrowedBookExportRow;
+import com.stepaniuk.nerdysoft.book.borrowed.payload.OverdueLoan;
+import com.stepaniuk.nerdysoft.member.payload.MemberLoanResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BorrowedBookRepository extends JpaRepository<BorrowedBook, Long> {
+    @EntityGraph("BorrowedBook.member")
     List<BorrowedBook> findByBookIdAndReturnedDateIsNull(Long bookId);
+
+    @EntityGraph("BorrowedBook.book")
     List<BorrowedBook> findByMemberIdAndReturnedDateIsNull(Long memberId);
+
     Optional<BorrowedBook> findByMemberIdAndBookIdAndReturnedDateIsNull(Long memberId, Long bookId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update BorrowedBook b set b.returnedDate = :returnedDate
+            where b.member.id = :memberId and b.book.id = :bookId and b.returnedDate is null
+            """)
+    int closeOpenLoan(Long memberId, Long bookId, Instant returnedDate);
+
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "borrowed_books"))
+    @Query(value = """
+            UPDATE borrowed_books SET returned_date = :returnedDate
+            WHERE member_id = :memberId AND book_id IN (:bookIds) AND returned_date IS NULL
+            RETURNING book_id
+            """, nativeQuery = true)
+    List<Long> closeOpenLoans(Long memberId, Collection<Long> bookIds, Instant returnedDate);
+
+    List<BorrowedBook> findByMemberIdAndBookIdInAndReturnedDateIsNull(Long memberId, Collection<Long> bookIds);
+
+    boolean existsByBookIdAndReturnedDateIsNull(Long bookId);
+
+    boolean existsByMemberIdAndReturnedDateIsNull(Long memberId);
+
+    long countByReturnedDateIsNull();
+
+    // Active and archived loans through the BorrowedBookRecord union, merged and ordered by the database.
+    @Query("""
+            select new com.stepaniuk.nerdysoft.member.payload.MemberLoanResponse(
+                r.id, b.id, b.title, b.author, r.borrowedDate, r.returnedDate)
+            from BorrowedBookRecord r
+            join r.book b
+            where r.member.id = :memberId
+              and ((:open = true and r.returnedDate is null) or (:returned = true and r.returnedDate is not null))
+            order by r.borrowedDate desc, r.id desc
+            """)
+    List<MemberLoanResponse> findMemberLoans(Long memberId, boolean open, boolean returned, Limit limit);
+
+    @Query("""
+            select new com.stepaniuk.nerdysoft.member.payload.MemberLoanResponse(
+                r.id, b.id, b.title, b.author, r.borrowedDate, r.returnedDate)
+            from BorrowedBookRecord r
+            join r.book b
+            where r.member.id = :memberId
+              and ((:open = true and r.returnedDate is null) or (:returned = true and r.returnedDate is not null))
+              and (r.borrowedDate < :borrowedDate or (r.borrowedDate = :borrowedDate and r.id < :id))
+            order by r.borrowedDate desc, r.id desc
+            """)
+    List<MemberLoanResponse> findMemberLoansBefore(Long memberId, boolean open, boolean returned,
+                                                   Instant borrowedDate, Long id, Limit limit);
+
+    @Query("""
+            select new com.stepaniuk.nerdysoft.book.borrowed.payload.OverdueLoan(
+                b.id, b.book.id, b.member.id, b.dueDate)
+            from BorrowedBook b
+            where b.returnedDate is null
+              and b.dueDate < :now
+              and b.dueDate >= :dueDate
+              and (b.dueDate > :dueDate or b.id > :id)
+            order by b.dueDate, b.id
+            """)
+    List<OverdueLoan> findOverdueAfter(Instant now, Instant dueDate, Long id, Limit limit);
+
+    // Reads the union, so loans moved to borrowed_books_history are still exported.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.stepaniuk.nerdysoft.book.borrowed.payload.BorrowedBookExportRow(
+                r.id, r.book.id, r.member.id, r.borrowedDate, r.returnedDate, r.archived)
+            from BorrowedBookRecord r
+            order by r.id
+            """)
+    Stream<BorrowedBookExportRow> streamExportRows();
 }
@@ -0,0 +1,21 @@
+package com.stepaniuk.nerdysoft.book.borrowed.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class BorrowedBookExportRow {
+    private final Long id;
+    private final Long bookId;
+    private final Long memberId;
+    private final Instant borrowedDate;
+    private final Instant returnedDate;
+    private final boolean archived;
+}
@@ -0,0 +1,19 @@
+package com.stepaniuk.nerdysoft.book.borrowed.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class OverdueLoan {
+    private final Long id;
+    private final Long bookId;
+    private final Long memberId;
+    private final Instant dueDate;
+}
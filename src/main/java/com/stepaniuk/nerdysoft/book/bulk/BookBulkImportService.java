@@ -0,0 +1,208 @@
+package com.stepaniuk.nerdysoft.book.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stepaniuk.nerdysoft.book.Book;
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.payload.BookCreateRequest;
+import com.stepaniuk.nerdysoft.book.payload.BookImportError;
+import com.stepaniuk.nerdysoft.book.payload.BookImportResponse;
+import com.stepaniuk.nerdysoft.book.suggest.BookSuggestService;
+import com.stepaniuk.nerdysoft.cache.EntityCacheEvictor;
+import com.stepaniuk.nerdysoft.library.LibraryService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class BookBulkImportService {
+    static final int CHUNK_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BookSuggestService bookSuggestService;
+    private final LibraryService libraryService;
+
+    public BookImportResponse importBooks(InputStream body, BookImportFormat format) throws IOException {
+        var startedAt = System.nanoTime();
+        var progress = new ImportProgress();
+        var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        Map<BookKey, Integer> chunk = new LinkedHashMap<>();
+        var chunkRows = 0;
+        var chunkFirstLine = 1L;
+        var lineNumber = 0L;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && format == BookImportFormat.CSV && isCsvHeader(line))) {
+                continue;
+            }
+
+            progress.totalRows++;
+            try {
+                var request = parse(line, format);
+                var violations = validator.validate(request);
+                if (!violations.isEmpty()) {
+                    progress.reject(lineNumber, violations.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .sorted()
+                            .collect(Collectors.joining(" ")));
+                    continue;
+                }
+                if (chunk.isEmpty()) {
+                    chunkFirstLine = lineNumber;
+                }
+                chunk.merge(new BookKey(request.getTitle(), request.getAuthor()), 1, Integer::sum);
+                chunkRows++;
+            } catch (JsonProcessingException e) {
+                progress.reject(lineNumber, "Malformed row: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                progress.reject(lineNumber, "Malformed row: " + e.getMessage());
+            }
+
+            if (chunk.size() >= CHUNK_SIZE) {
+                applyChunk(chunk, chunkRows, chunkFirstLine, lineNumber, progress);
+                chunk.clear();
+                chunkRows = 0;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, chunkRows, chunkFirstLine, lineNumber, progress);
+        }
+
+        var elapsedSeconds = Math.max(System.nanoTime() - startedAt, 1L) / 1_000_000_000.0;
+        return new BookImportResponse(progress.totalRows, progress.importedRows, progress.failedRows,
+                progress.createdBooks, progress.totalRows / elapsedSeconds, progress.errors);
+    }
+
+    private void applyChunk(Map<BookKey, Integer> chunk, int chunkRows, long firstLine, long lastLine,
+                            ImportProgress progress) {
+        try {
+            Integer created = transactionTemplate.execute(status -> upsertChunk(chunk));
+            progress.importedRows += chunkRows;
+            progress.createdBooks += created == null ? 0 : created;
+        } catch (DataAccessException e) {
+            progress.failedRows += chunkRows;
+            progress.report(firstLine, "Rows " + firstLine + "-" + lastLine + " were not imported: "
+                    + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // Amounts are added in the database, so concurrent borrows, returns and imports of the same titles are kept.
+    private int upsertChunk(Map<BookKey, Integer> chunk) {
+        var titles = new String[chunk.size()];
+        var authors = new String[chunk.size()];
+        var copies = new Integer[chunk.size()];
+        var i = 0;
+        for (var entry : chunk.entrySet()) {
+            titles[i] = entry.getKey().title();
+            authors[i] = entry.getKey().author();
+            copies[i] = entry.getValue();
+            i++;
+        }
+
+        var created = 0;
+        List<Long> restocked = new ArrayList<>();
+        for (var row : bookRepository.upsertAllCopies(titles, authors, copies)) {
+            if (Boolean.TRUE.equals(row.getCreated())) {
+                created++;
+                bookSuggestService.indexAfterCommit(row.getId(), row.getTitle(), row.getAuthor());
+            } else {
+                restocked.add(row.getId());
+                entityCacheEvictor.evictAfterCommit(Book.class, row.getId());
+            }
+        }
+        // Only titles that already existed can have holds waiting for them.
+        if (!restocked.isEmpty()) {
+            libraryService.allocateAddedCopies(restocked);
+        }
+        return created;
+    }
+
+    private BookCreateRequest parse(String line, BookImportFormat format) throws JsonProcessingException {
+        return switch (format) {
+            case NDJSON -> objectMapper.readValue(line, BookCreateRequest.class);
+            case CSV -> {
+                var fields = parseCsvLine(line);
+                if (fields.size() != 2) {
+                    throw new IllegalArgumentException("expected 2 columns but found " + fields.size());
+                }
+                yield new BookCreateRequest(fields.get(0), fields.get(1));
+            }
+        };
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.strip().equalsIgnoreCase("title,author");
+    }
+
+    static List<String> parseCsvLine(String line) {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        for (var i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().strip());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString().strip());
+        return fields;
+    }
+
+    private record BookKey(String title, String author) {
+    }
+
+    private static class ImportProgress {
+        private long totalRows;
+        private long importedRows;
+        private long failedRows;
+        private long createdBooks;
+        private final List<BookImportError> errors = new ArrayList<>();
+
+        private void reject(long line, String message) {
+            failedRows++;
+            report(line, message);
+        }
+
+        private void report(long line, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportError(line, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.stepaniuk.nerdysoft.book.bulk;
+
+public enum BookImportFormat {
+    CSV,
+    NDJSON
+}
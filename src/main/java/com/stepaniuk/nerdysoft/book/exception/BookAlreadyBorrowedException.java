@@ -0,0 +1,15 @@
+package com.stepaniuk.nerdysoft.book.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BookAlreadyBorrowedException extends RuntimeException {
+    private final Long bookId;
+    private final Long memberId;
+
+    public BookAlreadyBorrowedException(Long bookId, Long memberId) {
+        super("Book with id " + bookId + " is already borrowed by member with id " + memberId);
+        this.bookId = bookId;
+        this.memberId = memberId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.stepaniuk.nerdysoft.book.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BookAlreadyExistsException extends RuntimeException {
+    private final Long id;
+    private final String title;
+    private final String author;
+
+    public BookAlreadyExistsException(Long id, String title, String author) {
+        super("Book with title " + title + " and author " + author + " already exists");
+        this.id = id;
+        this.title = title;
+        this.author = author;
+    }
+}
@@ -0,0 +1,15 @@
+package com.stepaniuk.nerdysoft.book.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class BookImportError {
+    private final long line;
+    private final String message;
+}
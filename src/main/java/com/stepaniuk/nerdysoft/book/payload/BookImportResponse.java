@@ -0,0 +1,21 @@
+package com.stepaniuk.nerdysoft.book.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class BookImportResponse {
+    private final long totalRows;
+    private final long importedRows;
+    private final long failedRows;
+    private final long createdBooks;
+    private final double rowsPerSecond;
+    private final List<BookImportError> errors;
+}
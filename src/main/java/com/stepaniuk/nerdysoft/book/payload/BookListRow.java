@@ -0,0 +1,17 @@
+package com.stepaniuk.nerdysoft.book.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class BookListRow {
+    private final Long id;
+    private final String title;
+    private final String author;
+    private final Integer amount;
+}
@@ -0,0 +1,13 @@
+package com.stepaniuk.nerdysoft.book.payload;
+
+public interface BookSearchRow {
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    Integer getAmount();
+
+    Float getRank();
+}
@@ -0,0 +1,389 @@
+package com.stepaniuk.nerdysoft.book.suggest;
+
+import com.stepaniuk.nerdysoft.book.payload.BookSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class BookSuggestIndex {
+    public static final int MIN_QUERY_LENGTH = 2;
+
+    private static final int MAX_PREFIX_LENGTH = 4;
+    private static final int MIN_WORD_PREFIX_LENGTH = 2;
+    private static final char TITLE_START = 'T';
+    private static final char TITLE_WORD = 'W';
+    private static final char AUTHOR_WORD = 'A';
+    private static final char[] TIERS = {TITLE_START, TITLE_WORD, AUTHOR_WORD};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongIntMap ordinals = new LongIntMap();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, String> authorPool = new HashMap<>();
+    private long[] ids = new long[1024];
+    private String[] titles = new String[1024];
+    private String[] authors = new String[1024];
+    private int nextOrdinal;
+
+    public record Document(long id, String title, String author) {
+    }
+
+    public void put(long id, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.get(id);
+            if (ordinal >= 0) {
+                if (titles[ordinal].equals(title) && authors[ordinal].equals(author)) {
+                    return;
+                }
+                unindex(ordinal);
+            } else {
+                ordinal = newOrdinal(id);
+            }
+            titles[ordinal] = title;
+            authors[ordinal] = authorPool.computeIfAbsent(author, a -> a);
+            int indexed = ordinal;
+            forEachKey(ordinal, key -> postings.computeIfAbsent(key, k -> new Postings()).insert(indexed));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Stream<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            Set<Postings> appended = Collections.newSetFromMap(new IdentityHashMap<>());
+            documents.forEach(document -> {
+                if (ordinals.get(document.id()) >= 0) {
+                    return;
+                }
+                int ordinal = newOrdinal(document.id());
+                titles[ordinal] = document.title();
+                authors[ordinal] = authorPool.computeIfAbsent(document.author(), a -> a);
+                forEachKey(ordinal, key -> {
+                    var list = postings.computeIfAbsent(key, k -> new Postings());
+                    list.append(ordinal);
+                    appended.add(list);
+                });
+            });
+            appended.forEach(Postings::sort);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.remove(id);
+            if (ordinal < 0) {
+                return;
+            }
+            unindex(ordinal);
+            titles[ordinal] = null;
+            authors[ordinal] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<BookSuggestion> suggest(String query, int limit) {
+        var normalized = normalize(query);
+        if (normalized.length() < MIN_QUERY_LENGTH || limit <= 0) {
+            return List.of();
+        }
+        int firstSpace = normalized.indexOf(' ');
+        int prefixLength = Math.min(MAX_PREFIX_LENGTH, firstSpace < 0 ? normalized.length() : firstSpace);
+        var prefix = normalized.substring(0, prefixLength);
+
+        lock.readLock().lock();
+        try {
+            var found = new int[limit];
+            int count = 0;
+            for (char tier : TIERS) {
+                if (tier != TITLE_START && prefixLength < MIN_WORD_PREFIX_LENGTH) {
+                    continue;
+                }
+                var list = postings.get(tier + prefix);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size && count < limit; i++) {
+                    int ordinal = list.ordinals[i];
+                    if (!contains(found, count, ordinal) && matches(tier, ordinal, normalized)) {
+                        found[count++] = ordinal;
+                    }
+                }
+            }
+
+            var result = new ArrayList<BookSuggestion>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(new BookSuggestion(ids[found[i]], titles[found[i]], authors[found[i]]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int newOrdinal(long id) {
+        if (nextOrdinal == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+        }
+        int ordinal = nextOrdinal++;
+        ids[ordinal] = id;
+        ordinals.put(id, ordinal);
+        return ordinal;
+    }
+
+    private void unindex(int ordinal) {
+        forEachKey(ordinal, key -> {
+            var list = postings.get(key);
+            list.remove(ordinal);
+            if (list.size == 0) {
+                postings.remove(key);
+            }
+        });
+    }
+
+    private boolean matches(char tier, int ordinal, String query) {
+        return switch (tier) {
+            case TITLE_START -> titles[ordinal].regionMatches(true, 0, query, 0, query.length());
+            case TITLE_WORD -> startsWord(titles[ordinal], query);
+            default -> startsWord(authors[ordinal], query);
+        };
+    }
+
+    private void forEachKey(int ordinal, Consumer<String> consumer) {
+        var keys = new HashSet<String>();
+        var title = normalize(titles[ordinal]);
+        for (int length = 1; length <= Math.min(MAX_PREFIX_LENGTH, wordEnd(title, 0)); length++) {
+            keys.add(TITLE_START + title.substring(0, length));
+        }
+        addWordPrefixes(keys, TITLE_WORD, title);
+        addWordPrefixes(keys, AUTHOR_WORD, normalize(authors[ordinal]));
+        keys.forEach(consumer);
+    }
+
+    private static void addWordPrefixes(Set<String> keys, char tier, String text) {
+        for (int start = 0; start < text.length(); ) {
+            int end = wordEnd(text, start);
+            for (int length = MIN_WORD_PREFIX_LENGTH; length <= Math.min(MAX_PREFIX_LENGTH, end - start); length++) {
+                keys.add(tier + text.substring(start, start + length));
+            }
+            start = end + 1;
+        }
+    }
+
+    private static int wordEnd(String text, int start) {
+        int space = text.indexOf(' ', start);
+        return space < 0 ? text.length() : space;
+    }
+
+    private static boolean startsWord(String text, String query) {
+        for (int i = 0; i + query.length() <= text.length(); i++) {
+            if ((i == 0 || Character.isWhitespace(text.charAt(i - 1)))
+                    && text.regionMatches(true, i, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String normalize(String text) {
+        var builder = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!space) {
+                    builder.append(' ');
+                    space = true;
+                }
+            } else {
+                builder.append(c);
+                space = false;
+            }
+        }
+        if (space && !builder.isEmpty()) {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // Ordinals are kept in ranking order: shorter titles first, then older books.
+    private final class Postings {
+        private int[] ordinals = new int[2];
+        private int size;
+
+        void append(int ordinal) {
+            ensureCapacity();
+            ordinals[size++] = ordinal;
+        }
+
+        void insert(int ordinal) {
+            int index = search(ordinal);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            ensureCapacity();
+            System.arraycopy(ordinals, insertAt, ordinals, insertAt + 1, size - insertAt);
+            ordinals[insertAt] = ordinal;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            int index = search(ordinal);
+            if (index >= 0) {
+                System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+                size--;
+            }
+        }
+
+        void sort() {
+            var packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = rank(ordinals[i]);
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < size; i++) {
+                ordinals[i] = (int) packed[i];
+            }
+        }
+
+        private int search(int ordinal) {
+            long key = rank(ordinal);
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleKey = rank(ordinals[middle]);
+                if (middleKey < key) {
+                    low = middle + 1;
+                } else if (middleKey > key) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private long rank(int ordinal) {
+            return ((long) titles[ordinal].length() << 32) | ordinal;
+        }
+
+        private void ensureCapacity() {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size + (size >> 1) + 1);
+            }
+        }
+    }
+
+    // Open-addressing book id to ordinal map; book ids are positive, so 0 marks a free slot.
+    private static final class LongIntMap {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == 0) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+            int value = values[i];
+            int gap = i;
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                if (((j - slot(keys[j], mask)) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            size--;
+            return value;
+        }
+
+        private void resize() {
+            var oldKeys = keys;
+            var oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
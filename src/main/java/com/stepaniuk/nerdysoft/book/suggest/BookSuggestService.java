@@ -0,0 +1,60 @@
+package com.stepaniuk.nerdysoft.book.suggest;
+
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.payload.BookSuggestion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookSuggestService {
+    public static final int MAX_LIMIT = 50;
+
+    private final BookRepository bookRepository;
+    private final BookSuggestIndex index = new BookSuggestIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildIndex() {
+        long startedAt = System.nanoTime();
+        try (var rows = bookRepository.streamExportRows()) {
+            index.putAll(rows.map(row -> new BookSuggestIndex.Document(row.getId(), row.getTitle(), row.getAuthor())));
+        }
+        log.info("Indexed {} books for suggestions in {} ms", index.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    public List<BookSuggestion> suggest(String query, int limit) {
+        return index.suggest(query, Math.clamp(limit, 1, MAX_LIMIT));
+    }
+
+    public void indexAfterCommit(Long id, String title, String author) {
+        afterCommit(() -> index.put(id, title, author));
+    }
+
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> index.remove(id));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.stepaniuk.nerdysoft.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class EntityCacheEvictor {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public void evictAfterCommit(Class<?> entityClass, Object id) {
+        evictAllAfterCommit(entityClass, List.of(id));
+    }
+
+    // Soft-locks the cached entries until the transaction completes, the same way Hibernate guards its own updates:
+    // a reader that loaded the old row before the commit cannot put it back into the cache afterwards.
+    public void evictAllAfterCommit(Class<?> entityClass, Collection<?> ids) {
+        var entityManager = TransactionSynchronizationManager.isSynchronizationActive()
+                ? EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory)
+                : null;
+        if (entityManager == null) {
+            evict(entityClass, ids);
+            return;
+        }
+
+        var sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        var persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass);
+        var cacheAccess = persister.getCacheAccessStrategy();
+        if (cacheAccess == null) {
+            // Second-level cache disabled: nothing to guard.
+            return;
+        }
+
+        var session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        for (var id : ids) {
+            var key = cacheAccess.generateCacheKey(id, persister, sessionFactory, session.getTenantIdentifier());
+            var lock = cacheAccess.lockItem(session, key, null);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cacheAccess.unlockItem(session, key, lock);
+                }
+            });
+        }
+    }
+
+    private void evict(Class<?> entityClass, Collection<?> ids) {
+        var cache = entityManagerFactory.getCache();
+        ids.forEach(id -> cache.evict(entityClass, id));
+    }
+}
@@ -0,0 +1,73 @@
+package com.stepaniuk.nerdysoft.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+@Configuration
+public class SecondLevelCacheConfig {
+    public static final String BOOKS_REGION = "books";
+    public static final String MEMBERS_REGION = "members";
+    // Query space of native counter updates whose callers evict the changed ids themselves. No entity maps it,
+    // so Hibernate does not drop a whole region after each of them.
+    public static final String EVICTED_BY_ID_SPACE = "evicted_by_id";
+
+    private static final Tags METRIC_TAGS = Tags.of("cache.manager", "hibernate");
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${library.cache.books.max-size:10000}") long booksMaxSize,
+            @Value("${library.cache.books.ttl:10m}") Duration booksTtl,
+            @Value("${library.cache.members.max-size:10000}") long membersMaxSize,
+            @Value("${library.cache.members.ttl:10m}") Duration membersTtl) {
+        // A manager of its own, so closing it with the context leaves the JVM-wide default manager alone.
+        var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        var cacheManager = provider.getCacheManager(
+                URI.create("urn:nerdysoft:hibernate:" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        createRegion(cacheManager, BOOKS_REGION, booksMaxSize, booksTtl);
+        createRegion(cacheManager, MEMBERS_REGION, membersMaxSize, membersTtl);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create");
+        };
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (var region : hibernateCacheManager.getCacheNames()) {
+                new JCacheMetrics<>(hibernateCacheManager.getCache(region), METRIC_TAGS).bindTo(registry);
+            }
+        };
+    }
+
+    private static void createRegion(CacheManager cacheManager, String region, long maxSize, Duration ttl) {
+        var configuration = new CaffeineConfiguration<Object, Object>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(region, configuration);
+    }
+}
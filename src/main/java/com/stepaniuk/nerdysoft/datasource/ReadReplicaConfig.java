@@ -0,0 +1,33 @@
+package com.stepaniuk.nerdysoft.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(prefix = "library.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    static ReadReplicaDataSourcePostProcessor readReplicaDataSourcePostProcessor(Environment environment) {
+        return new ReadReplicaDataSourcePostProcessor(environment);
+    }
+
+    @Bean
+    public MeterBinder replicaPoolMetrics(DataSource dataSource) {
+        return registry -> {
+            var routing = DataSourceUnwrapper.unwrap(dataSource, TransactionRoutingDataSource.class);
+            if (routing != null && routing.getReplica() instanceof HikariDataSource replica
+                    && replica.getMetricsTrackerFactory() == null) {
+                replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.stepaniuk.nerdysoft.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+
+@RequiredArgsConstructor
+class ReadReplicaDataSourcePostProcessor implements DestructionAwareBeanPostProcessor {
+    static final String PRIMARY_DATA_SOURCE = "dataSource";
+    static final String REPLICA_PROPERTIES = "library.datasource.replica";
+
+    private final Environment environment;
+    private HikariDataSource replica;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof JpaTransactionManager transactionManager) {
+            // Set after afterPropertiesSet, which copies the vendor dialect from the entity manager factory.
+            transactionManager.setJpaDialect(new ReplicaCacheModeJpaDialect());
+            return bean;
+        }
+        if (!PRIMARY_DATA_SOURCE.equals(beanName) || !(bean instanceof DataSource primary)) {
+            return bean;
+        }
+        replica = Binder.get(environment)
+                .bind(REPLICA_PROPERTIES, Bindable.ofInstance(new HikariDataSource()))
+                .orElseThrow(() -> new IllegalStateException("Missing " + REPLICA_PROPERTIES + " properties"));
+        if (replica.getPoolName() == null) {
+            replica.setPoolName("replica");
+        }
+        replica.setReadOnly(true);
+
+        var routing = new TransactionRoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+
+        // The physical connection is fetched lazily, once the transaction's read-only flag is known.
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // The replica pool is not a bean of its own, so it is closed together with the primary one.
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+        if (PRIMARY_DATA_SOURCE.equals(beanName) && replica != null) {
+            replica.close();
+        }
+    }
+
+    @Override
+    public boolean requiresDestruction(Object bean) {
+        return bean instanceof DataSource;
+    }
+}
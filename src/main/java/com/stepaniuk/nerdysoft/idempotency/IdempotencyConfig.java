@@ -0,0 +1,26 @@
+package com.stepaniuk.nerdysoft.idempotency;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+@Configuration
+@ConditionalOnProperty(prefix = "library.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyService idempotencyService,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver,
+            @Value("${library.idempotency.max-body-size:1MB}") DataSize maxBodySize) {
+        var registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(idempotencyService, handlerExceptionResolver, maxBodySize.toBytes()));
+        registration.addUrlPatterns("/library/*", "/books/*", "/members/*");
+        return registration;
+    }
+}
@@ -0,0 +1,131 @@
+package com.stepaniuk.nerdysoft.idempotency;
+
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotentRequestTooLargeException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> MUTATING_METHODS = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+
+    private final IdempotencyService idempotencyService;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final long maxBodySize;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !MUTATING_METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        String requestHash;
+        IdempotentResponse stored;
+        try {
+            byte[] body;
+            if (isForm(request)) {
+                // The container parses form bodies into parameters, so those are fingerprinted instead of the stream.
+                body = formParameters(request);
+            } else {
+                body = readBody(request);
+                request = new CachedBodyRequestWrapper(request, body);
+            }
+            requestHash = requestHash(request, body);
+            stored = idempotencyService.begin(key, requestHash);
+        } catch (RuntimeException e) {
+            // Only domain exceptions have a handler; anything else must fail the request, not answer an empty 200.
+            if (handlerExceptionResolver.resolveException(request, response, null, e) == null) {
+                throw e;
+            }
+            return;
+        }
+        if (stored != null) {
+            replay(stored, response);
+            return;
+        }
+
+        var responseWrapper = new ContentCachingResponseWrapper(response);
+        var completed = false;
+        try {
+            filterChain.doFilter(request, responseWrapper);
+            // Server errors are not stored so that a retry executes the request again.
+            if (responseWrapper.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+                idempotencyService.complete(key, new IdempotentResponse(requestHash, responseWrapper.getStatus(),
+                        responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyService.release(key);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(IdempotentResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body() != null && stored.body().length > 0) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        var body = request.getInputStream().readNBytes(Math.toIntExact(maxBodySize) + 1);
+        if (body.length > maxBodySize) {
+            throw new IdempotentRequestTooLargeException(maxBodySize);
+        }
+        return body;
+    }
+
+    private static boolean isForm(HttpServletRequest request) {
+        return request.getContentType() != null
+                && MediaType.APPLICATION_FORM_URLENCODED.includes(MediaType.parseMediaType(request.getContentType()));
+    }
+
+    private static byte[] formParameters(HttpServletRequest request) {
+        var parameters = new StringBuilder();
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                parameters.append(name).append('=').append(String.join(",", values)).append('&'));
+        return parameters.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String requestHash(HttpServletRequest request, byte[] body) {
+        var fingerprint = request.getMethod() + ' ' + request.getRequestURI()
+                + (request.getQueryString() == null ? "" : '?' + request.getQueryString()) + '\n';
+        try {
+            var sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(fingerprint.getBytes(StandardCharsets.UTF_8));
+            sha256.update(body);
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.stepaniuk.nerdysoft.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+
+@Repository
+public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, String> {
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at, expires_at, locked_until)
+            VALUES (:key, :requestHash, :createdAt, :expiresAt, :lockedUntil)
+            ON CONFLICT (idempotency_key) DO UPDATE
+                SET request_hash = EXCLUDED.request_hash, status = NULL, content_type = NULL, body = NULL,
+                    created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at,
+                    locked_until = EXCLUDED.locked_until
+                WHERE idempotency_keys.expires_at <= EXCLUDED.created_at
+                   OR (idempotency_keys.status IS NULL AND idempotency_keys.locked_until <= EXCLUDED.created_at)
+            """, nativeQuery = true)
+    int claim(String key, String requestHash, Instant createdAt, Instant expiresAt, Instant lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.lockedUntil = :lockedUntil where r.key in :keys and r.status is null")
+    int renewLeases(Collection<String> keys, Instant lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update IdempotencyRecord r set r.status = :status, r.contentType = :contentType, r.body = :body
+            where r.key = :key and r.status is null
+            """)
+    int complete(String key, int status, String contentType, byte[] body);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.key = :key and r.status is null")
+    int release(String key);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM idempotency_keys
+            WHERE idempotency_key IN (
+                SELECT idempotency_key FROM idempotency_keys
+                WHERE expires_at <= :now
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int deleteExpired(Instant now, int limit);
+}
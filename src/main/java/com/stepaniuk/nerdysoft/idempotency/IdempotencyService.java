@@ -0,0 +1,191 @@
+package com.stepaniuk.nerdysoft.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotencyKeyReusedException;
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotentRequestInProgressException;
+import com.stepaniuk.nerdysoft.idempotency.exception.InvalidIdempotencyKeyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "library.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyService {
+    static final String REPLAYED_METRIC = "library.idempotency.replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRepository idempotencyRepository;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+    private final int purgeBatchSize;
+    private final Cache<String, IdempotentResponse> responses;
+    // Executions running on this instance; duplicates wait on the future instead of polling the table.
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter replayedCounter;
+
+    public IdempotencyService(IdempotencyRepository idempotencyRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${library.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${library.idempotency.lease:30s}") Duration lease,
+                              @Value("${library.idempotency.cache.max-size:10000}") long cacheMaxSize,
+                              @Value("${library.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                              @Value("${library.idempotency.poll-interval:100ms}") Duration pollInterval,
+                              @Value("${library.idempotency.purge.batch-size:1000}") int purgeBatchSize) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+        this.purgeBatchSize = purgeBatchSize;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency");
+        this.replayedCounter = Counter.builder(REPLAYED_METRIC)
+                .description("Requests answered with the stored response of an earlier execution")
+                .register(meterRegistry);
+    }
+
+    // Returns the stored response to replay, or null when the caller owns the key and must execute the request.
+    public IdempotentResponse begin(String key, String requestHash) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(key);
+        }
+        var deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            var cached = responses.getIfPresent(key);
+            if (cached != null) {
+                return replay(key, requestHash, cached);
+            }
+
+            var execution = new CompletableFuture<IdempotentResponse>();
+            var running = inFlight.putIfAbsent(key, execution);
+            if (running != null) {
+                var response = await(key, running, deadline);
+                if (response != null) {
+                    return replay(key, requestHash, response);
+                }
+                continue;
+            }
+
+            int claimed = 0;
+            try {
+                var now = Instant.now();
+                claimed = idempotencyRepository.claim(key, requestHash, now, now.plus(ttl), now.plus(lease));
+            } finally {
+                if (claimed == 0) {
+                    // Another instance owns the key: let local duplicates retry and poll the table for its outcome.
+                    inFlight.remove(key, execution);
+                    execution.complete(null);
+                }
+            }
+            if (claimed == 1) {
+                return null;
+            }
+
+            var record = idempotencyRepository.findById(key);
+            if (record.isPresent() && record.get().isCompleted()) {
+                var response = record.get().toResponse();
+                responses.put(key, response);
+                return replay(key, requestHash, response);
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IdempotentRequestInProgressException(key);
+            }
+            sleep(key);
+        }
+    }
+
+    public void complete(String key, IdempotentResponse response) {
+        idempotencyRepository.complete(key, response.status(), response.contentType(), response.body());
+        responses.put(key, response);
+        var execution = inFlight.remove(key);
+        if (execution != null) {
+            execution.complete(response);
+        }
+    }
+
+    public void release(String key) {
+        try {
+            idempotencyRepository.release(key);
+        } finally {
+            var execution = inFlight.remove(key);
+            if (execution != null) {
+                execution.complete(null);
+            }
+        }
+    }
+
+    // Keeps the claims of executions still running here from being taken over by a retry on another instance.
+    @Scheduled(fixedDelayString = "${library.idempotency.lease-renewal-interval:10s}")
+    public void renewLeases() {
+        var keys = Set.copyOf(inFlight.keySet());
+        if (!keys.isEmpty()) {
+            idempotencyRepository.renewLeases(keys, Instant.now().plus(lease));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.idempotency.purge.interval:10m}",
+            initialDelayString = "${library.idempotency.purge.initial-delay:5m}")
+    public void purgeExpired() {
+        var now = Instant.now();
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = idempotencyRepository.deleteExpired(now, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private IdempotentResponse replay(String key, String requestHash, IdempotentResponse response) {
+        if (!response.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        replayedCounter.increment();
+        return response;
+    }
+
+    private static IdempotentResponse await(String key, CompletableFuture<IdempotentResponse> execution, long deadline) {
+        try {
+            return execution.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new IdempotentRequestInProgressException(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException(key);
+        }
+    }
+
+    private void sleep(String key) {
+        try {
+            Thread.sleep(pollInterval);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException(key);
+        }
+    }
+}
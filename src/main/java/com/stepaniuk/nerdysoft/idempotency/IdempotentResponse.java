@@ -0,0 +1,4 @@
+package com.stepaniuk.nerdysoft.idempotency;
+
+public record IdempotentResponse(String requestHash, int status, String contentType, byte[] body) {
+}
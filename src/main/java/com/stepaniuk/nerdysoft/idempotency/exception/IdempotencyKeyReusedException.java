@@ -0,0 +1,13 @@
+package com.stepaniuk.nerdysoft.idempotency.exception;
+
+import lombok.Getter;
+
+@Getter
+public class IdempotencyKeyReusedException extends RuntimeException {
+    private final String key;
+
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency key " + key + " was already used for another request");
+        this.key = key;
+    }
+}
@@ -0,0 +1,13 @@
+package com.stepaniuk.nerdysoft.idempotency.exception;
+
+import lombok.Getter;
+
+@Getter
+public class IdempotentRequestInProgressException extends RuntimeException {
+    private final String key;
+
+    public IdempotentRequestInProgressException(String key) {
+        super("Request with idempotency key " + key + " is still in progress");
+        this.key = key;
+    }
+}
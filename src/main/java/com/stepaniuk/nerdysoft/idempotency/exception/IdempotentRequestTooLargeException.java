@@ -0,0 +1,13 @@
+package com.stepaniuk.nerdysoft.idempotency.exception;
+
+import lombok.Getter;
+
+@Getter
+public class IdempotentRequestTooLargeException extends RuntimeException {
+    private final long maxBodySize;
+
+    public IdempotentRequestTooLargeException(long maxBodySize) {
+        super("Requests with an idempotency key must not have a body larger than " + maxBodySize + " bytes");
+        this.maxBodySize = maxBodySize;
+    }
+}
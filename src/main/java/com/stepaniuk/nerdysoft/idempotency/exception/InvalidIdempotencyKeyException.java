@@ -0,0 +1,13 @@
+package com.stepaniuk.nerdysoft.idempotency.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidIdempotencyKeyException extends RuntimeException {
+    private final String key;
+
+    public InvalidIdempotencyKeyException(String key) {
+        super("Idempotency key " + key + " is not valid");
+        this.key = key;
+    }
+}
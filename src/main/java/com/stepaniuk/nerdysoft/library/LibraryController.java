@@ -1,18 +1,34 @@
 package com.stepaniuk.nerdysoft.library;
 
 import com.stepaniuk.nerdysoft.book.exception.BookNotAvailableException;
+import com.stepaniuk.nerdysoft.library.payload.HoldResponse;
+import com.stepaniuk.nerdysoft.library.payload.LibraryStatsResponse;
+import com.stepaniuk.nerdysoft.library.payload.LoanBatchResponse;
+import com.stepaniuk.nerdysoft.library.payload.StatsRebuildResponse;
+import com.stepaniuk.nerdysoft.library.stats.LoanStatsService;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/library", produces = "application/json")
 @RequiredArgsConstructor
 public class LibraryController {
     private final LibraryService libraryService;
+    private final LoanStatsService loanStatsService;
 
     @PostMapping("/borrowBook")
     public void borrowBook(@NotNull @RequestParam Long bookId, @NotNull @RequestParam Long memberId) throws BookNotAvailableException {
@@ -23,4 +39,42 @@ public class LibraryController {
     public void returnBook(@NotNull @RequestParam Long bookId, @NotNull @RequestParam Long memberId) {
         libraryService.returnBook(bookId, memberId);
     }
+
+    @PostMapping("/borrowBooks")
+    public ResponseEntity<LoanBatchResponse> borrowBooks(@NotNull @RequestParam Long memberId, @NotNull @RequestParam List<Long> bookIds) {
+        return ResponseEntity.ok(libraryService.borrowBooks(memberId, bookIds));
+    }
+
+    @PostMapping("/returnBooks")
+    public ResponseEntity<LoanBatchResponse> returnBooks(@NotNull @RequestParam Long memberId, @NotNull @RequestParam List<Long> bookIds) {
+        return ResponseEntity.ok(libraryService.returnBooks(memberId, bookIds));
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<HoldResponse> placeHold(@NotNull @RequestParam Long bookId, @NotNull @RequestParam Long memberId) {
+        return new ResponseEntity<>(libraryService.placeHold(bookId, memberId), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/reconcileActiveLoans")
+    public ResponseEntity<Integer> reconcileActiveLoans() {
+        return ResponseEntity.ok(libraryService.reconcileActiveLoans());
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<LibraryStatsResponse> getStats(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(loanStatsService.getStats(month == null ? YearMonth.now(ZoneOffset.UTC) : month, limit));
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<StatsRebuildResponse> rebuildStats() {
+        return ResponseEntity.ok(loanStatsService.rebuild());
+    }
+
+    @GetMapping(path = "/loans/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportLoans() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(libraryService::exportLoans);
+    }
 }
@@ -1,18 +1,45 @@
 package com.stepaniuk.nerdysoft.library;
 
+import com.stepaniuk.nerdysoft.book.Book;
 import com.stepaniuk.nerdysoft.book.BookRepository;
 import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBook;
 import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyBorrowedException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotAvailableException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
+import com.stepaniuk.nerdysoft.cache.EntityCacheEvictor;
+import com.stepaniuk.nerdysoft.library.exception.LoanBatchFailedException;
+import com.stepaniuk.nerdysoft.library.hold.BookHold;
+import com.stepaniuk.nerdysoft.library.hold.BookHoldService;
+import com.stepaniuk.nerdysoft.library.outbox.LoanEventType;
+import com.stepaniuk.nerdysoft.library.outbox.LoanOutboxEvent;
+import com.stepaniuk.nerdysoft.library.outbox.LoanOutboxRepository;
+import com.stepaniuk.nerdysoft.library.payload.HoldResponse;
+import com.stepaniuk.nerdysoft.library.payload.LoanBatchResponse;
+import com.stepaniuk.nerdysoft.library.payload.LoanItemResult;
+import com.stepaniuk.nerdysoft.library.payload.LoanItemStatus;
+import com.stepaniuk.nerdysoft.member.Member;
 import com.stepaniuk.nerdysoft.member.MemberRepository;
 import com.stepaniuk.nerdysoft.member.exception.MemberCannotBorrowMoreBooksException;
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import com.stepaniuk.nerdysoft.shared.export.NdjsonWriter;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,46 +48,247 @@ public class LibraryService {
     @Value("${library.member.borrow.limit}")
     private int borrowLimit;
 
+    @Value("${library.loans.period:14d}")
+    private Duration loanPeriod;
+
     private final BookRepository bookRepository;
     private final BorrowedBookRepository borrowedBookRepository;
     private  final MemberRepository memberRepository;
+    private final LoanOutboxRepository loanOutboxRepository;
+    private final BookHoldService bookHoldService;
+    private final NdjsonWriter ndjsonWriter;
+    private final EntityCacheEvictor entityCacheEvictor;
 
+    @Transactional(rollbackFor = BookNotAvailableException.class)
+    @Timed(value = "library.loans.borrow", extraTags = {"batch", "false"}, histogram = true)
     public void borrowBook(Long bookId, Long memberId) throws BookNotAvailableException {
-        var book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BookNotFoundByIdException(bookId));
+        if (memberRepository.incrementActiveLoans(memberId, borrowLimit) == 0) {
+            if (!memberRepository.existsById(memberId)) {
+                throw new MemberNotFoundByIdException(memberId);
+            }
+            throw new MemberCannotBorrowMoreBooksException(memberId);
+        }
+        entityCacheEvictor.evictAfterCommit(Member.class, memberId);
 
-        if (book.getAmount() == 0) {
+        if (bookRepository.decrementAmount(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new BookNotFoundByIdException(bookId);
+            }
             throw new BookNotAvailableException(bookId);
         }
+        entityCacheEvictor.evictAfterCommit(Book.class, bookId);
 
-        var member = memberRepository.findById(memberId)
-                .orElseThrow(() -> new MemberNotFoundByIdException(memberId));
+        BorrowedBook borrowedBook = new BorrowedBook();
+        borrowedBook.setBook(bookRepository.getReferenceById(bookId));
+        borrowedBook.setMember(memberRepository.getReferenceById(memberId));
+        borrowedBook.setBorrowedDate(Instant.now());
+        borrowedBook.setDueDate(borrowedBook.getBorrowedDate().plus(loanPeriod));
 
-        if (borrowedBookRepository.findByMemberIdAndReturnedDateIsNull(memberId).size() >= borrowLimit) {
-            throw new MemberCannotBorrowMoreBooksException(bookId);
+        try {
+            borrowedBookRepository.saveAndFlush(borrowedBook);
+        } catch (DataIntegrityViolationException e) {
+            throw new BookAlreadyBorrowedException(bookId, memberId);
         }
+        recordEvents(LoanEventType.BOOK_BORROWED, memberId, List.of(bookId), borrowedBook.getBorrowedDate());
+    }
 
-        book.setAmount(book.getAmount() - 1);
-        bookRepository.save(book);
+    @Transactional
+    @Timed(value = "library.loans.return", extraTags = {"batch", "false"}, histogram = true)
+    public void returnBook(Long bookId, Long memberId) {
+        var returnedDate = Instant.now();
+        if (borrowedBookRepository.closeOpenLoan(memberId, bookId, returnedDate) == 0) {
+            throw new BookNotFoundByIdException(bookId);
+        }
 
-        BorrowedBook borrowedBook = new BorrowedBook();
-        borrowedBook.setBook(book);
-        borrowedBook.setMember(member);
-        borrowedBook.setBorrowedDate(Instant.now());
+        memberRepository.decrementActiveLoans(memberId);
+        entityCacheEvictor.evictAfterCommit(Member.class, memberId);
+        recordEvents(LoanEventType.BOOK_RETURNED, memberId, List.of(bookId), returnedDate);
+        if (!handOverToNextHold(bookId, returnedDate)) {
+            bookRepository.incrementAmount(bookId);
+            entityCacheEvictor.evictAfterCommit(Book.class, bookId);
+        }
+    }
 
-        borrowedBookRepository.save(borrowedBook);
+    @Transactional
+    @Timed(value = "library.loans.borrow", extraTags = {"batch", "true"}, histogram = true)
+    public LoanBatchResponse borrowBooks(Long memberId, List<Long> bookIds) {
+        rejectDuplicates(memberId, bookIds);
+        if (bookIds.isEmpty()) {
+            return new LoanBatchResponse(memberId, List.of());
+        }
+
+        var alreadyBorrowed = borrowedBookRepository
+                .findByMemberIdAndBookIdInAndReturnedDateIsNull(memberId, bookIds).stream()
+                .map(loan -> loan.getBook().getId())
+                .collect(Collectors.toSet());
+        if (!alreadyBorrowed.isEmpty()) {
+            throw new LoanBatchFailedException(memberId, bookIds.stream()
+                    .map(id -> new LoanItemResult(id,
+                            alreadyBorrowed.contains(id) ? LoanItemStatus.ALREADY_BORROWED : LoanItemStatus.SKIPPED))
+                    .toList());
+        }
+
+        if (memberRepository.incrementActiveLoansBy(memberId, bookIds.size(), borrowLimit) == 0) {
+            if (!memberRepository.existsById(memberId)) {
+                throw new MemberNotFoundByIdException(memberId);
+            }
+            throw new MemberCannotBorrowMoreBooksException(memberId);
+        }
+        entityCacheEvictor.evictAfterCommit(Member.class, memberId);
+
+        var decremented = new HashSet<>(bookRepository.decrementAmounts(bookIds));
+        entityCacheEvictor.evictAllAfterCommit(Book.class, decremented);
+        if (decremented.size() < bookIds.size()) {
+            var missing = bookIds.stream().filter(id -> !decremented.contains(id)).toList();
+            var existing = bookRepository.findAllById(missing).stream()
+                    .map(Book::getId)
+                    .collect(Collectors.toSet());
+            throw new LoanBatchFailedException(memberId, bookIds.stream()
+                    .map(id -> new LoanItemResult(id, decremented.contains(id) ? LoanItemStatus.SKIPPED
+                            : existing.contains(id) ? LoanItemStatus.NOT_AVAILABLE : LoanItemStatus.NOT_FOUND))
+                    .toList());
+        }
+
+        var member = memberRepository.getReferenceById(memberId);
+        var borrowedDate = Instant.now();
+        var borrowedBooks = new ArrayList<BorrowedBook>(bookIds.size());
+        for (Long bookId : bookIds) {
+            BorrowedBook borrowedBook = new BorrowedBook();
+            borrowedBook.setBook(bookRepository.getReferenceById(bookId));
+            borrowedBook.setMember(member);
+            borrowedBook.setBorrowedDate(borrowedDate);
+            borrowedBook.setDueDate(borrowedDate.plus(loanPeriod));
+            borrowedBooks.add(borrowedBook);
+        }
+        borrowedBookRepository.saveAll(borrowedBooks);
+        recordEvents(LoanEventType.BOOK_BORROWED, memberId, bookIds, borrowedDate);
+
+        return new LoanBatchResponse(memberId, bookIds.stream()
+                .map(id -> new LoanItemResult(id, LoanItemStatus.BORROWED))
+                .toList());
+    }
+
+    @Transactional
+    @Timed(value = "library.loans.return", extraTags = {"batch", "true"}, histogram = true)
+    public LoanBatchResponse returnBooks(Long memberId, List<Long> bookIds) {
+        rejectDuplicates(memberId, bookIds);
+        if (bookIds.isEmpty()) {
+            return new LoanBatchResponse(memberId, List.of());
+        }
+
+        var returnedDate = Instant.now();
+        var closed = new HashSet<>(borrowedBookRepository.closeOpenLoans(memberId, bookIds, returnedDate));
+        if (closed.size() < bookIds.size()) {
+            // Rolls back the loans that were closed.
+            throw new LoanBatchFailedException(memberId, bookIds.stream()
+                    .map(id -> new LoanItemResult(id,
+                            closed.contains(id) ? LoanItemStatus.SKIPPED : LoanItemStatus.NOT_BORROWED))
+                    .toList());
+        }
+
+        memberRepository.decrementActiveLoansBy(memberId, bookIds.size());
+        entityCacheEvictor.evictAfterCommit(Member.class, memberId);
+        recordEvents(LoanEventType.BOOK_RETURNED, memberId, bookIds, returnedDate);
+        var shelved = bookIds.stream()
+                .filter(bookId -> !handOverToNextHold(bookId, returnedDate))
+                .toList();
+        if (!shelved.isEmpty()) {
+            bookRepository.incrementAmounts(shelved);
+            entityCacheEvictor.evictAllAfterCommit(Book.class, shelved);
+        }
+
+        return new LoanBatchResponse(memberId, bookIds.stream()
+                .map(id -> new LoanItemResult(id, LoanItemStatus.RETURNED))
+                .toList());
     }
 
-   public void returnBook(Long bookId, Long memberId) {
-        var borrowedBook = borrowedBookRepository.findByMemberIdAndBookIdAndReturnedDateIsNull(memberId, bookId)
-                .orElseThrow(() -> new BookNotFoundByIdException(bookId));
+    @Timed(value = "library.holds.place", histogram = true)
+    public HoldResponse placeHold(Long bookId, Long memberId) {
+        return bookHoldService.placeHold(bookId, memberId);
+    }
+
+    // Copies added through createBook or an import go to waiting holds before anyone can borrow them off the shelf.
+    // Callers evict the books they added.
+    @Transactional
+    public int allocateAddedCopies(Collection<Long> bookIds) {
+        var now = Instant.now();
+        var lent = 0;
+        for (var bookId : bookIds) {
+            while (handOverShelvedCopy(bookId, now)) {
+                lent++;
+            }
+        }
+        return lent;
+    }
+
+    // An aggregate taken in the same statement as the update would predate the row locks and could undo a
+    // borrow or return committed in between, so the rows are locked first and counted in a second statement.
+    @Transactional
+    public int reconcileActiveLoans() {
+        memberRepository.lockAll();
+        return memberRepository.reconcileActiveLoans();
+    }
+
+    @Transactional(readOnly = true)
+    public long exportLoans(OutputStream out) throws IOException {
+        try (var rows = borrowedBookRepository.streamExportRows()) {
+            return ndjsonWriter.write(rows, out);
+        }
+    }
 
-        borrowedBook.setReturnedDate(Instant.now());
+    // The returned copy goes to the oldest hold whose member is under the limit instead of back on the shelf.
+    private boolean handOverToNextHold(Long bookId, Instant returnedDate) {
+        return bookHoldService.lockNextEligible(bookId, borrowLimit, returnedDate)
+                .map(hold -> lendToHold(hold, returnedDate))
+                .orElse(false);
+    }
+
+    // The copy is taken back off the shelf only once a hold is locked, and put back if the member reached the limit.
+    private boolean handOverShelvedCopy(Long bookId, Instant now) {
+        var next = bookHoldService.lockNextEligible(bookId, borrowLimit, now);
+        if (next.isEmpty() || bookRepository.decrementAmount(bookId) == 0) {
+            return false;
+        }
+        if (!lendToHold(next.get(), now)) {
+            bookRepository.incrementAmount(bookId);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean lendToHold(BookHold hold, Instant borrowedDate) {
+        if (memberRepository.incrementActiveLoans(hold.getMemberId(), borrowLimit) == 0) {
+            return false;
+        }
+        entityCacheEvictor.evictAfterCommit(Member.class, hold.getMemberId());
+
+        BorrowedBook borrowedBook = new BorrowedBook();
+        borrowedBook.setBook(bookRepository.getReferenceById(hold.getBookId()));
+        borrowedBook.setMember(memberRepository.getReferenceById(hold.getMemberId()));
+        borrowedBook.setBorrowedDate(borrowedDate);
+        borrowedBook.setDueDate(borrowedDate.plus(loanPeriod));
         borrowedBookRepository.save(borrowedBook);
+        bookHoldService.fulfil(hold);
+        recordEvents(LoanEventType.BOOK_BORROWED, hold.getMemberId(), List.of(hold.getBookId()), borrowedDate);
+        return true;
+    }
 
-        var book = borrowedBook.getBook();
+    private void recordEvents(LoanEventType type, Long memberId, List<Long> bookIds, Instant occurredAt) {
+        loanOutboxRepository.saveAll(bookIds.stream()
+                .map(bookId -> new LoanOutboxEvent(null, type, bookId, memberId, occurredAt))
+                .toList());
+    }
 
-        book.setAmount(book.getAmount() + 1);
-        bookRepository.save(book);
+    private static void rejectDuplicates(Long memberId, List<Long> bookIds) {
+        Set<Long> seen = new HashSet<>();
+        Set<Long> duplicates = bookIds.stream()
+                .filter(id -> !seen.add(id))
+                .collect(Collectors.toSet());
+        if (!duplicates.isEmpty()) {
+            throw new LoanBatchFailedException(memberId, bookIds.stream()
+                    .map(id -> new LoanItemResult(id,
+                            duplicates.contains(id) ? LoanItemStatus.DUPLICATE : LoanItemStatus.SKIPPED))
+                    .toList());
+        }
     }
 }
@@ -0,0 +1,15 @@
+package com.stepaniuk.nerdysoft.library.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BookAlreadyOnHoldException extends RuntimeException {
+    private final Long bookId;
+    private final Long memberId;
+
+    public BookAlreadyOnHoldException(Long bookId, Long memberId) {
+        super("Book with id " + bookId + " is already on hold for member with id " + memberId);
+        this.bookId = bookId;
+        this.memberId = memberId;
+    }
+}
@@ -0,0 +1,13 @@
+package com.stepaniuk.nerdysoft.library.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BookHoldNotNeededException extends RuntimeException {
+    private final Long bookId;
+
+    public BookHoldNotNeededException(Long bookId) {
+        super("Book with id " + bookId + " is available to borrow");
+        this.bookId = bookId;
+    }
+}
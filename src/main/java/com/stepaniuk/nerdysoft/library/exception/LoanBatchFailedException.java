@@ -0,0 +1,18 @@
+package com.stepaniuk.nerdysoft.library.exception;
+
+import com.stepaniuk.nerdysoft.library.payload.LoanItemResult;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class LoanBatchFailedException extends RuntimeException {
+    private final Long memberId;
+    private final List<LoanItemResult> items;
+
+    public LoanBatchFailedException(Long memberId, List<LoanItemResult> items) {
+        super("Loan batch for member with id " + memberId + " failed");
+        this.memberId = memberId;
+        this.items = items;
+    }
+}
@@ -0,0 +1,7 @@
+package com.stepaniuk.nerdysoft.library.exception;
+
+public class StatsRebuildInProgressException extends RuntimeException {
+    public StatsRebuildInProgressException() {
+        super("Loan statistics are being rebuilt");
+    }
+}
@@ -0,0 +1,64 @@
+package com.stepaniuk.nerdysoft.library.hold;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "library.holds.expiry", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BookHoldExpirer {
+    static final String EXPIRED_METRIC = "library.holds.expired";
+
+    private final BookHoldRepository bookHoldRepository;
+    private final BookHoldService bookHoldService;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Counter expiredCounter;
+
+    public BookHoldExpirer(BookHoldRepository bookHoldRepository,
+                           BookHoldService bookHoldService,
+                           MeterRegistry meterRegistry,
+                           @Value("${library.holds.expiry.batch-size:1000}") int batchSize,
+                           @Value("${library.holds.expiry.max-batches:100}") int maxBatches) {
+        this.bookHoldRepository = bookHoldRepository;
+        this.bookHoldService = bookHoldService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.expiredCounter = Counter.builder(EXPIRED_METRIC)
+                .description("Holds removed from the queue after expiring unfulfilled")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library.holds.expiry.interval:5m}",
+            initialDelayString = "${library.holds.expiry.initial-delay:1m}")
+    public void expireHolds() {
+        expire(Instant.now());
+        // Keeps the waiting gauge in line with holds placed and fulfilled through other instances.
+        bookHoldService.loadQueue();
+    }
+
+    public long expire(Instant now) {
+        long expired = 0;
+        int batches = 0;
+        int removed;
+        do {
+            var holds = bookHoldRepository.deleteExpired(now, batchSize);
+            bookHoldService.forget(holds);
+            removed = holds.size();
+            expired += removed;
+            expiredCounter.increment(removed);
+        } while (removed == batchSize && ++batches < maxBatches);
+
+        if (expired > 0) {
+            log.info("Expired {} holds", expired);
+        }
+        return expired;
+    }
+}
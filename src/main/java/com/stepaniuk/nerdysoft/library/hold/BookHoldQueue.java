@@ -0,0 +1,46 @@
+package com.stepaniuk.nerdysoft.library.hold;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+// In-memory mirror of book_holds: hold ids per book in queue order. It only feeds the waiting gauge and may lag
+// behind other instances; allocation always asks book_holds.
+public class BookHoldQueue {
+    private final Map<Long, NavigableSet<Long>> queues = new ConcurrentHashMap<>();
+
+    public void add(Long bookId, Long holdId) {
+        queues.computeIfAbsent(bookId, id -> new ConcurrentSkipListSet<>()).add(holdId);
+    }
+
+    public void remove(Long bookId, Long holdId) {
+        queues.computeIfPresent(bookId, (id, queue) -> {
+            queue.remove(holdId);
+            return queue.isEmpty() ? null : queue;
+        });
+    }
+
+    public boolean hasHolds(Long bookId) {
+        return queues.containsKey(bookId);
+    }
+
+    public int position(Long bookId, Long holdId) {
+        var queue = queues.get(bookId);
+        return queue == null ? 0 : queue.headSet(holdId).size() + 1;
+    }
+
+    public int size() {
+        return queues.values().stream().mapToInt(NavigableSet::size).sum();
+    }
+
+    public void addAll(Stream<BookHold> holds) {
+        holds.forEach(hold -> add(hold.getBookId(), hold.getId()));
+    }
+
+    public void replaceAll(Stream<BookHold> holds) {
+        queues.clear();
+        addAll(holds);
+    }
+}
@@ -0,0 +1,52 @@
+package com.stepaniuk.nerdysoft.library.hold;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface BookHoldRepository extends JpaRepository<BookHold, Long> {
+    long countByBookIdAndIdLessThan(Long bookId, Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select h from BookHold h order by h.id")
+    Stream<BookHold> streamAllInQueueOrder();
+
+    @Query(value = """
+            SELECT h.* FROM book_holds h
+            JOIN members m ON m.id = h.member_id
+            WHERE h.book_id = :bookId
+              AND h.expires_at > :now
+              AND m.active_loans < :borrowLimit
+              AND NOT EXISTS (
+                  SELECT 1 FROM borrowed_books b
+                  WHERE b.member_id = h.member_id AND b.book_id = h.book_id AND b.returned_date IS NULL)
+            ORDER BY h.id
+            LIMIT 1
+            FOR UPDATE OF h SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<BookHold> lockNextEligible(Long bookId, int borrowLimit, Instant now);
+
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_holds"))
+    @Query(value = """
+            DELETE FROM book_holds
+            WHERE id IN (
+                SELECT id FROM book_holds
+                WHERE expires_at <= :now
+                ORDER BY expires_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<BookHold> deleteExpired(Instant now, int limit);
+}
@@ -0,0 +1,120 @@
+package com.stepaniuk.nerdysoft.library.hold;
+
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyBorrowedException;
+import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
+import com.stepaniuk.nerdysoft.library.exception.BookAlreadyOnHoldException;
+import com.stepaniuk.nerdysoft.library.exception.BookHoldNotNeededException;
+import com.stepaniuk.nerdysoft.library.payload.HoldResponse;
+import com.stepaniuk.nerdysoft.member.MemberRepository;
+import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@Service
+public class BookHoldService {
+    static final String WAITING_METRIC = "library.holds.waiting";
+
+    private final BookHoldRepository bookHoldRepository;
+    private final BookRepository bookRepository;
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final MemberRepository memberRepository;
+    private final Duration ttl;
+    private final BookHoldQueue queue = new BookHoldQueue();
+
+    public BookHoldService(BookHoldRepository bookHoldRepository,
+                           BookRepository bookRepository,
+                           BorrowedBookRepository borrowedBookRepository,
+                           MemberRepository memberRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${library.holds.ttl:7d}") Duration ttl) {
+        this.bookHoldRepository = bookHoldRepository;
+        this.bookRepository = bookRepository;
+        this.borrowedBookRepository = borrowedBookRepository;
+        this.memberRepository = memberRepository;
+        this.ttl = ttl;
+        Gauge.builder(WAITING_METRIC, queue, BookHoldQueue::size)
+                .description("Holds waiting for a returned copy")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadQueue() {
+        try (var holds = bookHoldRepository.streamAllInQueueOrder()) {
+            queue.replaceAll(holds);
+        }
+        log.debug("Loaded {} waiting holds", queue.size());
+    }
+
+    @Transactional
+    public HoldResponse placeHold(Long bookId, Long memberId) {
+        if (!memberRepository.existsById(memberId)) {
+            throw new MemberNotFoundByIdException(memberId);
+        }
+        var book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new BookNotFoundByIdException(bookId));
+        if (book.getAmount() > 0) {
+            throw new BookHoldNotNeededException(bookId);
+        }
+        if (borrowedBookRepository.findByMemberIdAndBookIdAndReturnedDateIsNull(memberId, bookId).isPresent()) {
+            throw new BookAlreadyBorrowedException(bookId, memberId);
+        }
+
+        var createdAt = Instant.now();
+        BookHold hold;
+        try {
+            hold = bookHoldRepository.saveAndFlush(new BookHold(null, bookId, memberId, createdAt, createdAt.plus(ttl)));
+        } catch (DataIntegrityViolationException e) {
+            throw new BookAlreadyOnHoldException(bookId, memberId);
+        }
+        var holdId = hold.getId();
+        afterCommit(() -> queue.add(bookId, holdId));
+
+        return new HoldResponse(holdId, bookId, memberId, hold.getCreatedAt(), hold.getExpiresAt(),
+                bookHoldRepository.countByBookIdAndIdLessThan(bookId, holdId) + 1);
+    }
+
+    // Holds placed through other instances are only in book_holds, so the mirror cannot rule a book out.
+    public Optional<BookHold> lockNextEligible(Long bookId, int borrowLimit, Instant now) {
+        return bookHoldRepository.lockNextEligible(bookId, borrowLimit, now);
+    }
+
+    public void fulfil(BookHold hold) {
+        bookHoldRepository.delete(hold);
+        afterCommit(() -> queue.remove(hold.getBookId(), hold.getId()));
+    }
+
+    public void forget(List<BookHold> holds) {
+        holds.forEach(hold -> queue.remove(hold.getBookId(), hold.getId()));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventLoanEventSink implements LoanEventSink {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void deliver(List<LoanEvent> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
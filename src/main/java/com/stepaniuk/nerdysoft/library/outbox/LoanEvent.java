@@ -0,0 +1,20 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class LoanEvent {
+    private final Long id;
+    private final LoanEventType type;
+    private final Long bookId;
+    private final Long memberId;
+    private final Instant occurredAt;
+}
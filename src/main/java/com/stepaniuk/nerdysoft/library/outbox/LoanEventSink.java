@@ -0,0 +1,7 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import java.util.List;
+
+public interface LoanEventSink {
+    void deliver(List<LoanEvent> events);
+}
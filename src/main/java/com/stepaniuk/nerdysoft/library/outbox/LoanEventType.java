@@ -0,0 +1,6 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+public enum LoanEventType {
+    BOOK_BORROWED,
+    BOOK_RETURNED
+}
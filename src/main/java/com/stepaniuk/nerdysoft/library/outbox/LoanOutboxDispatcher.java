@@ -0,0 +1,97 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "library.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LoanOutboxDispatcher {
+    static final String DISPATCHED_METRIC = "library.outbox.dispatched";
+    static final String LAG_METRIC = "library.outbox.lag";
+    static final String PENDING_METRIC = "library.outbox.pending";
+
+    private final LoanOutboxRepository loanOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<LoanEventSink> sinks;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Counter dispatchedCounter;
+    private final Timer lagTimer;
+
+    public LoanOutboxDispatcher(LoanOutboxRepository loanOutboxRepository,
+                                TransactionTemplate transactionTemplate,
+                                List<LoanEventSink> sinks,
+                                MeterRegistry meterRegistry,
+                                @Value("${library.outbox.batch-size:500}") int batchSize,
+                                @Value("${library.outbox.max-batches:20}") int maxBatches) {
+        this.loanOutboxRepository = loanOutboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.dispatchedCounter = Counter.builder(DISPATCHED_METRIC)
+                .description("Loan events delivered to every sink and removed from the outbox")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder(LAG_METRIC)
+                .description("Time between a loan change and the delivery of its event")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder(PENDING_METRIC, loanOutboxRepository, LoanOutboxRepository::count)
+                .description("Loan events waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library.outbox.dispatch-interval:1s}")
+    public void dispatchPending() {
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            log.warn("Dispatching loan events failed, the batch will be retried", e);
+        }
+    }
+
+    public long dispatch() {
+        long dispatched = 0;
+        int batches = 0;
+        int delivered;
+        do {
+            Integer batch = transactionTemplate.execute(status -> dispatchBatch());
+            delivered = batch == null ? 0 : batch;
+            dispatched += delivered;
+        } while (delivered == batchSize && ++batches < maxBatches);
+        return dispatched;
+    }
+
+    private int dispatchBatch() {
+        var rows = loanOutboxRepository.lockNextBatch(batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        var events = rows.stream()
+                .map(LoanOutboxEvent::toEvent)
+                .toList();
+        for (var sink : sinks) {
+            sink.deliver(events);
+        }
+        loanOutboxRepository.deleteAllByIdInBatch(events.stream().map(LoanEvent::getId).toList());
+
+        var now = Instant.now();
+        events.forEach(event -> lagTimer.record(Duration.between(event.getOccurredAt(), now)));
+        dispatchedCounter.increment(events.size());
+        return events.size();
+    }
+}
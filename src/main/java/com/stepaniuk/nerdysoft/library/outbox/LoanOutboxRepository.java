@@ -0,0 +1,20 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LoanOutboxRepository extends JpaRepository<LoanOutboxEvent, Long> {
+    // A return is only recorded after its borrow committed, so occurred_at keeps the events of one loan in order;
+    // id orders the events of one transaction.
+    @Query(value = """
+            SELECT * FROM loan_outbox
+            ORDER BY occurred_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<LoanOutboxEvent> lockNextBatch(int limit);
+}
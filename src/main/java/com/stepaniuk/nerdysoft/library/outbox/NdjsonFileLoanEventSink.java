@@ -0,0 +1,51 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import com.stepaniuk.nerdysoft.shared.export.NdjsonWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+@ConditionalOnProperty(prefix = "library.outbox.ndjson", name = "path")
+public class NdjsonFileLoanEventSink implements LoanEventSink {
+    private final NdjsonWriter ndjsonWriter;
+    private final Path path;
+    // Under the virtual-threads profile dispatch runs on a virtual thread, which a monitor held across the fsync would pin.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public NdjsonFileLoanEventSink(NdjsonWriter ndjsonWriter, @Value("${library.outbox.ndjson.path}") Path path) {
+        this.ndjsonWriter = ndjsonWriter;
+        this.path = path;
+    }
+
+    @Override
+    public void deliver(List<LoanEvent> events) {
+        lock.lock();
+        try {
+            var parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (var file = new FileOutputStream(path.toFile(), true);
+                 var out = new BufferedOutputStream(file)) {
+                ndjsonWriter.write(events.stream(), out);
+                out.flush();
+                // The batch is deleted from the outbox right after this returns, so it has to be on disk.
+                file.getFD().sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append loan events to " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.stepaniuk.nerdysoft.library.overdue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "library.loans.overdue.notifier", name = "type", havingValue = "log", matchIfMissing = true)
+public class LoggingOverdueNotifier implements OverdueNotifier {
+
+    @Override
+    public void notify(List<OverdueReminder> reminders) {
+        reminders.forEach(reminder -> log.info("Member {} is {} days late returning book {} (loan {}), fine {}",
+                reminder.getMemberId(), reminder.getDaysOverdue(), reminder.getBookId(), reminder.getLoanId(),
+                reminder.getFine()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.stepaniuk.nerdysoft.library.overdue;
+
+import com.stepaniuk.nerdysoft.shared.export.NdjsonWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+@ConditionalOnProperty(prefix = "library.loans.overdue.notifier", name = "type", havingValue = "file")
+public class NdjsonFileOverdueNotifier implements OverdueNotifier {
+    private final NdjsonWriter ndjsonWriter;
+    private final Path path;
+    // Not a monitor: callers run on virtual threads, which a synchronized block would pin during file I/O.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public NdjsonFileOverdueNotifier(NdjsonWriter ndjsonWriter,
+                                     @Value("${library.loans.overdue.notifier.path:overdue-reminders.ndjson}") Path path) {
+        this.ndjsonWriter = ndjsonWriter;
+        this.path = path;
+    }
+
+    @Override
+    public void notify(List<OverdueReminder> reminders) {
+        lock.lock();
+        try {
+            var parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (var out = new BufferedOutputStream(new FileOutputStream(path.toFile(), true))) {
+                ndjsonWriter.write(reminders.stream(), out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append overdue reminders to " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
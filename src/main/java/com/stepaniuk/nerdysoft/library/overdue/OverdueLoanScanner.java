@@ -0,0 +1,145 @@
+package com.stepaniuk.nerdysoft.library.overdue;
+
+import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.book.borrowed.payload.OverdueLoan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "library.loans.overdue", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OverdueLoanScanner {
+    static final String CHECKPOINT_NAME = "overdue-loans";
+    static final String REMINDED_METRIC = "library.loans.overdue.reminded";
+
+    private static final long SECONDS_PER_DAY = Duration.ofDays(1).toSeconds();
+
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final ScanCheckpointRepository scanCheckpointRepository;
+    private final OverdueNotifier overdueNotifier;
+    private final int chunkSize;
+    private final int parallelism;
+    private final BigDecimal finePerDay;
+    private final BigDecimal maxFine;
+    private final Counter remindedCounter;
+
+    public OverdueLoanScanner(BorrowedBookRepository borrowedBookRepository,
+                              ScanCheckpointRepository scanCheckpointRepository,
+                              OverdueNotifier overdueNotifier,
+                              MeterRegistry meterRegistry,
+                              @Value("${library.loans.overdue.chunk-size:500}") int chunkSize,
+                              @Value("${library.loans.overdue.parallelism:4}") int parallelism,
+                              @Value("${library.loans.overdue.fine-per-day:0.25}") BigDecimal finePerDay,
+                              @Value("${library.loans.overdue.max-fine:10.00}") BigDecimal maxFine) {
+        this.borrowedBookRepository = borrowedBookRepository;
+        this.scanCheckpointRepository = scanCheckpointRepository;
+        this.overdueNotifier = overdueNotifier;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.finePerDay = finePerDay;
+        this.maxFine = maxFine;
+        this.remindedCounter = Counter.builder(REMINDED_METRIC)
+                .description("Reminders sent for open loans past their due date")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library.loans.overdue.interval:1h}",
+            initialDelayString = "${library.loans.overdue.initial-delay:2m}")
+    public void scanOverdueLoans() {
+        scan(Instant.now());
+    }
+
+    // Reminds every overdue loan once per UTC day; an interrupted scan resumes after its last checkpoint.
+    public long scan(Instant now) {
+        var today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        var checkpoint = scanCheckpointRepository.findById(CHECKPOINT_NAME)
+                .filter(existing -> existing.getScanDate().equals(today))
+                .orElseGet(() -> new ScanCheckpoint(CHECKPOINT_NAME, today, null, null, 0, false, now));
+        if (checkpoint.isCompleted()) {
+            return 0;
+        }
+
+        var lastDueDate = checkpoint.getLastDueDate() == null ? Instant.EPOCH : checkpoint.getLastDueDate();
+        var lastId = checkpoint.getLastId() == null ? 0L : checkpoint.getLastId();
+        long reminded = 0;
+        var exhausted = false;
+        while (!exhausted) {
+            var chunks = new ArrayList<List<OverdueLoan>>(parallelism);
+            while (chunks.size() < parallelism && !exhausted) {
+                var chunk = borrowedBookRepository.findOverdueAfter(now, lastDueDate, lastId, Limit.of(chunkSize));
+                if (!chunk.isEmpty()) {
+                    chunks.add(chunk);
+                    lastDueDate = chunk.getLast().getDueDate();
+                    lastId = chunk.getLast().getId();
+                }
+                exhausted = chunk.size() < chunkSize;
+            }
+
+            var count = remindAll(chunks, now);
+            reminded += count;
+            checkpoint.setLastDueDate(lastDueDate);
+            checkpoint.setLastId(lastId);
+            checkpoint.setProcessed(checkpoint.getProcessed() + count);
+            checkpoint.setCompleted(exhausted);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpoint = scanCheckpointRepository.save(checkpoint);
+        }
+
+        if (reminded > 0) {
+            log.info("Sent {} overdue reminders for {}", reminded, today);
+        }
+        return reminded;
+    }
+
+    OverdueReminder toReminder(OverdueLoan loan, Instant now) {
+        var daysOverdue = (Duration.between(loan.getDueDate(), now).toSeconds() + SECONDS_PER_DAY - 1) / SECONDS_PER_DAY;
+        var fine = finePerDay.multiply(BigDecimal.valueOf(daysOverdue)).min(maxFine);
+        return new OverdueReminder(loan.getId(), loan.getBookId(), loan.getMemberId(), loan.getDueDate(), daysOverdue, fine);
+    }
+
+    // Chunks of one wave are notified concurrently; the checkpoint only moves once all of them succeeded.
+    private int remindAll(List<List<OverdueLoan>> chunks, Instant now) {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<Integer>>(chunks.size());
+            for (var chunk : chunks) {
+                futures.add(executor.submit(() -> remind(chunk, now)));
+            }
+            var count = 0;
+            for (var future : futures) {
+                count += future.get();
+            }
+            return count;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Could not send overdue reminders", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending overdue reminders", e);
+        }
+    }
+
+    private int remind(List<OverdueLoan> chunk, Instant now) {
+        overdueNotifier.notify(chunk.stream().map(loan -> toReminder(loan, now)).toList());
+        remindedCounter.increment(chunk.size());
+        return chunk.size();
+    }
+}
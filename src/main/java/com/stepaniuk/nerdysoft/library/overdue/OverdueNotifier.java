@@ -0,0 +1,7 @@
+package com.stepaniuk.nerdysoft.library.overdue;
+
+import java.util.List;
+
+public interface OverdueNotifier {
+    void notify(List<OverdueReminder> reminders);
+}
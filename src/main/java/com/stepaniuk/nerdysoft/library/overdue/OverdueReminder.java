@@ -0,0 +1,22 @@
+package com.stepaniuk.nerdysoft.library.overdue;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class OverdueReminder {
+    private final Long loanId;
+    private final Long bookId;
+    private final Long memberId;
+    private final Instant dueDate;
+    private final long daysOverdue;
+    private final BigDecimal fine;
+}
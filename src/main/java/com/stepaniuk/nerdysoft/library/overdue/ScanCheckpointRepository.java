@@ -0,0 +1,8 @@
+package com.stepaniuk.nerdysoft.library.overdue;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ScanCheckpointRepository extends JpaRepository<ScanCheckpoint, String> {
+}
@@ -0,0 +1,17 @@
+package com.stepaniuk.nerdysoft.library.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class BookStatsEntry {
+    private final Long bookId;
+    private final String title;
+    private final String author;
+    private final long borrowCount;
+}
@@ -0,0 +1,23 @@
+package com.stepaniuk.nerdysoft.library.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class BookUtilizationEntry {
+    private final Long bookId;
+    private final String title;
+    private final String author;
+    private final long openLoans;
+    private final int available;
+    private final double utilization;
+
+    public BookUtilizationEntry(Long bookId, String title, String author, long openLoans, Integer available) {
+        this(bookId, title, author, openLoans, available, (double) openLoans / (openLoans + available));
+    }
+}
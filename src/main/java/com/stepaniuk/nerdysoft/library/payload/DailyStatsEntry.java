@@ -0,0 +1,18 @@
+package com.stepaniuk.nerdysoft.library.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class DailyStatsEntry {
+    private final LocalDate day;
+    private final long borrowCount;
+    private final long returnCount;
+}
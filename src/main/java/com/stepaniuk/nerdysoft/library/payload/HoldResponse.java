@@ -0,0 +1,21 @@
+package com.stepaniuk.nerdysoft.library.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class HoldResponse {
+    private final Long id;
+    private final Long bookId;
+    private final Long memberId;
+    private final Instant createdAt;
+    private final Instant expiresAt;
+    private final long position;
+}
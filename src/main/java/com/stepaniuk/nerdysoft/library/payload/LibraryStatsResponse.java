@@ -0,0 +1,21 @@
+package com.stepaniuk.nerdysoft.library.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class LibraryStatsResponse {
+    private final YearMonth month;
+    private final List<BookStatsEntry> topBooks;
+    private final List<MemberStatsEntry> topMembers;
+    private final List<BookUtilizationEntry> utilization;
+    private final List<DailyStatsEntry> daily;
+}
@@ -0,0 +1,12 @@
+package com.stepaniuk.nerdysoft.library.payload;
+
+public enum LoanItemStatus {
+    BORROWED,
+    RETURNED,
+    SKIPPED,
+    DUPLICATE,
+    NOT_FOUND,
+    NOT_AVAILABLE,
+    ALREADY_BORROWED,
+    NOT_BORROWED
+}
@@ -0,0 +1,17 @@
+package com.stepaniuk.nerdysoft.library.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class MemberStatsEntry {
+    private final Long memberId;
+    private final String name;
+    private final String surname;
+    private final long borrowCount;
+}
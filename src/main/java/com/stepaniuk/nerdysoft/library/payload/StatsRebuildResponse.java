@@ -0,0 +1,16 @@
+package com.stepaniuk.nerdysoft.library.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class StatsRebuildResponse {
+    private final int chunks;
+    private final long loanChanges;
+    private final long durationMillis;
+}
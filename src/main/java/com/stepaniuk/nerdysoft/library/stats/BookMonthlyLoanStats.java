@@ -0,0 +1,78 @@
+package com.stepaniuk.nerdysoft.library.stats;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@RequiredArgsConstructor
+@Entity
+@IdClass(BookMonthlyLoanStats.Key.class)
+@Table(name = "book_monthly_loan_stats")
+public class BookMonthlyLoanStats {
+    @Id
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    // First day of the UTC month.
+    @Id
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "borrow_count", nullable = false)
+    private long borrowCount;
+
+    @Column(name = "return_count", nullable = false)
+    private long returnCount;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long bookId;
+        private LocalDate month;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        BookMonthlyLoanStats that = (BookMonthlyLoanStats) o;
+        return getBookId() != null && Objects.equals(getBookId(), that.getBookId())
+                && getMonth() != null && Objects.equals(getMonth(), that.getMonth());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" +
+                "bookId = " + bookId + ", " +
+                "month = " + month + ", " +
+                "borrowCount = " + borrowCount + ", " +
+                "returnCount = " + returnCount + ")";
+    }
+}
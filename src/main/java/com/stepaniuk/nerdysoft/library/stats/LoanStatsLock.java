@@ -0,0 +1,63 @@
+package com.stepaniuk.nerdysoft.library.stats;
+
+import com.stepaniuk.nerdysoft.library.exception.StatsRebuildInProgressException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Session-level advisory lock on a dedicated connection, so it outlives the transactions run while holding it.
+@Component
+class LoanStatsLock {
+    static final long KEY = 0x6c6f616e73746174L;
+
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+    private final DataSource dataSource;
+    private final Duration timeout;
+
+    LoanStatsLock(DataSource dataSource, @Value("${library.stats.rebuild.lock-timeout:30s}") Duration timeout) {
+        this.dataSource = dataSource;
+        this.timeout = timeout;
+    }
+
+    // Waits for in-flight counter updates to commit and keeps new ones out until the action returns.
+    <T> T exclusively(Supplier<T> action) {
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            lock(connection);
+            try {
+                return action.get();
+            } finally {
+                execute(connection, "SELECT pg_advisory_unlock(" + KEY + ")");
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not lock loan statistics", e);
+        }
+    }
+
+    private void lock(Connection connection) throws SQLException {
+        execute(connection, "SET lock_timeout = " + timeout.toMillis());
+        try {
+            execute(connection, "SELECT pg_advisory_lock(" + KEY + ")");
+        } catch (SQLException e) {
+            if (LOCK_NOT_AVAILABLE.equals(e.getSQLState())) {
+                throw new StatsRebuildInProgressException();
+            }
+            throw e;
+        } finally {
+            execute(connection, "RESET lock_timeout");
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.stepaniuk.nerdysoft.library.stats;
+
+import com.stepaniuk.nerdysoft.library.payload.BookStatsEntry;
+import com.stepaniuk.nerdysoft.library.payload.BookUtilizationEntry;
+import com.stepaniuk.nerdysoft.library.payload.DailyStatsEntry;
+import com.stepaniuk.nerdysoft.library.payload.MemberStatsEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LoanStatsRepository extends JpaRepository<DailyLoanStats, LocalDate> {
+    // Folds a "changes (book_id, member_id, occurred_at, borrows, returns)" CTE into every counter table.
+    // Keys are upserted in a fixed order so concurrent batches cannot deadlock on each other's rows.
+    String APPLY_CHANGES = """
+            books AS (
+                INSERT INTO book_loan_stats (book_id, borrow_count, return_count)
+                SELECT book_id, sum(borrows), sum(returns) FROM changes
+                GROUP BY book_id ORDER BY book_id
+                ON CONFLICT (book_id) DO UPDATE
+                    SET borrow_count = book_loan_stats.borrow_count + EXCLUDED.borrow_count,
+                        return_count = book_loan_stats.return_count + EXCLUDED.return_count
+            ),
+            book_months AS (
+                INSERT INTO book_monthly_loan_stats (book_id, month, borrow_count, return_count)
+                SELECT book_id, CAST(date_trunc('month', occurred_at AT TIME ZONE 'UTC') AS date), sum(borrows), sum(returns)
+                FROM changes
+                GROUP BY 1, 2 ORDER BY 1, 2
+                ON CONFLICT (book_id, month) DO UPDATE
+                    SET borrow_count = book_monthly_loan_stats.borrow_count + EXCLUDED.borrow_count,
+                        return_count = book_monthly_loan_stats.return_count + EXCLUDED.return_count
+            ),
+            member_months AS (
+                INSERT INTO member_monthly_loan_stats (member_id, month, borrow_count, return_count)
+                SELECT member_id, CAST(date_trunc('month', occurred_at AT TIME ZONE 'UTC') AS date), sum(borrows), sum(returns)
+                FROM changes
+                GROUP BY 1, 2 ORDER BY 1, 2
+                ON CONFLICT (member_id, month) DO UPDATE
+                    SET borrow_count = member_monthly_loan_stats.borrow_count + EXCLUDED.borrow_count,
+                        return_count = member_monthly_loan_stats.return_count + EXCLUDED.return_count
+            ),
+            days AS (
+                INSERT INTO daily_loan_stats (day, borrow_count, return_count)
+                SELECT CAST(occurred_at AT TIME ZONE 'UTC' AS date), sum(borrows), sum(returns)
+                FROM changes
+                GROUP BY 1 ORDER BY 1
+                ON CONFLICT (day) DO UPDATE
+                    SET borrow_count = daily_loan_stats.borrow_count + EXCLUDED.borrow_count,
+                        return_count = daily_loan_stats.return_count + EXCLUDED.return_count
+            )
+            SELECT count(*) FROM changes
+            """;
+
+    @Transactional
+    @Query(value = """
+            WITH changes AS (
+                SELECT book_id, member_id, occurred_at,
+                       CASE WHEN event_type = 'BOOK_BORROWED' THEN 1 ELSE 0 END AS borrows,
+                       CASE WHEN event_type = 'BOOK_RETURNED' THEN 1 ELSE 0 END AS returns
+                FROM loan_outbox
+                WHERE id IN (:ids)
+            ),
+            """ + APPLY_CHANGES, nativeQuery = true)
+    long applyOutboxEvents(Collection<Long> ids);
+
+    // Counts every borrow and return of the loans in [fromId, toId] except those whose event is still in the
+    // outbox: the dispatcher applies those once the rebuild is over.
+    @Transactional
+    @Query(value = """
+            WITH loans AS (
+                SELECT book_id, member_id, borrowed_date, returned_date FROM borrowed_books
+                WHERE id BETWEEN :fromId AND :toId
+                UNION ALL
+                SELECT book_id, member_id, borrowed_date, returned_date FROM borrowed_books_history
+                WHERE id BETWEEN :fromId AND :toId
+            ),
+            changes AS (
+                SELECT l.book_id, l.member_id, l.borrowed_date AS occurred_at, 1 AS borrows, 0 AS returns
+                FROM loans l
+                WHERE NOT EXISTS (SELECT 1 FROM loan_outbox o
+                                  WHERE o.event_type = 'BOOK_BORROWED' AND o.book_id = l.book_id
+                                    AND o.member_id = l.member_id AND o.occurred_at = l.borrowed_date)
+                UNION ALL
+                SELECT l.book_id, l.member_id, l.returned_date, 0, 1
+                FROM loans l
+                WHERE l.returned_date IS NOT NULL
+                  AND NOT EXISTS (SELECT 1 FROM loan_outbox o
+                                  WHERE o.event_type = 'BOOK_RETURNED' AND o.book_id = l.book_id
+                                    AND o.member_id = l.member_id AND o.occurred_at = l.returned_date)
+            ),
+            """ + APPLY_CHANGES, nativeQuery = true)
+    long rebuildChunk(long fromId, long toId);
+
+    @Query(value = """
+            SELECT LEAST((SELECT min(id) FROM borrowed_books), (SELECT min(id) FROM borrowed_books_history))
+            """, nativeQuery = true)
+    Long findMinLoanId();
+
+    @Query(value = """
+            SELECT GREATEST((SELECT max(id) FROM borrowed_books), (SELECT max(id) FROM borrowed_books_history))
+            """, nativeQuery = true)
+    Long findMaxLoanId();
+
+    // A DELETE rather than TRUNCATE, so readers keep seeing the old rows until the rebuild commits.
+    @Transactional
+    @Modifying
+    @Query(value = """
+            WITH books AS (DELETE FROM book_loan_stats),
+                 book_months AS (DELETE FROM book_monthly_loan_stats),
+                 member_months AS (DELETE FROM member_monthly_loan_stats)
+            DELETE FROM daily_loan_stats
+            """, nativeQuery = true)
+    void deleteAllStats();
+
+    // Held by every batch that updates the counters; a rebuild takes the same key exclusively.
+    @Query(value = "SELECT pg_try_advisory_xact_lock_shared(:key)", nativeQuery = true)
+    boolean tryLockShared(long key);
+
+    @Query("""
+            select new com.stepaniuk.nerdysoft.library.payload.BookStatsEntry(s.bookId, b.title, b.author, s.borrowCount)
+            from BookMonthlyLoanStats s join Book b on b.id = s.bookId
+            where s.month = :month
+            order by s.borrowCount desc, s.bookId
+            """)
+    List<BookStatsEntry> findTopBooks(LocalDate month, Limit limit);
+
+    @Query("""
+            select new com.stepaniuk.nerdysoft.library.payload.MemberStatsEntry(s.memberId, m.name, m.surname, s.borrowCount)
+            from MemberMonthlyLoanStats s join Member m on m.id = s.memberId
+            where s.month = :month
+            order by s.borrowCount desc, s.memberId
+            """)
+    List<MemberStatsEntry> findTopMembers(LocalDate month, Limit limit);
+
+    @Query("""
+            select new com.stepaniuk.nerdysoft.library.payload.BookUtilizationEntry(
+                s.bookId, b.title, b.author, s.borrowCount - s.returnCount, b.amount)
+            from BookLoanStats s join Book b on b.id = s.bookId
+            where s.borrowCount > s.returnCount
+            order by (s.borrowCount - s.returnCount) * 1.0 / (s.borrowCount - s.returnCount + b.amount) desc, s.bookId
+            """)
+    List<BookUtilizationEntry> findMostUtilized(Limit limit);
+
+    @Query("""
+            select new com.stepaniuk.nerdysoft.library.payload.DailyStatsEntry(d.day, d.borrowCount, d.returnCount)
+            from DailyLoanStats d
+            where d.day between :from and :to
+            order by d.day
+            """)
+    List<DailyStatsEntry> findDaily(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,76 @@
+package com.stepaniuk.nerdysoft.library.stats;
+
+import com.stepaniuk.nerdysoft.library.payload.LibraryStatsResponse;
+import com.stepaniuk.nerdysoft.library.payload.StatsRebuildResponse;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+
+@Slf4j
+@Service
+public class LoanStatsService {
+    static final int MAX_LIMIT = 100;
+
+    private final LoanStatsRepository loanStatsRepository;
+    private final LoanStatsLock loanStatsLock;
+    private final TransactionTemplate transactionTemplate;
+    private final long chunkSize;
+
+    public LoanStatsService(LoanStatsRepository loanStatsRepository,
+                            LoanStatsLock loanStatsLock,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${library.stats.rebuild.chunk-size:100000}") long chunkSize) {
+        this.loanStatsRepository = loanStatsRepository;
+        this.loanStatsLock = loanStatsLock;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = "library.stats.read", histogram = true)
+    public LibraryStatsResponse getStats(YearMonth month, int limit) {
+        var top = Limit.of(Math.max(1, Math.min(limit, MAX_LIMIT)));
+        var firstDay = month.atDay(1);
+
+        return new LibraryStatsResponse(month,
+                loanStatsRepository.findTopBooks(firstDay, top),
+                loanStatsRepository.findTopMembers(firstDay, top),
+                loanStatsRepository.findMostUtilized(top),
+                loanStatsRepository.findDaily(firstDay, month.atEndOfMonth()));
+    }
+
+    // Recomputes every counter from the loan tables in one transaction, so readers see the old counters until the
+    // new ones commit and a failed chunk leaves them untouched. Dispatching waits for the rebuild, and loan changes
+    // still in the outbox are left to it, so nothing is counted twice.
+    @Timed(value = "library.stats.rebuild", histogram = true)
+    public StatsRebuildResponse rebuild() {
+        return loanStatsLock.exclusively(() -> {
+            var started = System.nanoTime();
+            var response = transactionTemplate.execute(status -> {
+                loanStatsRepository.deleteAllStats();
+
+                var minId = loanStatsRepository.findMinLoanId();
+                var maxId = loanStatsRepository.findMaxLoanId();
+                var chunks = 0;
+                long changes = 0;
+                if (minId != null) {
+                    for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+                        changes += loanStatsRepository.rebuildChunk(fromId, Math.min(fromId + chunkSize - 1, maxId));
+                        chunks++;
+                    }
+                }
+                return new StatsRebuildResponse(chunks, changes, (System.nanoTime() - started) / 1_000_000);
+            });
+
+            log.info("Rebuilt loan statistics from {} loan changes in {} chunks", response.getLoanChanges(),
+                    response.getChunks());
+            return response;
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.stepaniuk.nerdysoft.library.stats;
+
+import com.stepaniuk.nerdysoft.library.exception.StatsRebuildInProgressException;
+import com.stepaniuk.nerdysoft.library.outbox.LoanEvent;
+import com.stepaniuk.nerdysoft.library.outbox.LoanEventSink;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Runs in the dispatcher's transaction, so a batch lands in the counters exactly once and each counter row is
+// written once per batch instead of once per loan. Ordered first so a rejected batch reaches no other sink.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class LoanStatsSink implements LoanEventSink {
+    private final LoanStatsRepository loanStatsRepository;
+
+    @Override
+    public void deliver(List<LoanEvent> events) {
+        if (!loanStatsRepository.tryLockShared(LoanStatsLock.KEY)) {
+            throw new StatsRebuildInProgressException();
+        }
+        loanStatsRepository.applyOutboxEvents(events.stream().map(LoanEvent::getId).toList());
+    }
+}
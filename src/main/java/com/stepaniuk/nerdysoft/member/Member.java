@@ -1,10 +1,14 @@
 package com.stepaniuk.nerdysoft.member;
 
+import com.stepaniuk.nerdysoft.cache.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.proxy.HibernateProxy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,8 +21,12 @@ import java.util.Objects;
 @AllArgsConstructor
 @RequiredArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.MEMBERS_REGION)
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "members")
+@Table(name = "members", indexes = {
+        @Index(name = "members_surname_id_idx", columnList = "surname, id")
+})
 public class Member {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "members_id_gen")
@@ -36,6 +44,11 @@ public class Member {
     @CreatedDate
     private Instant membershipDate;
 
+    // Only the guarded native updates in MemberRepository change the counter; saving a member never writes it back.
+    @Column(name = "active_loans", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private Integer activeLoans = 0;
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
@@ -57,6 +70,7 @@ public class Member {
         return getClass().getSimpleName() + "(" +
                 "id = " + id + ", " +
                 "name = " + name + ", " +
-                "membershipDate = " + membershipDate + ")";
+                "membershipDate = " + membershipDate + ", " +
+                "activeLoans = " + activeLoans + ")";
     }
 }
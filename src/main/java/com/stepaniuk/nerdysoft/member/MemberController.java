@@ -1,8 +1,11 @@
 package com.stepaniuk.nerdysoft.member;
 
+import com.stepaniuk.nerdysoft.member.payload.LoanStatusFilter;
 import com.stepaniuk.nerdysoft.member.payload.MemberCreateRequest;
+import com.stepaniuk.nerdysoft.member.payload.MemberLoanResponse;
 import com.stepaniuk.nerdysoft.member.payload.MemberResponse;
 import com.stepaniuk.nerdysoft.member.payload.MemberUpdateRequest;
+import com.stepaniuk.nerdysoft.shared.pagination.CursorPage;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -29,11 +32,25 @@ public class MemberController {
         return ResponseEntity.ok(memberService.getAllMembers(pageable));
     }
 
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPage<MemberResponse>> getMembersAfter(@RequestParam String after,
+                                                                      @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(memberService.getMembersAfter(after, size));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<MemberResponse> getMember(@PathVariable Long id){
         return ResponseEntity.ok(memberService.getMember(id));
     }
 
+    @GetMapping("/{id}/loans")
+    public ResponseEntity<CursorPage<MemberLoanResponse>> getMemberLoans(@PathVariable Long id,
+                                                                         @RequestParam(defaultValue = "ALL") LoanStatusFilter status,
+                                                                         @RequestParam(required = false) String after,
+                                                                         @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(memberService.getMemberLoans(id, status, after, size));
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<MemberResponse> updateMember(@PathVariable Long id, @RequestBody @Valid MemberUpdateRequest memberRequest){
         return ResponseEntity.ok(memberService.updateMember(id, memberRequest));
@@ -1,21 +1,33 @@
 package com.stepaniuk.nerdysoft.member;
 
+import com.stepaniuk.nerdysoft.member.payload.MemberListRow;
 import com.stepaniuk.nerdysoft.member.payload.MemberResponse;
+import com.stepaniuk.nerdysoft.shared.hateoas.LibraryLinkRelations;
+import com.stepaniuk.nerdysoft.shared.hateoas.LinkTemplate;
 import org.mapstruct.*;
-import org.springframework.hateoas.Link;
+import org.springframework.hateoas.IanaLinkRelations;
 
 @Mapper(componentModel = "spring", injectionStrategy = InjectionStrategy.CONSTRUCTOR)
 public interface MemberMapper {
+    LinkTemplate LINKS = new LinkTemplate("/members/{id}",
+            IanaLinkRelations.SELF, LibraryLinkRelations.UPDATE, LibraryLinkRelations.DELETE);
+    LinkTemplate LOANS_LINK = new LinkTemplate("/members/{id}/loans", LibraryLinkRelations.LOANS);
+
     @BeanMapping(qualifiedByName = "addLinks")
     MemberResponse toResponse(Member member);
 
     @AfterMapping
     @Named("addLinks")
     default MemberResponse addLinks(Member member, @MappingTarget MemberResponse response) {
-        response.add(Link.of("/members/" + member.getId()).withSelfRel());
-        response.add(Link.of("/members/" + member.getId()).withRel("update"));
-        response.add(Link.of("/members/" + member.getId()).withRel("delete"));
+        return LOANS_LINK.addLinks(LINKS.addLinks(response, member.getId()), member.getId());
+    }
 
-        return response;
+    @BeanMapping(qualifiedByName = "addRowLinks")
+    MemberResponse toResponse(MemberListRow row);
+
+    @AfterMapping
+    @Named("addRowLinks")
+    default MemberResponse addLinks(MemberListRow row, @MappingTarget MemberResponse response) {
+        return LOANS_LINK.addLinks(LINKS.addLinks(response, row.getId()), row.getId());
     }
 }
@@ -1,8 +1,89 @@
 package com.stepaniuk.nerdysoft.member;
 
+import com.stepaniuk.nerdysoft.member.payload.MemberListRow;
+import com.stepaniuk.nerdysoft.cache.SecondLevelCacheConfig;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Repository
 public interface MemberRepository extends JpaRepository<Member, Long> {
+
+    @Query(value = """
+            select new com.stepaniuk.nerdysoft.member.payload.MemberListRow(m.id, m.name, m.surname, m.membershipDate)
+            from Member m
+            """, countQuery = "select count(m) from Member m")
+    Page<MemberListRow> findListRows(Pageable pageable);
+
+    List<Member> findByOrderBySurnameAscIdAsc(Limit limit);
+
+    @Query(value = """
+            SELECT * FROM members
+            WHERE (surname, id) > (:surname, :id)
+            ORDER BY surname, id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Member> findPageAfter(String surname, Long id, int limit);
+
+    // Counter updates leave the members region alone; callers evict the ids they changed.
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SecondLevelCacheConfig.EVICTED_BY_ID_SPACE))
+    @Query(value = "UPDATE members SET active_loans = active_loans + 1 WHERE id = :id AND active_loans < :limit",
+            nativeQuery = true)
+    int incrementActiveLoans(Long id, int limit);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SecondLevelCacheConfig.EVICTED_BY_ID_SPACE))
+    @Query(value = """
+            UPDATE members SET active_loans = active_loans + :count
+            WHERE id = :id AND active_loans + :count <= :limit
+            """, nativeQuery = true)
+    int incrementActiveLoansBy(Long id, int count, int limit);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SecondLevelCacheConfig.EVICTED_BY_ID_SPACE))
+    @Query(value = "UPDATE members SET active_loans = active_loans - 1 WHERE id = :id AND active_loans > 0",
+            nativeQuery = true)
+    int decrementActiveLoans(Long id);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SecondLevelCacheConfig.EVICTED_BY_ID_SPACE))
+    @Query(value = "UPDATE members SET active_loans = active_loans - :count WHERE id = :id AND active_loans >= :count",
+            nativeQuery = true)
+    int decrementActiveLoansBy(Long id, int count);
+
+    // Waits for borrows and returns that already changed a counter and blocks new ones until the caller commits.
+    @Query(value = "SELECT count(*) FROM (SELECT id FROM members ORDER BY id FOR UPDATE) locked", nativeQuery = true)
+    long lockAll();
+
+    // Must run after lockAll in the same transaction: a later statement takes a fresh snapshot, so the count
+    // includes every loan committed while the locks were being taken.
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "members"))
+    @Query(value = """
+            UPDATE members m
+            SET active_loans = c.open_loans
+            FROM (SELECT mm.id, count(b.id) AS open_loans
+                  FROM members mm
+                           LEFT JOIN borrowed_books b ON b.member_id = mm.id AND b.returned_date IS NULL
+                  GROUP BY mm.id) c
+            WHERE c.id = m.id
+              AND m.active_loans <> c.open_loans
+            """, nativeQuery = true)
+    int reconcileActiveLoans();
 }
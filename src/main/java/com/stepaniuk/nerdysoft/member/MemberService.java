@@ -3,15 +3,28 @@ package com.stepaniuk.nerdysoft.member;
 import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
 import com.stepaniuk.nerdysoft.member.exception.MemberHasBorrowedBooksException;
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import com.stepaniuk.nerdysoft.member.payload.LoanStatusFilter;
 import com.stepaniuk.nerdysoft.member.payload.MemberCreateRequest;
+import com.stepaniuk.nerdysoft.member.payload.MemberLoanResponse;
 import com.stepaniuk.nerdysoft.member.payload.MemberResponse;
 import com.stepaniuk.nerdysoft.member.payload.MemberUpdateRequest;
+import com.stepaniuk.nerdysoft.shared.exception.InvalidCursorException;
+import com.stepaniuk.nerdysoft.shared.pagination.CursorPage;
+import com.stepaniuk.nerdysoft.shared.pagination.KeysetCursor;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.Function;
+
 @Service
 @RequiredArgsConstructor
 public class MemberService {
@@ -28,17 +41,61 @@ public class MemberService {
         return memberMapper.toResponse(savedMember);
     }
 
+    @Transactional(readOnly = true)
     public MemberResponse getMember(Long id) {
         var member = memberRepository.findById(id)
                 .orElseThrow(() -> new MemberNotFoundByIdException(id));
         return memberMapper.toResponse(member);
     }
 
+    @Transactional(readOnly = true)
+    @Timed(value = "library.members.read", extraTags = {"pagination", "offset"}, histogram = true)
     public Page<MemberResponse> getAllMembers(Pageable pageable){
-        return memberRepository.findAll(pageable)
+        return memberRepository.findListRows(pageable)
                 .map(memberMapper::toResponse);
     }
 
+    @Transactional(readOnly = true)
+    @Timed(value = "library.members.read", extraTags = {"pagination", "keyset"}, histogram = true)
+    public CursorPage<MemberResponse> getMembersAfter(String after, int size) {
+        var pageSize = CursorPage.sizeOf(size);
+        List<Member> members;
+        if (after == null || after.isEmpty()) {
+            members = memberRepository.findByOrderBySurnameAscIdAsc(Limit.of(pageSize + 1));
+        } else {
+            var cursor = KeysetCursor.decode(after);
+            members = memberRepository.findPageAfter(cursor.key(), cursor.id(), pageSize + 1);
+        }
+
+        return CursorPage.of(members, pageSize,
+                member -> new KeysetCursor(member.getSurname(), member.getId()),
+                memberMapper::toResponse);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<MemberLoanResponse> getMemberLoans(Long memberId, LoanStatusFilter status, String after, int size) {
+        var pageSize = CursorPage.sizeOf(size);
+        var limit = Limit.of(pageSize + 1);
+        List<MemberLoanResponse> loans;
+        if (after == null || after.isEmpty()) {
+            loans = borrowedBookRepository.findMemberLoans(memberId,
+                    status.includesOpen(), status.includesReturned(), limit);
+        } else {
+            var cursor = KeysetCursor.decode(after);
+            loans = borrowedBookRepository.findMemberLoansBefore(memberId,
+                    status.includesOpen(), status.includesReturned(), parseBorrowedDate(cursor, after), cursor.id(), limit);
+        }
+        // Only an empty page needs a second statement to tell an unknown member from one without loans.
+        if (loans.isEmpty() && !memberRepository.existsById(memberId)) {
+            throw new MemberNotFoundByIdException(memberId);
+        }
+
+        return CursorPage.of(loans, pageSize,
+                loan -> new KeysetCursor(loan.getBorrowedDate().toString(), loan.getId()),
+                Function.identity());
+    }
+
+    @Transactional
     public MemberResponse updateMember(Long id, MemberUpdateRequest memberRequest) {
         var memberToUpdate = memberRepository.findById(id)
                 .orElseThrow(() -> new MemberNotFoundByIdException(id));
@@ -56,7 +113,7 @@ public class MemberService {
     }
 
     public void deleteMember(Long id) {
-        if (!borrowedBookRepository.findByMemberIdAndReturnedDateIsNull(id).isEmpty()) {
+        if (borrowedBookRepository.existsByMemberIdAndReturnedDateIsNull(id)) {
             throw new MemberHasBorrowedBooksException(id);
         }
 
@@ -65,4 +122,12 @@ public class MemberService {
 
         memberRepository.delete(memberToDelete);
     }
+
+    private static Instant parseBorrowedDate(KeysetCursor cursor, String after) {
+        try {
+            return Instant.parse(cursor.key());
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException(after);
+        }
+    }
 }
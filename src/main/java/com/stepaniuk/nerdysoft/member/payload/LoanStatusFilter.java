@@ -0,0 +1,15 @@
+package com.stepaniuk.nerdysoft.member.payload;
+
+public enum LoanStatusFilter {
+    OPEN,
+    RETURNED,
+    ALL;
+
+    public boolean includesOpen() {
+        return this != RETURNED;
+    }
+
+    public boolean includesReturned() {
+        return this != OPEN;
+    }
+}
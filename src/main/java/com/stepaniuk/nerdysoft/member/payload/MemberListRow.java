@@ -0,0 +1,19 @@
+package com.stepaniuk.nerdysoft.member.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class MemberListRow {
+    private final Long id;
+    private final String name;
+    private final String surname;
+    private final Instant membershipDate;
+}
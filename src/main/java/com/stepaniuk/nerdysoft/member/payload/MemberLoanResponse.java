@@ -0,0 +1,21 @@
+package com.stepaniuk.nerdysoft.member.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class MemberLoanResponse {
+    private final Long id;
+    private final Long bookId;
+    private final String title;
+    private final String author;
+    private final Instant borrowedDate;
+    private final Instant returnedDate;
+}
@@ -0,0 +1,47 @@
+package com.stepaniuk.nerdysoft.metrics;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+@Configuration
+public class LibraryMetricsConfig {
+    public static final String AVAILABLE_BOOKS_METRIC = "library.books.available";
+    public static final String OPEN_LOANS_METRIC = "library.loans.open";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Both gauges scan a whole table, so scrapes within the ttl reuse the last count.
+    @Bean
+    public MeterBinder libraryInventoryMetrics(BookRepository bookRepository,
+                                               BorrowedBookRepository borrowedBookRepository,
+                                               @Value("${library.metrics.inventory.ttl:30s}") Duration ttl) {
+        var counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .<String, Long>build();
+        Supplier<Number> availableBooks = () -> counts.get(AVAILABLE_BOOKS_METRIC, metric -> bookRepository.sumAmounts());
+        Supplier<Number> openLoans = () -> counts.get(OPEN_LOANS_METRIC,
+                metric -> borrowedBookRepository.countByReturnedDateIsNull());
+        return registry -> {
+            Gauge.builder(AVAILABLE_BOOKS_METRIC, availableBooks)
+                    .description("Copies of all books that can currently be borrowed")
+                    .register(registry);
+            Gauge.builder(OPEN_LOANS_METRIC, openLoans)
+                    .description("Loans that have not been returned yet")
+                    .register(registry);
+        };
+    }
+}
@@ -1,11 +1,24 @@
 package com.stepaniuk.nerdysoft.shared;
 
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyBorrowedException;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyExistsException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotAvailableException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
 import com.stepaniuk.nerdysoft.book.exception.BorrowedBookCannotBeDeletedException;
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotencyKeyReusedException;
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotentRequestInProgressException;
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotentRequestTooLargeException;
+import com.stepaniuk.nerdysoft.idempotency.exception.InvalidIdempotencyKeyException;
+import com.stepaniuk.nerdysoft.library.exception.BookAlreadyOnHoldException;
+import com.stepaniuk.nerdysoft.library.exception.BookHoldNotNeededException;
+import com.stepaniuk.nerdysoft.library.exception.LoanBatchFailedException;
+import com.stepaniuk.nerdysoft.library.exception.StatsRebuildInProgressException;
 import com.stepaniuk.nerdysoft.member.exception.MemberCannotBorrowMoreBooksException;
 import com.stepaniuk.nerdysoft.member.exception.MemberHasBorrowedBooksException;
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import com.stepaniuk.nerdysoft.shared.exception.InvalidCursorException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -14,7 +27,46 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import java.net.URI;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 public class GeneralControllerExceptionHandler {
+    static final String DOMAIN_ERRORS_METRIC = "library.domain.errors";
+
+    private final MeterRegistry meterRegistry;
+
+    @ExceptionHandler(value = {BookAlreadyBorrowedException.class})
+    public ProblemDetail handleBookAlreadyBorrowedException(BookAlreadyBorrowedException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Book with id " + e.getBookId() + " is already borrowed by member with id " + e.getMemberId());
+        problemDetail.setTitle("Book already borrowed");
+        problemDetail.setInstance(URI.create("/books/" + e.getBookId()));
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {BookAlreadyOnHoldException.class})
+    public ProblemDetail handleBookAlreadyOnHoldException(BookAlreadyOnHoldException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Book with id " + e.getBookId() + " is already on hold for member with id " + e.getMemberId());
+        problemDetail.setTitle("Book already on hold");
+        problemDetail.setInstance(URI.create("/books/" + e.getBookId()));
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {BookHoldNotNeededException.class})
+    public ProblemDetail handleBookHoldNotNeededException(BookHoldNotNeededException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Book with id " + e.getBookId() + " is available to borrow");
+        problemDetail.setTitle("Book available");
+        problemDetail.setInstance(URI.create("/books/" + e.getBookId()));
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {StatsRebuildInProgressException.class})
+    public ProblemDetail handleStatsRebuildInProgressException(StatsRebuildInProgressException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "Loan statistics are being rebuilt");
+        problemDetail.setTitle("Stats rebuild in progress");
+        problemDetail.setInstance(URI.create("/library/stats"));
+        return counted(e, problemDetail);
+    }
 
     @ExceptionHandler(value = {BookNotAvailableException.class})
     public ProblemDetail handleBookNotAvailableException(BookNotAvailableException e) {
@@ -22,7 +74,7 @@ public class GeneralControllerExceptionHandler {
                 "Book with id " + e.getBookId() + " is not available");
         problemDetail.setTitle("Book not available");
         problemDetail.setInstance(URI.create("/books/" + e.getBookId()));
-        return problemDetail;
+        return counted(e, problemDetail);
     }
 
     @ExceptionHandler(value = {BookNotFoundByIdException.class})
@@ -31,7 +83,16 @@ public class GeneralControllerExceptionHandler {
                 "Book with id " + e.getId() + " not found");
         problemDetail.setTitle("Book not found");
         problemDetail.setInstance(URI.create("/books/" + e.getId()));
-        return problemDetail;
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {BookAlreadyExistsException.class})
+    public ProblemDetail handleBookAlreadyExistsException(BookAlreadyExistsException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Book with title " + e.getTitle() + " and author " + e.getAuthor() + " already exists");
+        problemDetail.setTitle("Book already exists");
+        problemDetail.setInstance(URI.create("/books/" + e.getId()));
+        return counted(e, problemDetail);
     }
 
     @ExceptionHandler(value = {BorrowedBookCannotBeDeletedException.class})
@@ -40,7 +101,17 @@ public class GeneralControllerExceptionHandler {
                 "Borrowed book with id " + e.getId() + " cannot be deleted");
         problemDetail.setTitle("Borrowed book cannot be deleted");
         problemDetail.setInstance(URI.create("/books/" + e.getId()));
-        return problemDetail;
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {LoanBatchFailedException.class})
+    public ProblemDetail handleLoanBatchFailedException(LoanBatchFailedException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Loan batch for member with id " + e.getMemberId() + " failed");
+        problemDetail.setTitle("Loan batch failed");
+        problemDetail.setInstance(URI.create("/members/" + e.getMemberId()));
+        problemDetail.setProperty("items", e.getItems());
+        return counted(e, problemDetail);
     }
 
     @ExceptionHandler(value = {MemberCannotBorrowMoreBooksException.class})
@@ -49,7 +120,7 @@ public class GeneralControllerExceptionHandler {
                 "Member with id " + e.getMemberId() + " cannot borrow more books");
         problemDetail.setTitle("Member cannot borrow more books");
         problemDetail.setInstance(URI.create("/members/" + e.getMemberId()));
-        return problemDetail;
+        return counted(e, problemDetail);
     }
 
     @ExceptionHandler(value = {MemberHasBorrowedBooksException.class})
@@ -58,7 +129,7 @@ public class GeneralControllerExceptionHandler {
                 "Member with id " + e.getId() + " has borrowed books");
         problemDetail.setTitle("Member has borrowed books");
         problemDetail.setInstance(URI.create("/members/" + e.getId()));
-        return problemDetail;
+        return counted(e, problemDetail);
     }
 
     @ExceptionHandler(value = {MemberNotFoundByIdException.class})
@@ -67,6 +138,53 @@ public class GeneralControllerExceptionHandler {
                 "Member with id " + e.getId() + " not found");
         problemDetail.setTitle("Member not found");
         problemDetail.setInstance(URI.create("/members/" + e.getId()));
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {InvalidCursorException.class})
+    public ProblemDetail handleInvalidCursorException(InvalidCursorException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                "Cursor " + e.getCursor() + " is not valid");
+        problemDetail.setTitle("Invalid cursor");
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {InvalidIdempotencyKeyException.class})
+    public ProblemDetail handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                "Idempotency key must be between 1 and 255 characters");
+        problemDetail.setTitle("Invalid idempotency key");
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {IdempotencyKeyReusedException.class})
+    public ProblemDetail handleIdempotencyKeyReusedException(IdempotencyKeyReusedException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency key " + e.getKey() + " was already used for another request");
+        problemDetail.setTitle("Idempotency key reused");
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {IdempotentRequestInProgressException.class})
+    public ProblemDetail handleIdempotentRequestInProgressException(IdempotentRequestInProgressException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Request with idempotency key " + e.getKey() + " is still in progress");
+        problemDetail.setTitle("Request in progress");
+        return counted(e, problemDetail);
+    }
+
+    @ExceptionHandler(value = {IdempotentRequestTooLargeException.class})
+    public ProblemDetail handleIdempotentRequestTooLargeException(IdempotentRequestTooLargeException e) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.PAYLOAD_TOO_LARGE,
+                "Requests with an idempotency key must not have a body larger than " + e.getMaxBodySize() + " bytes");
+        problemDetail.setTitle("Request too large");
+        return counted(e, problemDetail);
+    }
+
+    private ProblemDetail counted(Throwable e, ProblemDetail problemDetail) {
+        meterRegistry.counter(DOMAIN_ERRORS_METRIC,
+                "exception", e.getClass().getSimpleName(),
+                "outcome", HttpStatus.valueOf(problemDetail.getStatus()).name()).increment();
         return problemDetail;
     }
 }
@@ -0,0 +1,13 @@
+package com.stepaniuk.nerdysoft.shared.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidCursorException extends RuntimeException {
+    private final String cursor;
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+        this.cursor = cursor;
+    }
+}
@@ -0,0 +1,30 @@
+package com.stepaniuk.nerdysoft.shared.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+@Component
+@RequiredArgsConstructor
+public class NdjsonWriter {
+    private final ObjectMapper objectMapper;
+
+    public long write(Stream<?> rows, OutputStream out) throws IOException {
+        var written = 0L;
+        try (var generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            for (var iterator = rows.iterator(); iterator.hasNext(); ) {
+                generator.writePOJO(iterator.next());
+                generator.writeRaw('\n');
+                written++;
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,12 @@
+package com.stepaniuk.nerdysoft.shared.hateoas;
+
+import org.springframework.hateoas.LinkRelation;
+
+public final class LibraryLinkRelations {
+    public static final LinkRelation UPDATE = LinkRelation.of("update");
+    public static final LinkRelation DELETE = LinkRelation.of("delete");
+    public static final LinkRelation LOANS = LinkRelation.of("loans");
+
+    private LibraryLinkRelations() {
+    }
+}
@@ -0,0 +1,35 @@
+package com.stepaniuk.nerdysoft.shared.hateoas;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.RepresentationModel;
+
+public final class LinkTemplate {
+    private static final String ID_VARIABLE = "{id}";
+
+    private final String prefix;
+    private final String suffix;
+    private final LinkRelation[] relations;
+
+    public LinkTemplate(String template, LinkRelation... relations) {
+        var idIndex = template.indexOf(ID_VARIABLE);
+        if (idIndex < 0) {
+            throw new IllegalArgumentException("Link template " + template + " has no " + ID_VARIABLE + " variable");
+        }
+        this.prefix = template.substring(0, idIndex);
+        this.suffix = template.substring(idIndex + ID_VARIABLE.length());
+        this.relations = relations.clone();
+    }
+
+    public String expand(Object id) {
+        return prefix + id + suffix;
+    }
+
+    public <T extends RepresentationModel<?>> T addLinks(T model, Object id) {
+        var href = expand(id);
+        for (var relation : relations) {
+            model.add(Link.of(href, relation));
+        }
+        return model;
+    }
+}
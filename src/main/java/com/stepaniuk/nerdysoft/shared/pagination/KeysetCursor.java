@@ -0,0 +1,29 @@
+package com.stepaniuk.nerdysoft.shared.pagination;
+
+import com.stepaniuk.nerdysoft.shared.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public record KeysetCursor(String key, Long id) {
+
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        var raw = id + String.valueOf(SEPARATOR) + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var separatorIndex = raw.indexOf(SEPARATOR);
+            if (separatorIndex <= 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new KeysetCursor(raw.substring(separatorIndex + 1), Long.valueOf(raw.substring(0, separatorIndex)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+-- Outbox ids were pooled 50 at a time per instance, so id order was not event order across instances.
+-- Ids are now drawn one at a time and the dispatcher reads events in (occurred_at, id) order.
+
+ALTER SEQUENCE IF EXISTS public.loan_outbox_id_seq
+    INCREMENT BY 1;
+
+CREATE INDEX IF NOT EXISTS loan_outbox_occurred_at_id_idx
+    ON public.loan_outbox USING btree
+    (occurred_at ASC NULLS LAST, id ASC NULLS LAST)
+    TABLESPACE pg_default;
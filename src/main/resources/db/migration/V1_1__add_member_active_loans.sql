@@ -0,0 +1,12 @@
+-- Open loans per member, kept up to date by borrow and return so the borrow limit is a single guarded UPDATE.
+
+ALTER TABLE public.members
+    ADD COLUMN IF NOT EXISTS active_loans integer NOT NULL DEFAULT 0;
+
+UPDATE public.members m
+SET active_loans = open.loans
+FROM (SELECT member_id, count(*) AS loans
+      FROM public.borrowed_books
+      WHERE returned_date IS NULL
+      GROUP BY member_id) open
+WHERE open.member_id = m.id;
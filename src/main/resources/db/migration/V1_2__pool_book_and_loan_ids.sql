@@ -0,0 +1,17 @@
+-- Books and loans are inserted in batches with ids pooled 50 at a time (allocationSize = 50).
+
+ALTER SEQUENCE IF EXISTS public.books_id_seq
+    INCREMENT BY 50;
+
+ALTER SEQUENCE IF EXISTS public.borrowed_books_id_seq
+    INCREMENT BY 50;
+
+-- The original scripts drew book ids from members_id_seq. Move books onto books_id_seq, with the first
+-- pooled block starting after every existing id.
+
+ALTER TABLE public.books
+    ALTER COLUMN id SET DEFAULT nextval('books_id_seq'::regclass);
+
+SELECT setval('public.books_id_seq', MAX(id) + 50, false)
+FROM public.books
+HAVING MAX(id) IS NOT NULL;
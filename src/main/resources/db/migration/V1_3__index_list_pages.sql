@@ -0,0 +1,9 @@
+-- INDEX: keyset pages of GET /members ordered by surname
+
+CREATE INDEX IF NOT EXISTS members_surname_id_idx
+    ON public.members USING btree (surname, id);
+
+-- INDEX: keyset pages of GET /books ordered by title
+
+CREATE INDEX IF NOT EXISTS books_title_id_idx
+    ON public.books USING btree (title, id);
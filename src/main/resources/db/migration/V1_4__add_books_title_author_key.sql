@@ -0,0 +1,29 @@
+-- Merge books that were created twice with the same title and author into the oldest one before making the pair unique.
+
+CREATE TEMPORARY TABLE duplicate_books ON COMMIT DROP AS
+SELECT id, keep_id, total
+FROM (SELECT id,
+             min(id) OVER (PARTITION BY title, author) AS keep_id,
+             sum(amount) OVER (PARTITION BY title, author) AS total
+      FROM public.books) b
+WHERE b.keep_id IN (SELECT min(id) FROM public.books GROUP BY title, author HAVING count(*) > 1);
+
+UPDATE public.borrowed_books bb
+SET book_id = d.keep_id
+FROM duplicate_books d
+WHERE bb.book_id = d.id
+  AND d.id <> d.keep_id;
+
+UPDATE public.books b
+SET amount = d.total
+FROM duplicate_books d
+WHERE b.id = d.keep_id
+  AND d.id = d.keep_id;
+
+DELETE FROM public.books b
+USING duplicate_books d
+WHERE b.id = d.id
+  AND d.id <> d.keep_id;
+
+ALTER TABLE public.books
+    ADD CONSTRAINT books_title_author_key UNIQUE (title, author);
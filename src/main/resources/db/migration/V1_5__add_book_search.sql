@@ -0,0 +1,16 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Ranked full-text search over title (weight A) and author (weight B)
+
+ALTER TABLE public.books
+    ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', title), 'A') ||
+        setweight(to_tsvector('simple', author), 'B')) STORED;
+
+CREATE INDEX IF NOT EXISTS books_search_vector_idx
+    ON public.books USING gin (search_vector);
+
+-- INDEX: fuzzy matches on title and author
+
+CREATE INDEX IF NOT EXISTS books_title_author_trgm_idx
+    ON public.books USING gin ((title || ' ' || author) gin_trgm_ops);
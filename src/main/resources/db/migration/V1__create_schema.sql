@@ -1,5 +1,31 @@
+-- SEQUENCE: public.members_id_seq
+
+CREATE SEQUENCE IF NOT EXISTS public.members_id_seq
+    INCREMENT 1
+    START 1
+    MINVALUE 1
+    MAXVALUE 9223372036854775807
+    CACHE 1;
+
+-- SEQUENCE: public.books_id_seq
+
+CREATE SEQUENCE IF NOT EXISTS public.books_id_seq
+    INCREMENT 1
+    START 1
+    MINVALUE 1
+    MAXVALUE 9223372036854775807
+    CACHE 1;
+
+-- SEQUENCE: public.borrowed_books_id_seq
+
+CREATE SEQUENCE IF NOT EXISTS public.borrowed_books_id_seq
+    INCREMENT 1
+    START 1
+    MINVALUE 1
+    MAXVALUE 9223372036854775807
+    CACHE 1;
+
 -- TABLE: public.members
-DROP TABLE IF EXISTS public.members;
 
 CREATE TABLE IF NOT EXISTS public.members
 (
@@ -15,7 +41,6 @@ ALTER SEQUENCE IF EXISTS public.members_id_seq
     OWNED by public.members.id;
 
 -- TABLE: public.books
-DROP TABLE IF EXISTS public.books;
 
 CREATE TABLE IF NOT EXISTS public.books
 (
@@ -31,7 +56,6 @@ ALTER SEQUENCE IF EXISTS public.books_id_seq
     OWNED by public.books.id;
 
 -- TABLE: public.borrowed_books
-DROP TABLE IF EXISTS public.borrowed_books;
 
 CREATE TABLE IF NOT EXISTS public.borrowed_books
 (
@@ -45,4 +69,5 @@ CREATE TABLE IF NOT EXISTS public.borrowed_books
     TABLESPACE pg_default;
 
 ALTER SEQUENCE IF EXISTS public.borrowed_books_id_seq
-    OWNED by public.borrowed_books.id;
\ No newline at end of file
+    OWNED by public.borrowed_books.id;
+
@@ -0,0 +1,19 @@
+-- Databases created from the original scripts still have returned_date NOT NULL DEFAULT NOW(),
+-- which closes every loan on insert.
+ALTER TABLE public.borrowed_books
+    ALTER COLUMN returned_date DROP NOT NULL,
+    ALTER COLUMN returned_date DROP DEFAULT;
+
+-- INDEX: open loans of a member; also enforces at most one open loan per member and book
+
+CREATE UNIQUE INDEX IF NOT EXISTS borrowed_books_open_member_id_book_id_key
+    ON public.borrowed_books USING btree (member_id, book_id)
+    INCLUDE (id, borrowed_date, returned_date)
+    WHERE returned_date IS NULL;
+
+-- INDEX: open loans of a book
+
+CREATE INDEX IF NOT EXISTS borrowed_books_open_book_id_idx
+    ON public.borrowed_books USING btree (book_id)
+    INCLUDE (id, member_id, borrowed_date, returned_date)
+    WHERE returned_date IS NULL;
@@ -0,0 +1,60 @@
+-- TABLE: public.borrowed_books_history
+
+CREATE TABLE IF NOT EXISTS public.borrowed_books_history
+(
+    id               bigint                                              NOT NULL,
+    book_id          bigint                                              NOT NULL,
+    member_id        bigint                                              NOT NULL,
+    borrowed_date    timestamp(6) with time zone                         NOT NULL,
+    returned_date    timestamp(6) with time zone                         NOT NULL,
+    CONSTRAINT borrowed_books_history_pkey PRIMARY KEY (id, borrowed_date)
+    )
+    PARTITION BY RANGE (borrowed_date);
+
+CREATE INDEX IF NOT EXISTS borrowed_books_history_member_id_borrowed_date_idx
+    ON public.borrowed_books_history USING btree (member_id, borrowed_date, id);
+
+CREATE INDEX IF NOT EXISTS borrowed_books_history_book_id_borrowed_date_idx
+    ON public.borrowed_books_history USING btree (book_id, borrowed_date, id);
+
+-- Loans borrowed outside every yearly partition
+
+CREATE TABLE IF NOT EXISTS public.borrowed_books_history_default
+    PARTITION OF public.borrowed_books_history DEFAULT;
+
+-- FUNCTION: creates the yearly partition of borrowed_books_history, returns its name
+
+CREATE OR REPLACE FUNCTION public.ensure_borrowed_books_history_partition(partition_year integer)
+    RETURNS text
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    partition_name text := 'borrowed_books_history_y' || partition_year;
+    range_start    timestamptz := make_timestamptz(partition_year, 1, 1, 0, 0, 0, 'UTC');
+BEGIN
+    IF to_regclass('public.' || partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.borrowed_books_history FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, range_start, range_start + interval '1 year');
+    END IF;
+    RETURN partition_name;
+END;
+$$;
+
+SELECT public.ensure_borrowed_books_history_partition(year)
+FROM generate_series(2024, extract(year FROM now())::integer + 1) AS year;
+
+-- INDEX: returned loans waiting to be archived, and per-member history of the hot table
+
+CREATE INDEX IF NOT EXISTS borrowed_books_returned_date_idx
+    ON public.borrowed_books USING btree (returned_date)
+    WHERE returned_date IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS borrowed_books_member_id_borrowed_date_idx
+    ON public.borrowed_books USING btree (member_id, borrowed_date, id);
+
+-- The archiver deletes in batches; vacuum the hot table early so freed pages are reused
+-- instead of growing the table.
+ALTER TABLE public.borrowed_books SET (
+    autovacuum_vacuum_scale_factor = 0.02,
+    autovacuum_vacuum_insert_scale_factor = 0.02
+);
@@ -0,0 +1,30 @@
+-- SEQUENCE: public.loan_outbox_id_seq
+
+CREATE SEQUENCE IF NOT EXISTS public.loan_outbox_id_seq
+    INCREMENT 50
+    START 1
+    MINVALUE 1
+    MAXVALUE 9223372036854775807
+    CACHE 1;
+
+-- TABLE: public.loan_outbox
+
+CREATE TABLE IF NOT EXISTS public.loan_outbox
+(
+    id               bigint                                              NOT NULL DEFAULT nextval('loan_outbox_id_seq'::regclass),
+    event_type       character varying(32) COLLATE pg_catalog."default"  NOT NULL,
+    book_id          bigint                                              NOT NULL,
+    member_id        bigint                                              NOT NULL,
+    occurred_at      timestamp(6) with time zone                         NOT NULL,
+    CONSTRAINT loan_outbox_pkey PRIMARY KEY (id)
+    )
+    TABLESPACE pg_default;
+
+ALTER SEQUENCE IF EXISTS public.loan_outbox_id_seq
+    OWNED by public.loan_outbox.id;
+
+-- Rows live only until they are dispatched; vacuum often so the queue stays a few pages long.
+ALTER TABLE public.loan_outbox SET (
+    autovacuum_vacuum_scale_factor = 0,
+    autovacuum_vacuum_threshold = 1000
+);
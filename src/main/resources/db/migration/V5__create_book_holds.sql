@@ -0,0 +1,43 @@
+-- SEQUENCE: public.book_holds_id_seq
+
+CREATE SEQUENCE IF NOT EXISTS public.book_holds_id_seq
+    INCREMENT 1
+    START 1
+    MINVALUE 1
+    MAXVALUE 9223372036854775807
+    CACHE 1;
+
+-- TABLE: public.book_holds
+
+CREATE TABLE IF NOT EXISTS public.book_holds
+(
+    id               bigint                                              NOT NULL DEFAULT nextval('book_holds_id_seq'::regclass),
+    book_id          bigint                                              NOT NULL,
+    member_id        bigint                                              NOT NULL,
+    created_at       timestamp(6) with time zone                         NOT NULL,
+    expires_at       timestamp(6) with time zone                         NOT NULL,
+    CONSTRAINT book_holds_pkey PRIMARY KEY (id),
+    CONSTRAINT book_holds_book_id_member_id_key UNIQUE (book_id, member_id),
+    CONSTRAINT book_holds_book_id_fkey FOREIGN KEY (book_id)
+        REFERENCES public.books (id) MATCH SIMPLE
+        ON UPDATE NO ACTION
+        ON DELETE CASCADE,
+    CONSTRAINT book_holds_member_id_fkey FOREIGN KEY (member_id)
+        REFERENCES public.members (id) MATCH SIMPLE
+        ON UPDATE NO ACTION
+        ON DELETE CASCADE
+    )
+    TABLESPACE pg_default;
+
+ALTER SEQUENCE IF EXISTS public.book_holds_id_seq
+    OWNED by public.book_holds.id;
+
+-- Queue order per book; the allocation on return reads the head of one book's queue.
+CREATE INDEX IF NOT EXISTS book_holds_book_id_id_idx
+    ON public.book_holds USING btree (book_id, id);
+
+CREATE INDEX IF NOT EXISTS book_holds_member_id_idx
+    ON public.book_holds USING btree (member_id);
+
+CREATE INDEX IF NOT EXISTS book_holds_expires_at_idx
+    ON public.book_holds USING btree (expires_at);
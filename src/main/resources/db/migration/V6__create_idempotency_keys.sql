@@ -0,0 +1,17 @@
+-- TABLE: public.idempotency_keys
+
+CREATE TABLE IF NOT EXISTS public.idempotency_keys
+(
+    idempotency_key  character varying(255) COLLATE pg_catalog."default"  NOT NULL,
+    request_hash     character varying(64) COLLATE pg_catalog."default"   NOT NULL,
+    status           integer,
+    content_type     character varying(255) COLLATE pg_catalog."default",
+    body             bytea,
+    created_at       timestamp(6) with time zone                          NOT NULL,
+    expires_at       timestamp(6) with time zone                          NOT NULL,
+    CONSTRAINT idempotency_keys_pkey PRIMARY KEY (idempotency_key)
+    )
+    TABLESPACE pg_default;
+
+CREATE INDEX IF NOT EXISTS idempotency_keys_expires_at_idx
+    ON public.idempotency_keys USING btree (expires_at);
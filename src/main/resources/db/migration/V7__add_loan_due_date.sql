@@ -0,0 +1,26 @@
+-- Loans borrowed before due dates existed get the default 14 day loan period.
+ALTER TABLE public.borrowed_books ADD COLUMN IF NOT EXISTS due_date timestamp(6) with time zone;
+
+UPDATE public.borrowed_books SET due_date = borrowed_date + interval '14 days' WHERE due_date IS NULL;
+
+ALTER TABLE public.borrowed_books ALTER COLUMN due_date SET NOT NULL;
+
+-- The overdue scanner walks open loans in (due_date, id) order and stops at the first loan not yet due.
+CREATE INDEX IF NOT EXISTS borrowed_books_open_due_date_id_idx
+    ON public.borrowed_books USING btree (due_date, id)
+    WHERE returned_date IS NULL;
+
+-- TABLE: public.scan_checkpoints
+
+CREATE TABLE IF NOT EXISTS public.scan_checkpoints
+(
+    name             character varying(64) COLLATE pg_catalog."default"  NOT NULL,
+    scan_date        date                                                NOT NULL,
+    last_due_date    timestamp(6) with time zone,
+    last_id          bigint,
+    processed        bigint                                              NOT NULL DEFAULT 0,
+    completed        boolean                                             NOT NULL DEFAULT false,
+    updated_at       timestamp(6) with time zone                         NOT NULL,
+    CONSTRAINT scan_checkpoints_pkey PRIMARY KEY (name)
+    )
+    TABLESPACE pg_default;
@@ -0,0 +1,53 @@
+-- Counters maintained from the loan outbox; see LoanStatsSink. No foreign keys so deleting a book or member keeps its history.
+
+-- TABLE: public.book_loan_stats
+
+CREATE TABLE IF NOT EXISTS public.book_loan_stats
+(
+    book_id          bigint                                              NOT NULL,
+    borrow_count     bigint                                              NOT NULL DEFAULT 0,
+    return_count     bigint                                              NOT NULL DEFAULT 0,
+    CONSTRAINT book_loan_stats_pkey PRIMARY KEY (book_id)
+    )
+    TABLESPACE pg_default;
+
+-- TABLE: public.book_monthly_loan_stats
+
+CREATE TABLE IF NOT EXISTS public.book_monthly_loan_stats
+(
+    book_id          bigint                                              NOT NULL,
+    month            date                                                NOT NULL,
+    borrow_count     bigint                                              NOT NULL DEFAULT 0,
+    return_count     bigint                                              NOT NULL DEFAULT 0,
+    CONSTRAINT book_monthly_loan_stats_pkey PRIMARY KEY (book_id, month)
+    )
+    TABLESPACE pg_default;
+
+CREATE INDEX IF NOT EXISTS book_monthly_loan_stats_month_borrow_count_idx
+    ON public.book_monthly_loan_stats USING btree (month, borrow_count DESC, book_id);
+
+-- TABLE: public.member_monthly_loan_stats
+
+CREATE TABLE IF NOT EXISTS public.member_monthly_loan_stats
+(
+    member_id        bigint                                              NOT NULL,
+    month            date                                                NOT NULL,
+    borrow_count     bigint                                              NOT NULL DEFAULT 0,
+    return_count     bigint                                              NOT NULL DEFAULT 0,
+    CONSTRAINT member_monthly_loan_stats_pkey PRIMARY KEY (member_id, month)
+    )
+    TABLESPACE pg_default;
+
+CREATE INDEX IF NOT EXISTS member_monthly_loan_stats_month_borrow_count_idx
+    ON public.member_monthly_loan_stats USING btree (month, borrow_count DESC, member_id);
+
+-- TABLE: public.daily_loan_stats
+
+CREATE TABLE IF NOT EXISTS public.daily_loan_stats
+(
+    day              date                                                NOT NULL,
+    borrow_count     bigint                                              NOT NULL DEFAULT 0,
+    return_count     bigint                                              NOT NULL DEFAULT 0,
+    CONSTRAINT daily_loan_stats_pkey PRIMARY KEY (day)
+    )
+    TABLESPACE pg_default;
@@ -0,0 +1,11 @@
+-- An unfinished claim only blocks its key until locked_until, so a crashed execution can be retried before the TTL.
+
+ALTER TABLE public.idempotency_keys
+    ADD COLUMN IF NOT EXISTS locked_until timestamp(6) with time zone;
+
+UPDATE public.idempotency_keys
+SET locked_until = created_at
+WHERE locked_until IS NULL;
+
+ALTER TABLE public.idempotency_keys
+    ALTER COLUMN locked_until SET NOT NULL;
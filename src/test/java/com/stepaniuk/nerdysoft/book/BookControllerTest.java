@@ -1,11 +1,22 @@
 package com.stepaniuk.nerdysoft.book;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stepaniuk.nerdysoft.book.bulk.BookBulkImportService;
+import com.stepaniuk.nerdysoft.book.bulk.BookImportFormat;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyExistsException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
 import com.stepaniuk.nerdysoft.book.payload.BookCreateRequest;
+import com.stepaniuk.nerdysoft.book.payload.BookImportError;
+import com.stepaniuk.nerdysoft.book.payload.BookImportResponse;
 import com.stepaniuk.nerdysoft.book.payload.BookResponse;
+import com.stepaniuk.nerdysoft.book.payload.BookSearchResult;
+import com.stepaniuk.nerdysoft.book.payload.BookSuggestion;
 import com.stepaniuk.nerdysoft.book.payload.BookUpdateRequest;
+import com.stepaniuk.nerdysoft.shared.exception.InvalidCursorException;
+import com.stepaniuk.nerdysoft.shared.pagination.CursorPage;
 import com.stepaniuk.nerdysoft.testspecific.ControllerLevelUnitTest;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -17,10 +28,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.List;
 
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ControllerLevelUnitTest(controllers = BookController.class)
@@ -34,6 +49,9 @@ public class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private BookBulkImportService bookBulkImportService;
+
     @Test
     void shouldReturnBookResponseWhenCreatingBook() throws Exception {
         // given
@@ -193,6 +211,26 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.instance", is("/books/1")));
     }
 
+    @Test
+    void shouldReturnConflictWhenUpdateBookDuplicatesTitleAndAuthor() throws Exception {
+        // given
+        var bookUpdateRequest = new BookUpdateRequest("Taken Title", "Taken Author");
+
+        doThrow(new BookAlreadyExistsException(1L, "Taken Title", "Taken Author"))
+                .when(bookService).updateBook(1L, bookUpdateRequest);
+
+        // when & then
+        mockMvc.perform(patch("/books/1")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(bookUpdateRequest))
+                )
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status", is(409)))
+                .andExpect(jsonPath("$.title", is("Book already exists")))
+                .andExpect(jsonPath("$.detail", is("Book with title Taken Title and author Taken Author already exists")))
+                .andExpect(jsonPath("$.instance", is("/books/1")));
+    }
+
     @Test
     void shouldReturnNoContentWhenDeleteBook() throws Exception {
         mockMvc.perform(delete("/books/1")
@@ -215,4 +253,135 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.instance", is("/books/1")));
     }
 
+    @Test
+    void shouldReturnCursorPageWhenGettingBooksAfterCursor() throws Exception {
+        // given
+        var response = new BookResponse(1L, "Title", "Author", 1);
+        response.add(Link.of("http://localhost/books/1", "self"));
+
+        when(bookService.getBooksAfter("", 1)).thenReturn(new CursorPage<>(List.of(response), "next"));
+
+        // when & then
+        mockMvc.perform(get("/books")
+                        .contentType("application/json")
+                        .param("after", "")
+                        .param("size", "1")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(response.getId()), Long.class))
+                .andExpect(jsonPath("$.content[0].title", is(response.getTitle())))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    void shouldReturnErrorResponseWhenGettingBooksAfterInvalidCursor() throws Exception {
+        // given
+        when(bookService.getBooksAfter("broken", 20)).thenThrow(new InvalidCursorException("broken"));
+
+        // when & then
+        mockMvc.perform(get("/books")
+                        .contentType("application/json")
+                        .param("after", "broken")
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title", is("Invalid cursor")))
+                .andExpect(jsonPath("$.detail", is("Cursor broken is not valid")));
+    }
+
+    @Test
+    void shouldReturnCursorPageOfSearchResultsWhenSearchingBooks() throws Exception {
+        // given
+        var result = new BookSearchResult(3L, "The Hobbit", "John Tolkien", 2, 0.9f);
+
+        when(bookService.searchBooks("hobit", null, 20)).thenReturn(new CursorPage<>(List.of(result), "next"));
+
+        // when & then
+        mockMvc.perform(get("/books/search")
+                        .param("q", "hobit")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(3)))
+                .andExpect(jsonPath("$.content[0].title", is("The Hobbit")))
+                .andExpect(jsonPath("$.content[0].amount", is(2)))
+                .andExpect(jsonPath("$.content[0].links").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    void shouldReturnImportReportWhenImportingBooksFromCsv() throws Exception {
+        // given
+        var report = new BookImportResponse(2, 1, 1, 1, 100.0,
+                List.of(new BookImportError(3, "Malformed row: unterminated quoted field")));
+
+        when(bookBulkImportService.importBooks(any(), eq(BookImportFormat.CSV))).thenReturn(report);
+
+        // when & then
+        mockMvc.perform(post("/books/bulk")
+                        .contentType("text/csv")
+                        .content("title,author\nDune,Frank Herbert\n\"Broken,Author\n")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRows", is(2)))
+                .andExpect(jsonPath("$.importedRows", is(1)))
+                .andExpect(jsonPath("$.failedRows", is(1)))
+                .andExpect(jsonPath("$.createdBooks", is(1)))
+                .andExpect(jsonPath("$.rowsPerSecond", is(100.0)))
+                .andExpect(jsonPath("$.errors[0].line", is(3)))
+                .andExpect(jsonPath("$.errors[0].message", is("Malformed row: unterminated quoted field")));
+    }
+
+    @Test
+    void shouldUseNdjsonFormatWhenImportingBooksFromNdjson() throws Exception {
+        // given
+        var report = new BookImportResponse(1, 1, 0, 1, 50.0, List.of());
+
+        when(bookBulkImportService.importBooks(any(), eq(BookImportFormat.NDJSON))).thenReturn(report);
+
+        // when & then
+        mockMvc.perform(post("/books/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"title\":\"Dune\",\"author\":\"Frank Herbert\"}\n")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows", is(1)))
+                .andExpect(jsonPath("$.errors").isEmpty());
+    }
+
+    @Test
+    void shouldStreamNdjsonWhenExportingBooks() throws Exception {
+        // given
+        when(bookService.exportBooks(any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        // when
+        var result = mockMvc.perform(get("/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void shouldReturnRankedSuggestionsWhenSuggestingBooks() throws Exception {
+        // given
+        when(bookService.suggestBooks("hob", 5)).thenReturn(List.of(
+                new BookSuggestion(3L, "The Hobbit", "John Tolkien"),
+                new BookSuggestion(7L, "Hobbies", "Some Author")));
+
+        // when & then
+        mockMvc.perform(get("/books/suggest")
+                        .param("q", "hob")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(3)))
+                .andExpect(jsonPath("$[0].title", is("The Hobbit")))
+                .andExpect(jsonPath("$[0].author", is("John Tolkien")))
+                .andExpect(jsonPath("$[1].id", is(7)));
+    }
 }
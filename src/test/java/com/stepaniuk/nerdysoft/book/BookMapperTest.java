@@ -1,5 +1,6 @@
 package com.stepaniuk.nerdysoft.book;
 
+import com.stepaniuk.nerdysoft.book.payload.BookListRow;
 import com.stepaniuk.nerdysoft.book.payload.BookResponse;
 import com.stepaniuk.nerdysoft.testspecific.MapperLevelUnitTest;
 import org.junit.jupiter.api.Test;
@@ -31,4 +32,21 @@ public class BookMapperTest {
         assertTrue(bookResponse.getLinks().hasLink("update"));
         assertTrue(bookResponse.getLinks().hasLink("delete"));
     }
+
+    @Test
+    void shouldMapBookListRowToBookResponse() {
+        // given
+        BookListRow rowToMap = new BookListRow(1L, "Title", "Author", 1);
+        // when
+        BookResponse bookResponse = bookMapper.toResponse(rowToMap);
+        // then
+        assertNotNull(bookResponse);
+        assertEquals(rowToMap.getId(), bookResponse.getId());
+        assertEquals(rowToMap.getTitle(), bookResponse.getTitle());
+        assertEquals(rowToMap.getAuthor(), bookResponse.getAuthor());
+        assertEquals(rowToMap.getAmount(), bookResponse.getAmount());
+        assertEquals("/books/1", bookResponse.getRequiredLink("self").getHref());
+        assertTrue(bookResponse.getLinks().hasLink("update"));
+        assertTrue(bookResponse.getLinks().hasLink("delete"));
+    }
 }
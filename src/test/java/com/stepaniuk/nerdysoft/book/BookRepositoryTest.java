@@ -1,11 +1,17 @@
 package com.stepaniuk.nerdysoft.book;
 
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
+import com.stepaniuk.nerdysoft.book.payload.BookListRow;
 import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +23,9 @@ public class BookRepositoryTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void shouldSaveBook(){
         // given
@@ -91,6 +100,24 @@ public class BookRepositoryTest {
         assertEquals(2, updatedBook.getAmount());
     }
 
+    @Test
+    void shouldKeepReturnCommittedBetweenReadAndSaveOfBookUpdate() {
+        // given
+        var staleBook = bookRepository.findById(1L).orElseThrow();
+        var amount = staleBook.getAmount();
+        bookRepository.incrementAmount(1L);
+
+        // when
+        staleBook.setTitle("New Title");
+        bookRepository.saveAndFlush(staleBook);
+        entityManager.clear();
+
+        // then
+        var book = bookRepository.findById(1L).orElseThrow();
+        assertEquals("New Title", book.getTitle());
+        assertEquals(amount + 1, book.getAmount());
+    }
+
     @Test
     void shouldDeleteBookWhenDeletingByExistingBook() {
         // given
@@ -149,4 +176,210 @@ public class BookRepositoryTest {
         assertEquals("J.R.R. Tolkien", book.getAuthor());
         assertEquals(1, book.getAmount());
     }
+
+    @Test
+    void shouldDecrementAmountWhenBookIsAvailable() {
+        // when
+        int updated = bookRepository.decrementAmount(1L);
+
+        // then
+        assertEquals(1, updated);
+        assertEquals(0, bookRepository.findById(1L).orElseThrow().getAmount());
+    }
+
+    @Test
+    void shouldNotDecrementAmountWhenBookIsNotAvailable() {
+        // given
+        bookRepository.decrementAmount(1L);
+
+        // when
+        int updated = bookRepository.decrementAmount(1L);
+
+        // then
+        assertEquals(0, updated);
+        assertEquals(0, bookRepository.findById(1L).orElseThrow().getAmount());
+    }
+
+    @Test
+    void shouldNotDecrementAmountWhenBookDoesNotExist() {
+        // when
+        int updated = bookRepository.decrementAmount(100L);
+
+        // then
+        assertEquals(0, updated);
+    }
+
+    @Test
+    void shouldIncrementAmount() {
+        // when
+        int updated = bookRepository.incrementAmount(1L);
+
+        // then
+        assertEquals(1, updated);
+        assertEquals(2, bookRepository.findById(1L).orElseThrow().getAmount());
+    }
+
+    @Test
+    void shouldDecrementOnlyAvailableBooksAndReturnTheirIdsWhenDecrementingAmounts() {
+        // given
+        bookRepository.decrementAmount(2L);
+
+        // when
+        var decremented = bookRepository.decrementAmounts(List.of(1L, 2L, 100L));
+
+        // then
+        assertEquals(List.of(1L), decremented);
+        assertEquals(0, bookRepository.findById(1L).orElseThrow().getAmount());
+        assertEquals(0, bookRepository.findById(2L).orElseThrow().getAmount());
+    }
+
+    @Test
+    void shouldIncrementEveryBookWhenIncrementingAmounts() {
+        // when
+        int updated = bookRepository.incrementAmounts(List.of(1L, 2L));
+
+        // then
+        assertEquals(2, updated);
+        assertEquals(2, bookRepository.findById(1L).orElseThrow().getAmount());
+        assertEquals(2, bookRepository.findById(2L).orElseThrow().getAmount());
+    }
+
+    @Test
+    void shouldSumAmountsOfAllBooks() {
+        // when
+        long available = bookRepository.sumAmounts();
+
+        // then
+        assertEquals(5, available);
+    }
+
+    @Test
+    void shouldReturnSortedPageOfRowsWhenFindingListRows() {
+        // when
+        var page = bookRepository.findListRows(PageRequest.of(0, 2, Sort.by("title")));
+
+        // then
+        assertEquals(5, page.getTotalElements());
+        assertEquals(List.of(
+                        new BookListRow(2L, "Harry Potter", "J.K. Rowling", 1),
+                        new BookListRow(4L, "The Catcher in the Rye", "J.D. Salinger", 1)),
+                page.getContent());
+    }
+
+    @Test
+    void shouldReturnBooksOrderedByTitleAndIdWhenFindingFirstPage() {
+        // when
+        var books = bookRepository.findByOrderByTitleAscIdAsc(Limit.of(2));
+
+        // then
+        assertEquals(2, books.size());
+        assertEquals(2L, books.get(0).getId());
+        assertEquals(4L, books.get(1).getId());
+    }
+
+    @Test
+    void shouldReturnBooksAfterGivenTitleAndIdWhenFindingPageAfter() {
+        // when
+        var books = bookRepository.findPageAfter("The Catcher in the Rye", 4L, 2);
+
+        // then
+        assertEquals(2, books.size());
+        assertEquals(3L, books.get(0).getId());
+        assertEquals(1L, books.get(1).getId());
+    }
+
+    @Test
+    void shouldReturnRankedProjectionsWhenSearchingByWords() {
+        // when
+        var rows = bookRepository.search("rings tolkien", 10);
+
+        // then
+        assertFalse(rows.isEmpty());
+        assertEquals(1L, rows.get(0).getId());
+        assertEquals("The Lord of the Rings", rows.get(0).getTitle());
+        assertEquals("J.R.R. Tolkien", rows.get(0).getAuthor());
+        assertEquals(1, rows.get(0).getAmount());
+        assertTrue(rows.get(0).getRank() > 0);
+    }
+
+    @Test
+    void shouldTolerateTyposWhenSearching() {
+        // when
+        var rows = bookRepository.search("hobit", 10);
+
+        // then
+        assertFalse(rows.isEmpty());
+        assertEquals(3L, rows.get(0).getId());
+    }
+
+    @Test
+    void shouldReturnRemainingMatchesWhenSearchingAfterRankAndId() {
+        // given
+        var firstPage = bookRepository.search("tolkien", 1);
+        var last = firstPage.get(0);
+
+        // when
+        var secondPage = bookRepository.searchAfter("tolkien", last.getRank(), last.getId(), 10);
+
+        // then
+        assertEquals(1, secondPage.size());
+        assertEquals(List.of(1L, 3L), List.of(last.getId(), secondPage.get(0).getId()).stream().sorted().toList());
+    }
+
+    @Test
+    void shouldInsertBookWithOneCopyWhenUpsertingNewTitleAndAuthor() {
+        // when
+        Book book = bookRepository.upsertCopies("Dune", "Frank Herbert", 1);
+
+        // then
+        assertNotNull(book.getId());
+        assertEquals("Dune", book.getTitle());
+        assertEquals("Frank Herbert", book.getAuthor());
+        assertEquals(1, book.getAmount());
+    }
+
+    @Test
+    void shouldIncreaseAmountOfExistingBookWhenUpsertingSameTitleAndAuthor() {
+        // when
+        Book book = bookRepository.upsertCopies("The Lord of the Rings", "J.R.R. Tolkien", 1);
+
+        // then
+        assertEquals(1L, book.getId());
+        assertEquals(2, book.getAmount());
+        assertEquals(5, bookRepository.count());
+    }
+
+    @Test
+    void shouldAddCopiesToExistingBooksAndInsertNewOnesWhenUpsertingChunk() {
+        // when
+        var rows = bookRepository.upsertAllCopies(
+                new String[]{"The Hobbit", "Dune"},
+                new String[]{"J.R.R. Tolkien", "Frank Herbert"},
+                new Integer[]{2, 3});
+
+        // then
+        assertEquals(2, rows.size());
+        var dune = rows.stream().filter(row -> row.getTitle().equals("Dune")).findFirst().orElseThrow();
+        var hobbit = rows.stream().filter(row -> row.getTitle().equals("The Hobbit")).findFirst().orElseThrow();
+        assertTrue(dune.getCreated());
+        assertEquals(3, dune.getAmount());
+        assertFalse(hobbit.getCreated());
+        assertEquals(3L, hobbit.getId());
+        assertEquals(3, hobbit.getAmount());
+        assertEquals(6, bookRepository.count());
+    }
+
+    @Test
+    void shouldStreamAllBooksOrderedByIdWhenStreamingExportRows() {
+        // when
+        try (var rows = bookRepository.streamExportRows()) {
+            var exportRows = rows.toList();
+
+            // then
+            assertEquals(5, exportRows.size());
+            assertEquals(1L, exportRows.getFirst().getId());
+            assertEquals("The Lord of the Rings", exportRows.getFirst().getTitle());
+            assertEquals(5L, exportRows.getLast().getId());
+        }
+    }
 }
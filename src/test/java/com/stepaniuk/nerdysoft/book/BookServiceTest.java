@@ -1,14 +1,31 @@
 package com.stepaniuk.nerdysoft.book;
 
 import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyExistsException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
+import com.stepaniuk.nerdysoft.book.exception.BorrowedBookCannotBeDeletedException;
 import com.stepaniuk.nerdysoft.book.payload.BookCreateRequest;
+import com.stepaniuk.nerdysoft.book.payload.BookExportRow;
+import com.stepaniuk.nerdysoft.book.payload.BookListRow;
+import com.stepaniuk.nerdysoft.book.payload.BookSearchRow;
 import com.stepaniuk.nerdysoft.book.payload.BookUpdateRequest;
+import com.stepaniuk.nerdysoft.book.suggest.BookSuggestService;
+import com.stepaniuk.nerdysoft.cache.EntityCacheEvictor;
+import com.stepaniuk.nerdysoft.library.LibraryService;
+import com.stepaniuk.nerdysoft.shared.exception.InvalidCursorException;
+import com.stepaniuk.nerdysoft.shared.export.NdjsonWriter;
+import com.stepaniuk.nerdysoft.shared.pagination.KeysetCursor;
 import com.stepaniuk.nerdysoft.testspecific.ServiceLevelUnitTest;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer1;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ContextConfiguration;
@@ -20,10 +37,11 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.AdditionalAnswers.answer;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ServiceLevelUnitTest
-@ContextConfiguration(classes = {BookService.class, BookMapperImpl.class})
+@ContextConfiguration(classes = {BookService.class, BookMapperImpl.class, NdjsonWriter.class, JacksonAutoConfiguration.class})
 public class BookServiceTest {
     @Autowired
     private BookService bookService;
@@ -34,12 +52,22 @@ public class BookServiceTest {
     @MockBean
     private BorrowedBookRepository borrowedBookRepository;
 
+    @MockBean
+    private EntityCacheEvictor entityCacheEvictor;
+
+    @MockBean
+    private BookSuggestService bookSuggestService;
+
+    @MockBean
+    private LibraryService libraryService;
+
     @Test
     void shouldReturnBookResponseWhenCreatingBook(){
         // given
         var request = new BookCreateRequest("Title", "Author");
 
-        when(bookRepository.save(any())).thenAnswer(answer(getFakeSaveAnswer(1L)));
+        when(bookRepository.upsertCopies(request.getTitle(), request.getAuthor(), 1))
+                .thenReturn(new Book(1L, "Title", "Author", 1));
 
         // when
         var bookResponse = bookService.createBook(request);
@@ -54,34 +82,47 @@ public class BookServiceTest {
         assertTrue(bookResponse.getLinks().hasLink("update"));
         assertTrue(bookResponse.getLinks().hasLink("delete"));
 
-        verify(bookRepository, times(1)).save(any());
+        verify(bookRepository, times(1)).upsertCopies(request.getTitle(), request.getAuthor(), 1);
+        verify(bookRepository, never()).save(any());
+        verify(bookSuggestService, times(1)).indexAfterCommit(1L, "Title", "Author");
     }
 
     @Test
-    void shouldIncreaseAmountOfBookIfAddedBookAlreadyExists(){
+    void shouldReportCopyLentToWaitingHoldWhenCreatingBook() {
         // given
         var request = new BookCreateRequest("Title", "Author");
+        var book = new Book(1L, "Title", "Author", 1);
 
-        when(bookRepository.findByTitleAndAuthor(request.getTitle(), request.getAuthor()))
-                .thenReturn(Optional.of(new Book(1L, "Title", "Author", 1)));
+        when(bookRepository.upsertCopies(request.getTitle(), request.getAuthor(), 1)).thenReturn(book);
+        when(libraryService.allocateAddedCopies(List.of(1L))).thenReturn(1);
 
-        when(bookRepository.save(any())).thenAnswer(answer(getFakeSaveAnswer(1L)));
+        // when
+        var bookResponse = bookService.createBook(request);
+
+        // then
+        assertEquals(0, bookResponse.getAmount());
+        assertEquals(1, book.getAmount());
+        verify(libraryService).allocateAddedCopies(List.of(1L));
+    }
+
+    @Test
+    void shouldIncreaseAmountOfBookIfAddedBookAlreadyExists(){
+        // given
+        var request = new BookCreateRequest("Title", "Author");
+
+        when(bookRepository.upsertCopies(request.getTitle(), request.getAuthor(), 1))
+                .thenReturn(new Book(1L, "Title", "Author", 2));
 
         // when
         var bookResponse = bookService.createBook(request);
 
         // then
         assertNotNull(bookResponse);
-        assertEquals(request.getTitle(), bookResponse.getTitle());
-        assertEquals(request.getAuthor(), bookResponse.getAuthor());
+        assertEquals(1L, bookResponse.getId());
         assertEquals(2, bookResponse.getAmount());
-        assertTrue(bookResponse.hasLinks());
-        assertTrue(bookResponse.getLinks().hasLink("self"));
-        assertTrue(bookResponse.getLinks().hasLink("update"));
-        assertTrue(bookResponse.getLinks().hasLink("delete"));
 
-        verify(bookRepository, times(1)).findByTitleAndAuthor(request.getTitle(), request.getAuthor());
-        verify(bookRepository, times(1)).save(any());
+        verify(entityCacheEvictor, times(1)).evictAfterCommit(Book.class, 1L);
+        verify(bookRepository, never()).findByTitleAndAuthor(any(), any());
     }
 
     @Test
@@ -130,7 +171,7 @@ public class BookServiceTest {
         var request = new BookUpdateRequest("New Title", null);
 
         when(bookRepository.findById(1L)).thenReturn(Optional.of(bookToUpdate));
-        when(bookRepository.save(any())).thenAnswer(answer(getFakeSaveAnswer(bookId)));
+        when(bookRepository.saveAndFlush(any())).thenAnswer(answer(getFakeSaveAnswer(bookId)));
 
         // when
         var bookResponse = bookService.updateBook(bookId, request);
@@ -147,7 +188,29 @@ public class BookServiceTest {
         assertTrue(bookResponse.getLinks().hasLink("delete"));
 
         verify(bookRepository, times(1)).findById(1L);
-        verify(bookRepository, times(1)).save(any());
+        verify(bookRepository, times(1)).saveAndFlush(any());
+        verify(bookSuggestService, times(1)).indexAfterCommit(1L, "New Title", "Author");
+    }
+
+    @Test
+    void shouldThrowBookAlreadyExistsExceptionWhenUpdateDuplicatesTitleAndAuthor() {
+        // given
+        var bookId = 1L;
+        var bookToUpdate = new Book(1L, "Title", "Author", 1);
+        var request = new BookUpdateRequest("Taken Title", "Taken Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(bookToUpdate));
+        when(bookRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("books_title_author_key"));
+
+        // when
+        var exception = assertThrows(BookAlreadyExistsException.class, () -> bookService.updateBook(bookId, request));
+
+        // then
+        assertEquals(1L, exception.getId());
+        assertEquals("Taken Title", exception.getTitle());
+        assertEquals("Taken Author", exception.getAuthor());
+
+        verify(bookSuggestService, never()).indexAfterCommit(any(), any(), any());
     }
 
     @Test
@@ -174,13 +237,27 @@ public class BookServiceTest {
 
         var book = new Book(1L, "Title", "Author", 1);
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(borrowedBookRepository.findByBookIdAndReturnedDateIsNull(1L)).thenReturn(List.of());
+        when(borrowedBookRepository.existsByBookIdAndReturnedDateIsNull(1L)).thenReturn(false);
 
         // when
         bookService.deleteBook(bookId);
 
         // then
         verify(bookRepository, times(1)).delete(book);
+        verify(bookSuggestService, times(1)).removeAfterCommit(1L);
+    }
+
+    @Test
+    void shouldThrowBorrowedBookCannotBeDeletedExceptionWhenDeletingBorrowedBook(){
+        // given
+        when(borrowedBookRepository.existsByBookIdAndReturnedDateIsNull(1L)).thenReturn(true);
+
+        // when
+        var exception = assertThrows(BorrowedBookCannotBeDeletedException.class, () -> bookService.deleteBook(1L));
+
+        // then
+        assertEquals(1L, exception.getId());
+        verify(bookRepository, never()).delete(any());
     }
 
     @Test
@@ -203,9 +280,9 @@ public class BookServiceTest {
     void shouldReturnPageOfBookResponsesWhenGettingAllBooks(){
         // given
         var pageable = PageRequest.of(0, 1);
-        var bookToFind = new Book(1L, "Title1", "Author1", 1);
+        var bookToFind = new BookListRow(1L, "Title1", "Author1", 1);
 
-        when(bookRepository.findAll(eq(pageable))).thenReturn(new PageImpl<>(List.of(bookToFind)));
+        when(bookRepository.findListRows(eq(pageable))).thenReturn(new PageImpl<>(List.of(bookToFind)));
 
         // when
         var booksPage = bookService.getAllBooks(pageable);
@@ -228,7 +305,116 @@ public class BookServiceTest {
         assertTrue(bookResponse.getLinks().hasLink("update"));
         assertTrue(bookResponse.getLinks().hasLink("delete"));
 
-        verify(bookRepository, times(1)).findAll(eq(pageable));
+        verify(bookRepository, times(1)).findListRows(eq(pageable));
+    }
+
+    @Test
+    void shouldReturnFirstCursorPageWithNextCursorWhenMoreBooksExist() {
+        // given
+        var firstBook = new Book(2L, "Harry Potter", "J.K. Rowling", 1);
+        var secondBook = new Book(4L, "The Catcher in the Rye", "J.D. Salinger", 1);
+
+        when(bookRepository.findByOrderByTitleAscIdAsc(Limit.of(2))).thenReturn(List.of(firstBook, secondBook));
+
+        // when
+        var page = bookService.getBooksAfter("", 1);
+
+        // then
+        assertEquals(1, page.getContent().size());
+        assertEquals(firstBook.getId(), page.getContent().getFirst().getId());
+        assertEquals(new KeysetCursor("Harry Potter", 2L), KeysetCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void shouldReturnLastCursorPageWithoutNextCursorWhenSeekingAfterCursor() {
+        // given
+        var cursor = new KeysetCursor("Harry Potter", 2L).encode();
+        var book = new Book(4L, "The Catcher in the Rye", "J.D. Salinger", 1);
+
+        when(bookRepository.findPageAfter("Harry Potter", 2L, 21)).thenReturn(List.of(book));
+
+        // when
+        var page = bookService.getBooksAfter(cursor, 20);
+
+        // then
+        assertEquals(1, page.getContent().size());
+        assertEquals(book.getId(), page.getContent().getFirst().getId());
+        assertNull(page.getNextCursor());
+        verify(bookRepository, never()).findListRows(any(PageRequest.class));
+    }
+
+    @Test
+    void shouldReturnSearchResultsWithRankCursorWhenMoreMatchesExist() {
+        // given
+        var firstRow = getSearchRow(3L, "The Hobbit", 0.9f);
+        var secondRow = getSearchRow(1L, "The Lord of the Rings", 0.5f);
+
+        when(bookRepository.search("tolkien", 2)).thenReturn(List.of(firstRow, secondRow));
+
+        // when
+        var page = bookService.searchBooks("tolkien", null, 1);
+
+        // then
+        assertEquals(1, page.getContent().size());
+        assertEquals(3L, page.getContent().getFirst().getId());
+        assertEquals(0.9f, page.getContent().getFirst().getRank());
+        assertEquals(new KeysetCursor("0.9", 3L), KeysetCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void shouldSeekAfterRankAndIdWhenSearchingAfterCursor() {
+        // given
+        var cursor = new KeysetCursor("0.9", 3L).encode();
+        var row = getSearchRow(1L, "The Lord of the Rings", 0.5f);
+
+        when(bookRepository.searchAfter("tolkien", 0.9f, 3L, 21)).thenReturn(List.of(row));
+
+        // when
+        var page = bookService.searchBooks("tolkien", cursor, 20);
+
+        // then
+        assertEquals(1, page.getContent().size());
+        assertEquals(1L, page.getContent().getFirst().getId());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldThrowInvalidCursorExceptionWhenSearchCursorHasNoRank() {
+        // given
+        var cursor = new KeysetCursor("Harry Potter", 2L).encode();
+
+        // when & then
+        assertThrows(InvalidCursorException.class, () -> bookService.searchBooks("tolkien", cursor, 20));
+    }
+
+    @Test
+    void shouldNotQueryRepositoryWhenSearchQueryIsBlank() {
+        // when
+        var page = bookService.searchBooks("  ", null, 20);
+
+        // then
+        assertTrue(page.getContent().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(bookRepository, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void shouldWriteOneJsonLinePerBookWhenExportingBooks() throws Exception {
+        // given
+        when(bookRepository.streamExportRows()).thenReturn(Stream.of(
+                new BookExportRow(1L, "Dune", "Frank Herbert", 2),
+                new BookExportRow(2L, "Emma", "Jane Austen", 1)));
+        var out = new ByteArrayOutputStream();
+
+        // when
+        var exported = bookService.exportBooks(out);
+
+        // then
+        assertEquals(2, exported);
+        assertEquals("""
+                {"id":1,"title":"Dune","author":"Frank Herbert","amount":2}
+                {"id":2,"title":"Emma","author":"Jane Austen","amount":1}
+                """, out.toString(StandardCharsets.UTF_8));
     }
 
     private Answer1<Book, Book> getFakeSaveAnswer(Long id) {
@@ -237,4 +423,33 @@ public class BookServiceTest {
             return book;
         };
     }
+
+    private static BookSearchRow getSearchRow(Long id, String title, Float rank) {
+        return new BookSearchRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAuthor() {
+                return "John Tolkien";
+            }
+
+            @Override
+            public Integer getAmount() {
+                return 1;
+            }
+
+            @Override
+            public Float getRank() {
+                return rank;
+            }
+        };
+    }
 }
@@ -0,0 +1,64 @@
+package com.stepaniuk.nerdysoft.book.borrowed;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class BorrowedBookArchiverTest {
+
+    private final BorrowedBookHistoryRepository borrowedBookHistoryRepository = mock(BorrowedBookHistoryRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldMoveBatchesUntilLastBatchIsNotFull() {
+        // given
+        var archiver = new BorrowedBookArchiver(borrowedBookHistoryRepository, meterRegistry, Duration.ofDays(90), 100, 10);
+        var now = Instant.parse("2025-06-01T00:00:00Z");
+        when(borrowedBookHistoryRepository.archiveReturnedBefore(now.minus(Duration.ofDays(90)), 100))
+                .thenReturn(100, 100, 42);
+
+        // when
+        var archived = archiver.archive(now);
+
+        // then
+        assertEquals(242, archived);
+        verify(borrowedBookHistoryRepository, times(3)).archiveReturnedBefore(any(), anyInt());
+        assertEquals(242, meterRegistry.get(BorrowedBookArchiver.ARCHIVED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldStopAfterMaxBatchesWhenEveryBatchIsFull() {
+        // given
+        var archiver = new BorrowedBookArchiver(borrowedBookHistoryRepository, meterRegistry, Duration.ofDays(90), 100, 3);
+        when(borrowedBookHistoryRepository.archiveReturnedBefore(any(), anyInt())).thenReturn(100);
+
+        // when
+        var archived = archiver.archive(Instant.parse("2025-06-01T00:00:00Z"));
+
+        // then
+        assertEquals(300, archived);
+        verify(borrowedBookHistoryRepository, times(3)).archiveReturnedBefore(any(), anyInt());
+    }
+
+    @Test
+    void shouldEnsureCurrentAndNextYearPartitionsBeforeMovingLoans() {
+        // given
+        var archiver = new BorrowedBookArchiver(borrowedBookHistoryRepository, meterRegistry, Duration.ofDays(90), 100, 10);
+
+        // when
+        archiver.archive(Instant.parse("2025-12-31T23:00:00Z"));
+
+        // then
+        var inOrder = inOrder(borrowedBookHistoryRepository);
+        inOrder.verify(borrowedBookHistoryRepository).ensurePartition(2025);
+        inOrder.verify(borrowedBookHistoryRepository).ensurePartition(2026);
+        inOrder.verify(borrowedBookHistoryRepository).archiveReturnedBefore(any(), anyInt());
+    }
+}
@@ -0,0 +1,73 @@
+package com.stepaniuk.nerdysoft.book.borrowed;
+
+import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JpaLevelTest
+@Sql(scripts = {"classpath:sql/borrowed_books.sql"})
+public class BorrowedBookHistoryRepositoryTest {
+
+    @Autowired
+    private BorrowedBookHistoryRepository borrowedBookHistoryRepository;
+
+    @Autowired
+    private BorrowedBookRepository borrowedBookRepository;
+
+    @Test
+    void shouldMoveOnlyLoansReturnedBeforeHorizonWhenArchiving() {
+        // when
+        int archived = borrowedBookHistoryRepository.archiveReturnedBefore(Instant.parse("2024-05-01T00:00:00Z"), 100);
+
+        // then
+        assertEquals(1, archived);
+        assertFalse(borrowedBookRepository.existsById(1L));
+        assertTrue(borrowedBookRepository.existsById(2L));
+        var history = borrowedBookHistoryRepository.findById(1L).orElseThrow();
+        assertEquals(Instant.parse("2024-04-24T22:28:19.266615Z"), history.getReturnedDate());
+    }
+
+    @Test
+    void shouldKeepExportingLoansAfterArchivingThem() {
+        // given
+        borrowedBookHistoryRepository.archiveReturnedBefore(Instant.parse("2024-05-01T00:00:00Z"), 100);
+
+        // when
+        try (var rows = borrowedBookRepository.streamExportRows()) {
+            var exportRows = rows.toList();
+
+            // then
+            assertEquals(2, exportRows.size());
+            assertEquals(1L, exportRows.getFirst().getId());
+            assertTrue(exportRows.getFirst().isArchived());
+            assertEquals(2L, exportRows.getLast().getId());
+            assertFalse(exportRows.getLast().isArchived());
+        }
+    }
+
+    @Test
+    void shouldNotMoveLoansReturnedAfterHorizonWhenArchiving() {
+        // when
+        int archived = borrowedBookHistoryRepository.archiveReturnedBefore(Instant.parse("2024-04-01T00:00:00Z"), 100);
+
+        // then
+        assertEquals(0, archived);
+        assertEquals(0, borrowedBookHistoryRepository.count());
+    }
+
+    @Test
+    void shouldCreateYearlyPartitionOnce() {
+        // when
+        var first = borrowedBookHistoryRepository.ensurePartition(2030);
+        var second = borrowedBookHistoryRepository.ensurePartition(2030);
+
+        // then
+        assertEquals("borrowed_books_history_y2030", first);
+        assertEquals(first, second);
+    }
+}
@@ -2,17 +2,23 @@ package com.stepaniuk.nerdysoft.book.borrowed;
 
 import com.stepaniuk.nerdysoft.book.Book;
 import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.borrowed.payload.OverdueLoan;
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
 import com.stepaniuk.nerdysoft.member.Member;
 import com.stepaniuk.nerdysoft.member.MemberRepository;
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
 import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
+import com.stepaniuk.nerdysoft.testspecific.SqlStatementCounter;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +36,9 @@ public class BorrowedBookRepositoryTest {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private BorrowedBookHistoryRepository borrowedBookHistoryRepository;
+
     @Test
     void shouldSaveBorrowedBook(){
         // given
@@ -40,7 +49,7 @@ public class BorrowedBookRepositoryTest {
                 () -> new MemberNotFoundByIdException(1L)
         );
 
-        BorrowedBook borrowedBookToSave = new BorrowedBook(null, book, member, Instant.MIN, Instant.MAX);
+        BorrowedBook borrowedBookToSave = new BorrowedBook(null, book, member, Instant.MIN, Instant.MAX, Instant.MAX);
 
         // when
         BorrowedBook savedBorrowedBook = borrowedBookRepository.save(borrowedBookToSave);
@@ -56,6 +65,30 @@ public class BorrowedBookRepositoryTest {
         assertEquals(borrowedBookToSave.getMember(), savedBorrowedBook.getMember());
     }
 
+    @Test
+    void shouldRejectSecondOpenLoanOfSameBookForMember() {
+        // given
+        var openLoan = new BorrowedBook(null, bookRepository.getReferenceById(2L),
+                memberRepository.getReferenceById(2L), Instant.now(), Instant.now(), null);
+
+        // when & then
+        assertThrows(DataIntegrityViolationException.class, () -> borrowedBookRepository.saveAndFlush(openLoan));
+    }
+
+    @Test
+    void shouldAllowNewOpenLoanWhenPreviousLoanOfSameBookWasReturned() {
+        // given
+        var openLoan = new BorrowedBook(null, bookRepository.getReferenceById(1L),
+                memberRepository.getReferenceById(1L), Instant.now(), Instant.now(), null);
+
+        // when
+        var savedLoan = borrowedBookRepository.saveAndFlush(openLoan);
+
+        // then
+        assertNotNull(savedLoan.getId());
+        assertNull(savedLoan.getReturnedDate());
+    }
+
     @Test
     void shouldReturnBorrowedBookWhenFindById(){
         // when
@@ -163,4 +196,200 @@ public class BorrowedBookRepositoryTest {
         assertNotNull(borrowedBooks);
         assertFalse(borrowedBooks.isEmpty());
     }
+
+    @Test
+    void shouldNotLoadBookAndMemberWhenFindById() {
+        // given
+        SqlStatementCounter.reset();
+
+        // when
+        BorrowedBook borrowedBook = borrowedBookRepository.findById(1L).orElseThrow();
+
+        // then
+        SqlStatementCounter.assertSelectCount(1);
+        assertFalse(Hibernate.isInitialized(borrowedBook.getBook()));
+        assertFalse(Hibernate.isInitialized(borrowedBook.getMember()));
+    }
+
+    @Test
+    void shouldFetchBooksOfOpenLoansInSingleSelectWhenFindByMemberId() {
+        // given
+        SqlStatementCounter.reset();
+
+        // when
+        var borrowedBooks = borrowedBookRepository.findByMemberIdAndReturnedDateIsNull(2L);
+        borrowedBooks.forEach(borrowedBook -> borrowedBook.getBook().getTitle());
+
+        // then
+        assertEquals(1, borrowedBooks.size());
+        assertTrue(Hibernate.isInitialized(borrowedBooks.get(0).getBook()));
+        SqlStatementCounter.assertSelectCount(1);
+    }
+
+    @Test
+    void shouldFetchMembersOfOpenLoansInSingleSelectWhenFindByBookId() {
+        // given
+        SqlStatementCounter.reset();
+
+        // when
+        var borrowedBooks = borrowedBookRepository.findByBookIdAndReturnedDateIsNull(2L);
+        borrowedBooks.forEach(borrowedBook -> borrowedBook.getMember().getName());
+
+        // then
+        assertEquals(1, borrowedBooks.size());
+        assertTrue(Hibernate.isInitialized(borrowedBooks.get(0).getMember()));
+        SqlStatementCounter.assertSelectCount(1);
+    }
+
+    @Test
+    void shouldReturnTrueOnlyForOpenLoansWhenCheckingExistence() {
+        // when & then
+        assertTrue(borrowedBookRepository.existsByMemberIdAndReturnedDateIsNull(2L));
+        assertFalse(borrowedBookRepository.existsByMemberIdAndReturnedDateIsNull(1L));
+        assertTrue(borrowedBookRepository.existsByBookIdAndReturnedDateIsNull(2L));
+        assertFalse(borrowedBookRepository.existsByBookIdAndReturnedDateIsNull(1L));
+    }
+
+    @Test
+    void shouldCountOnlyOpenLoans() {
+        // when
+        long openLoans = borrowedBookRepository.countByReturnedDateIsNull();
+
+        // then
+        assertEquals(1, openLoans);
+    }
+
+    @Test
+    void shouldReturnOnlyOpenLoansOfMemberWhenFindByMemberIdAndBookIds() {
+        // when
+        var loans = borrowedBookRepository.findByMemberIdAndBookIdInAndReturnedDateIsNull(2L, List.of(1L, 2L));
+
+        // then
+        assertEquals(1, loans.size());
+        assertEquals(2L, loans.get(0).getId());
+        assertTrue(borrowedBookRepository.findByMemberIdAndBookIdInAndReturnedDateIsNull(1L, List.of(1L, 2L)).isEmpty());
+    }
+
+    @Test
+    void shouldStreamLoansWithBookAndMemberIdsWhenStreamingExportRows() {
+        // when
+        try (var rows = borrowedBookRepository.streamExportRows()) {
+            var exportRows = rows.toList();
+
+            // then
+            assertEquals(2, exportRows.size());
+            assertEquals(1L, exportRows.getFirst().getBookId());
+            assertEquals(1L, exportRows.getFirst().getMemberId());
+            assertNotNull(exportRows.getFirst().getReturnedDate());
+            assertFalse(exportRows.getFirst().isArchived());
+            assertEquals(2L, exportRows.getLast().getBookId());
+            assertNull(exportRows.getLast().getReturnedDate());
+        }
+    }
+
+    @Test
+    void shouldReturnLoansWithBookTitlesInSingleSelectWhenFindingMemberLoans() {
+        // given
+        SqlStatementCounter.reset();
+
+        // when
+        var loans = borrowedBookRepository.findMemberLoans(2L, true, true, Limit.of(10));
+
+        // then
+        SqlStatementCounter.assertSelectCount(1);
+        assertEquals(1, loans.size());
+        assertEquals(2L, loans.get(0).getBookId());
+        assertEquals("Harry Potter and the Philosopher's Stone", loans.get(0).getTitle());
+        assertEquals("J.K. Rowling", loans.get(0).getAuthor());
+        assertNull(loans.get(0).getReturnedDate());
+    }
+
+    @Test
+    void shouldFilterByReturnedDateWhenFindingMemberLoans() {
+        // when
+        var open = borrowedBookRepository.findMemberLoans(1L, true, false, Limit.of(10));
+        var returned = borrowedBookRepository.findMemberLoans(1L, false, true, Limit.of(10));
+
+        // then
+        assertTrue(open.isEmpty());
+        assertEquals(1, returned.size());
+        assertEquals(1L, returned.get(0).getId());
+    }
+
+    @Test
+    void shouldIncludeArchivedLoansWhenFindingMemberLoans() {
+        // given
+        borrowedBookHistoryRepository.archiveReturnedBefore(Instant.parse("2024-05-01T00:00:00Z"), 100);
+
+        // when
+        var loans = borrowedBookRepository.findMemberLoans(1L, true, true, Limit.of(10));
+
+        // then
+        assertEquals(1, loans.size());
+        assertEquals("The Lord of the Rings", loans.get(0).getTitle());
+    }
+
+    @Test
+    void shouldReturnOlderLoansWhenFindingMemberLoansBeforeCursor() {
+        // when
+        var loans = borrowedBookRepository.findMemberLoansBefore(1L, true, true,
+                Instant.parse("2024-04-24T22:22:09.266615Z"), 1L, Limit.of(10));
+
+        // then
+        assertTrue(loans.isEmpty());
+    }
+
+    @Test
+    void shouldCloseOnlyOpenLoanOfMemberAndBookWithSingleUpdate() {
+        // given
+        var returnedDate = Instant.parse("2024-05-01T00:00:00Z");
+        SqlStatementCounter.reset();
+
+        // when
+        int closed = borrowedBookRepository.closeOpenLoan(2L, 2L, returnedDate);
+
+        // then
+        SqlStatementCounter.assertSelectCount(0);
+        SqlStatementCounter.assertUpdateCount(1);
+        assertEquals(1, closed);
+        assertEquals(0, borrowedBookRepository.closeOpenLoan(2L, 2L, returnedDate));
+        assertEquals(0, borrowedBookRepository.closeOpenLoan(1L, 1L, returnedDate));
+        assertFalse(borrowedBookRepository.existsByMemberIdAndReturnedDateIsNull(2L));
+    }
+
+    @Test
+    void shouldCloseOpenLoansOfMemberWithSingleStatementAndReturnTheirBookIds() {
+        // given
+        var returnedDate = Instant.parse("2024-05-01T00:00:00Z");
+        SqlStatementCounter.reset();
+
+        // when
+        var closed = borrowedBookRepository.closeOpenLoans(2L, List.of(1L, 2L), returnedDate);
+
+        // then
+        SqlStatementCounter.assertSelectCount(0);
+        SqlStatementCounter.assertUpdateCount(1);
+        assertEquals(List.of(2L), closed);
+        assertTrue(borrowedBookRepository.closeOpenLoans(2L, List.of(2L), returnedDate).isEmpty());
+        assertFalse(borrowedBookRepository.existsByMemberIdAndReturnedDateIsNull(2L));
+    }
+
+    @Test
+    void shouldReturnOpenOverdueLoansInDueDateOrderAfterCursor() {
+        // given
+        var dueDate = Instant.parse("2024-05-08T22:22:09.266615Z");
+
+        // when
+        var firstChunk = borrowedBookRepository.findOverdueAfter(Instant.parse("2024-06-01T00:00:00Z"),
+                Instant.EPOCH, 0L, Limit.of(10));
+        var afterLast = borrowedBookRepository.findOverdueAfter(Instant.parse("2024-06-01T00:00:00Z"),
+                dueDate, 2L, Limit.of(10));
+        var notYetDue = borrowedBookRepository.findOverdueAfter(Instant.parse("2024-05-01T00:00:00Z"),
+                Instant.EPOCH, 0L, Limit.of(10));
+
+        // then
+        assertEquals(List.of(new OverdueLoan(2L, 2L, 2L, dueDate)), firstChunk);
+        assertTrue(afterLast.isEmpty());
+        assertTrue(notYetDue.isEmpty());
+    }
 }
@@ -0,0 +1,231 @@
+package com.stepaniuk.nerdysoft.book.bulk;
+
+import com.stepaniuk.nerdysoft.book.Book;
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.payload.BookUpsertRow;
+import com.stepaniuk.nerdysoft.book.suggest.BookSuggestService;
+import com.stepaniuk.nerdysoft.cache.EntityCacheEvictor;
+import com.stepaniuk.nerdysoft.library.LibraryService;
+import com.stepaniuk.nerdysoft.testspecific.ServiceLevelUnitTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ServiceLevelUnitTest
+@ContextConfiguration(classes = {BookBulkImportService.class, LocalValidatorFactoryBean.class, JacksonAutoConfiguration.class})
+public class BookBulkImportServiceTest {
+    @Autowired
+    private BookBulkImportService bookBulkImportService;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @MockBean
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private EntityCacheEvictor entityCacheEvictor;
+
+    @MockBean
+    private BookSuggestService bookSuggestService;
+
+    @MockBean
+    private LibraryService libraryService;
+
+    @BeforeEach
+    void runCallbacksInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(bookRepository.upsertAllCopies(any(), any(), any())).thenAnswer(invocation -> {
+            String[] titles = invocation.getArgument(0);
+            String[] authors = invocation.getArgument(1);
+            Integer[] copies = invocation.getArgument(2);
+            return IntStream.range(0, titles.length)
+                    .mapToObj(i -> row(i + 100L, titles[i], authors[i], copies[i], true))
+                    .toList();
+        });
+    }
+
+    @Test
+    void shouldCoalesceDuplicateRowsWhenImportingCsv() throws IOException {
+        // given
+        doReturn(List.of(
+                row(1L, "Dune", "Frank Herbert", 4, false),
+                row(2L, "The Hobbit, or There and Back Again", "John Tolkien", 3, true)))
+                .when(bookRepository).upsertAllCopies(any(), any(), any());
+
+        var csv = """
+                title,author
+                Dune,Frank Herbert
+                "Dune",Frank Herbert
+                "The Hobbit, or There and Back Again",John Tolkien
+                "The Hobbit, or There and Back Again",John Tolkien
+                "The Hobbit, or There and Back Again",John Tolkien
+                """;
+
+        // when
+        var report = bookBulkImportService.importBooks(stream(csv), BookImportFormat.CSV);
+
+        // then
+        assertEquals(5, report.getTotalRows());
+        assertEquals(5, report.getImportedRows());
+        assertEquals(0, report.getFailedRows());
+        assertEquals(1, report.getCreatedBooks());
+        assertTrue(report.getErrors().isEmpty());
+
+        var titles = ArgumentCaptor.forClass(String[].class);
+        var authors = ArgumentCaptor.forClass(String[].class);
+        var copies = ArgumentCaptor.forClass(Integer[].class);
+        verify(bookRepository).upsertAllCopies(titles.capture(), authors.capture(), copies.capture());
+        assertArrayEquals(new String[]{"Dune", "The Hobbit, or There and Back Again"}, titles.getValue());
+        assertArrayEquals(new String[]{"Frank Herbert", "John Tolkien"}, authors.getValue());
+        assertArrayEquals(new Integer[]{2, 3}, copies.getValue());
+        verify(bookSuggestService).indexAfterCommit(2L, "The Hobbit, or There and Back Again", "John Tolkien");
+        verify(bookSuggestService, never()).indexAfterCommit(eq(1L), any(), any());
+        verify(entityCacheEvictor).evictAfterCommit(Book.class, 1L);
+        verify(libraryService).allocateAddedCopies(List.of(1L));
+    }
+
+    @Test
+    void shouldReportInvalidRowsWhenImportingNdjson() throws IOException {
+        // given
+        var ndjson = """
+                {"title":"Dune","author":"Frank Herbert"}
+                {"title":"dune","author":"Frank Herbert"}
+                {"title":
+                """;
+
+        // when
+        var report = bookBulkImportService.importBooks(stream(ndjson), BookImportFormat.NDJSON);
+
+        // then
+        assertEquals(3, report.getTotalRows());
+        assertEquals(1, report.getImportedRows());
+        assertEquals(2, report.getFailedRows());
+        assertEquals(1, report.getCreatedBooks());
+        assertEquals(2, report.getErrors().size());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertEquals(3, report.getErrors().get(1).getLine());
+        assertTrue(report.getErrors().get(1).getMessage().startsWith("Malformed row"));
+    }
+
+    @Test
+    void shouldApplyRowsInChunksWhenImportingManyDistinctBooks() throws IOException {
+        // given
+        var rowCount = BookBulkImportService.CHUNK_SIZE * 2 + 1;
+        var csv = IntStream.range(0, rowCount)
+                .mapToObj(i -> "Title " + i + ",Some Author")
+                .collect(Collectors.joining("\n"));
+
+        // when
+        var report = bookBulkImportService.importBooks(stream(csv), BookImportFormat.CSV);
+
+        // then
+        assertEquals(rowCount, report.getImportedRows());
+        assertEquals(rowCount, report.getCreatedBooks());
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(bookRepository, times(3)).upsertAllCopies(any(), any(), any());
+    }
+
+    @Test
+    void shouldReportFailedChunkAndContinueWhenChunkCannotBeSaved() throws IOException {
+        // given
+        doThrow(new DataIntegrityViolationException("value too long"))
+                .doReturn(List.of(row(1L, "Title 500", "Some Author", 1, true)))
+                .when(bookRepository).upsertAllCopies(any(), any(), any());
+
+        var csv = IntStream.range(0, BookBulkImportService.CHUNK_SIZE + 1)
+                .mapToObj(i -> "Title " + i + ",Some Author")
+                .collect(Collectors.joining("\n"));
+
+        // when
+        var report = bookBulkImportService.importBooks(stream(csv), BookImportFormat.CSV);
+
+        // then
+        assertEquals(BookBulkImportService.CHUNK_SIZE + 1, report.getTotalRows());
+        assertEquals(1, report.getImportedRows());
+        assertEquals(BookBulkImportService.CHUNK_SIZE, report.getFailedRows());
+        assertEquals(1, report.getErrors().size());
+        assertEquals(1, report.getErrors().getFirst().getLine());
+    }
+
+    @Test
+    void shouldCapReportedErrorsWhenManyRowsAreInvalid() throws IOException {
+        // given
+        var csv = IntStream.range(0, BookBulkImportService.MAX_REPORTED_ERRORS * 2)
+                .mapToObj(i -> "only-one-column")
+                .collect(Collectors.joining("\n"));
+
+        // when
+        var report = bookBulkImportService.importBooks(stream(csv), BookImportFormat.CSV);
+
+        // then
+        assertEquals(BookBulkImportService.MAX_REPORTED_ERRORS * 2, report.getFailedRows());
+        assertEquals(BookBulkImportService.MAX_REPORTED_ERRORS, report.getErrors().size());
+        assertEquals(1, report.getErrors().getFirst().getLine());
+        assertEquals(BookBulkImportService.MAX_REPORTED_ERRORS, report.getErrors().getLast().getLine());
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void shouldSplitQuotedFieldsWhenParsingCsvLine() {
+        // when
+        var fields = BookBulkImportService.parseCsvLine("\"Say \"\"Hi\"\", World\", Author ");
+
+        // then
+        assertEquals(List.of("Say \"Hi\", World", "Author"), fields);
+    }
+
+    private static BookUpsertRow row(Long id, String title, String author, Integer amount, boolean created) {
+        return new BookUpsertRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+
+            @Override
+            public Integer getAmount() {
+                return amount;
+            }
+
+            @Override
+            public Boolean getCreated() {
+                return created;
+            }
+        };
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
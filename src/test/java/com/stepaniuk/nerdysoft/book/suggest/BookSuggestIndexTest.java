@@ -0,0 +1,140 @@
+package com.stepaniuk.nerdysoft.book.suggest;
+
+import com.stepaniuk.nerdysoft.book.payload.BookSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSuggestIndexTest {
+
+    private final BookSuggestIndex index = new BookSuggestIndex();
+
+    @Test
+    void shouldRankTitlePrefixThenTitleWordThenAuthorWordMatches() {
+        // given
+        index.put(1L, "Thorn Birds", "Colleen Mccullough");
+        index.put(2L, "The Hobbit", "John Tolkien");
+        index.put(3L, "Hobbit Tales", "Some Author");
+        index.put(4L, "Collected Stories", "Hob Smith");
+        index.put(5L, "Shobhana Notes", "Some Author");
+
+        // when
+        var suggestions = index.suggest("hob", 10);
+
+        // then
+        assertEquals(List.of(3L, 2L, 4L), ids(suggestions));
+    }
+
+    @Test
+    void shouldMatchWordStartsCaseInsensitivelyWhenQueryHasTwoCharacters() {
+        // given
+        index.put(1L, "Harry Potter", "Joanne Rowling");
+        index.put(2L, "Charlotte", "Some Author");
+
+        // when
+        var suggestions = index.suggest("HA", 10);
+
+        // then
+        assertEquals(List.of(1L), ids(suggestions));
+    }
+
+    @Test
+    void shouldMatchQuerySpanningWordsAndIgnoreExtraWhitespace() {
+        // given
+        index.put(1L, "The Lord of the Rings", "John Tolkien");
+        index.put(2L, "Lord Jim", "Joseph Conrad");
+
+        // when
+        var suggestions = index.suggest("  lord   of ", 10);
+
+        // then
+        assertEquals(List.of(1L), ids(suggestions));
+    }
+
+    @Test
+    void shouldReturnOnlyTopResultsWhenLimitIsSmallerThanMatches() {
+        // given
+        index.put(1L, "Dune Messiah", "Frank Herbert");
+        index.put(2L, "Dune", "Frank Herbert");
+        index.put(3L, "Children of Dune", "Frank Herbert");
+
+        // when
+        var suggestions = index.suggest("dune", 2);
+
+        // then
+        assertEquals(List.of(2L, 1L), ids(suggestions));
+    }
+
+    @Test
+    void shouldLoadDocumentsInBulkInRankingOrderAndKeepNewerEntries() {
+        // given
+        index.put(2L, "Dune", "Frank Herbert");
+
+        // when
+        index.putAll(Stream.of(
+                new BookSuggestIndex.Document(1L, "Dune Messiah", "Frank Herbert"),
+                new BookSuggestIndex.Document(2L, "Dune Old Title", "Frank Herbert"),
+                new BookSuggestIndex.Document(3L, "Dunes", "Frank Herbert")));
+
+        // then
+        assertEquals(List.of(2L, 3L, 1L), ids(index.suggest("dun", 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void shouldKeepEveryBookFindableAfterManyRemovals() {
+        // given
+        for (long id = 1; id <= 5000; id++) {
+            index.put(id, "Book " + id, "Some Author");
+        }
+
+        // when
+        for (long id = 1; id <= 5000; id += 2) {
+            index.remove(id);
+        }
+
+        // then
+        assertEquals(2500, index.size());
+        assertTrue(index.suggest("book 4999", 10).isEmpty());
+        assertEquals(List.of(5000L), ids(index.suggest("book 5000", 10)));
+        assertEquals(List.of(2L), ids(index.suggest("book 2", 1)));
+    }
+
+    @Test
+    void shouldReflectUpdatesAndRemovals() {
+        // given
+        index.put(1L, "Emma", "Jane Austen");
+        index.put(2L, "Persuasion", "Jane Austen");
+
+        // when
+        index.put(1L, "Mansfield Park", "Jane Austen");
+        index.remove(2L);
+
+        // then
+        assertTrue(index.suggest("emma", 10).isEmpty());
+        assertTrue(index.suggest("persuasion", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.suggest("mansfield", 10)));
+        assertEquals(List.of(1L), ids(index.suggest("austen", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void shouldReturnNothingForQueriesShorterThanMinimumLength() {
+        // given
+        index.put(1L, "It", "Stephen King");
+
+        // when
+        var suggestions = index.suggest("i", 10);
+
+        // then
+        assertTrue(suggestions.isEmpty());
+    }
+
+    private static List<Long> ids(List<BookSuggestion> suggestions) {
+        return suggestions.stream().map(BookSuggestion::getId).toList();
+    }
+}
@@ -0,0 +1,110 @@
+package com.stepaniuk.nerdysoft.cache;
+
+import com.stepaniuk.nerdysoft.book.Book;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.spi.MappingMetamodelImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.*;
+
+public class EntityCacheEvictorTest {
+    private final Cache cache = mock(Cache.class);
+    private final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    private final EntityCacheEvictor entityCacheEvictor = new EntityCacheEvictor(entityManagerFactory);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+        }
+    }
+
+    @Test
+    void shouldEvictImmediatelyWhenNoTransactionIsActive() {
+        // given
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+
+        // when
+        entityCacheEvictor.evictAfterCommit(Book.class, 1L);
+
+        // then
+        verify(cache, times(1)).evict(Book.class, 1L);
+    }
+
+    @Test
+    void shouldLockCachedEntryUntilTransactionCompletes() {
+        // given
+        var session = mock(SharedSessionContractImplementor.class);
+        var cacheAccess = mock(EntityDataAccess.class);
+        var lock = mock(SoftLock.class);
+        var persister = bindTransaction(session, cacheAccess);
+        when(cacheAccess.generateCacheKey(eq(1L), eq(persister), any(), any())).thenReturn("book#1");
+        when(cacheAccess.lockItem(session, "book#1", null)).thenReturn(lock);
+
+        // when
+        entityCacheEvictor.evictAfterCommit(Book.class, 1L);
+
+        // then
+        verify(cacheAccess, times(1)).lockItem(session, "book#1", null);
+        verify(cacheAccess, never()).unlockItem(any(), any(), any());
+
+        // when
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // then
+        verify(cacheAccess, times(1)).unlockItem(session, "book#1", lock);
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void shouldUnlockCachedEntryWhenTransactionRollsBack() {
+        // given
+        var session = mock(SharedSessionContractImplementor.class);
+        var cacheAccess = mock(EntityDataAccess.class);
+        var lock = mock(SoftLock.class);
+        var persister = bindTransaction(session, cacheAccess);
+        when(cacheAccess.generateCacheKey(eq(1L), eq(persister), any(), any())).thenReturn("book#1");
+        when(cacheAccess.lockItem(session, "book#1", null)).thenReturn(lock);
+
+        // when
+        entityCacheEvictor.evictAfterCommit(Book.class, 1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // then
+        verify(cacheAccess, times(1)).unlockItem(session, "book#1", lock);
+    }
+
+    private EntityPersister bindTransaction(SharedSessionContractImplementor session, EntityDataAccess cacheAccess) {
+        var entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(SharedSessionContractImplementor.class)).thenReturn(session);
+        var entityManagerHolder = new EntityManagerHolder(entityManager);
+        entityManagerHolder.setSynchronizedWithTransaction(true);
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, entityManagerHolder);
+        TransactionSynchronizationManager.initSynchronization();
+
+        var sessionFactory = mock(SessionFactoryImplementor.class);
+        var mappingMetamodel = mock(MappingMetamodelImplementor.class);
+        var persister = mock(EntityPersister.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getMappingMetamodel()).thenReturn(mappingMetamodel);
+        when(mappingMetamodel.getEntityDescriptor(Book.class)).thenReturn(persister);
+        when(persister.getCacheAccessStrategy()).thenReturn(cacheAccess);
+        return persister;
+    }
+}
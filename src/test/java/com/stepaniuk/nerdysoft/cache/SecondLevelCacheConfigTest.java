@@ -0,0 +1,54 @@
+package com.stepaniuk.nerdysoft.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecondLevelCacheConfigTest {
+    private final SecondLevelCacheConfig config = new SecondLevelCacheConfig();
+
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void closeCacheManager() {
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+
+    @Test
+    void shouldCreateBookAndMemberRegionsWhenCreatingCacheManager() {
+        // when
+        cacheManager = config.hibernateCacheManager(10, Duration.ofMinutes(1), 20, Duration.ofMinutes(2));
+
+        // then
+        assertNotNull(cacheManager.getCache(SecondLevelCacheConfig.BOOKS_REGION));
+        assertNotNull(cacheManager.getCache(SecondLevelCacheConfig.MEMBERS_REGION));
+    }
+
+    @Test
+    void shouldRecordHitsAndMissesWhenBindingMetrics() {
+        // given
+        cacheManager = config.hibernateCacheManager(10, Duration.ofMinutes(1), 10, Duration.ofMinutes(1));
+        var registry = new SimpleMeterRegistry();
+        config.secondLevelCacheMetrics(cacheManager).bindTo(registry);
+
+        var books = cacheManager.getCache(SecondLevelCacheConfig.BOOKS_REGION);
+
+        // when
+        books.put(1L, "book");
+        books.get(1L);
+        books.get(2L);
+
+        // then
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", SecondLevelCacheConfig.BOOKS_REGION)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", SecondLevelCacheConfig.BOOKS_REGION)
+                .tag("result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,121 @@
+package com.stepaniuk.nerdysoft.cache;
+
+import com.stepaniuk.nerdysoft.book.Book;
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
+import com.stepaniuk.nerdysoft.testspecific.SqlStatementCounter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JpaLevelTest
+@Import({SecondLevelCacheConfig.class, EntityCacheEvictor.class})
+@Sql(scripts = {"classpath:sql/books.sql"})
+public class SecondLevelCacheRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityCacheEvictor entityCacheEvictor;
+
+    @Test
+    void shouldNotQueryDatabaseWhenFindingCachedBookById() {
+        // given
+        bookRepository.findById(1L).orElseThrow();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+
+        // when
+        var book = bookRepository.findById(1L).orElseThrow();
+
+        // then
+        assertEquals("The Lord of the Rings", book.getTitle());
+        SqlStatementCounter.assertSelectCount(0);
+    }
+
+    @Test
+    void shouldReturnUpdatedBookWhenFindingByIdAfterUpdate() {
+        // given
+        var book = bookRepository.findById(1L).orElseThrow();
+        book.setTitle("The Fellowship of the Ring");
+        bookRepository.saveAndFlush(book);
+        entityManager.clear();
+
+        // when
+        var updatedBook = bookRepository.findById(1L).orElseThrow();
+
+        // then
+        assertEquals("The Fellowship of the Ring", updatedBook.getTitle());
+    }
+
+    @Test
+    void shouldReturnChangedAmountWhenFindingByIdAfterInventoryUpdate() {
+        // given
+        bookRepository.findById(1L).orElseThrow();
+        entityManager.clear();
+
+        // when
+        bookRepository.decrementAmount(1L);
+        entityCacheEvictor.evictAfterCommit(Book.class, 1L);
+        entityManager.clear();
+
+        // then
+        assertEquals(0, bookRepository.findById(1L).map(Book::getAmount).orElseThrow());
+    }
+
+    @Test
+    void shouldNotCacheBookAgainBeforeInventoryUpdateCompletes() {
+        // given
+        bookRepository.findById(1L).orElseThrow();
+        entityManager.clear();
+        bookRepository.decrementAmount(1L);
+        entityCacheEvictor.evictAfterCommit(Book.class, 1L);
+        bookRepository.findById(1L).orElseThrow();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+
+        // when
+        bookRepository.findById(1L).orElseThrow();
+
+        // then
+        SqlStatementCounter.assertSelectCount(1);
+    }
+
+    @Test
+    void shouldKeepOtherBooksCachedAfterInventoryUpdate() {
+        // given
+        bookRepository.findById(2L).orElseThrow();
+        entityManager.clear();
+
+        // when
+        bookRepository.decrementAmount(1L);
+        entityManager.clear();
+        SqlStatementCounter.reset();
+
+        // then
+        assertEquals("Harry Potter", bookRepository.findById(2L).map(Book::getTitle).orElseThrow());
+        SqlStatementCounter.assertSelectCount(0);
+    }
+
+    @Test
+    void shouldReturnEmptyWhenFindingByIdAfterDelete() {
+        // given
+        var book = bookRepository.findById(2L).orElseThrow();
+
+        // when
+        bookRepository.delete(book);
+        bookRepository.flush();
+        entityManager.clear();
+
+        // then
+        assertTrue(bookRepository.findById(2L).isEmpty());
+    }
+}
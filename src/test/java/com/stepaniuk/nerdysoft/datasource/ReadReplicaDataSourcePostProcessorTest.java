@@ -0,0 +1,65 @@
+package com.stepaniuk.nerdysoft.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ReadReplicaDataSourcePostProcessorTest {
+
+    private final ReadReplicaDataSourcePostProcessor postProcessor = new ReadReplicaDataSourcePostProcessor(
+            new MockEnvironment().withProperty("library.datasource.replica.jdbc-url", "jdbc:postgresql://replica/library"));
+
+    @Test
+    void shouldCloseReplicaPoolWhenPrimaryDataSourceIsDestroyed() {
+        // given
+        var primary = mock(DataSource.class);
+        var replica = replicaOf(postProcessor.postProcessAfterInitialization(primary, "dataSource"));
+
+        // when
+        postProcessor.postProcessBeforeDestruction(primary, "dataSource");
+
+        // then
+        assertEquals("replica", replica.getPoolName());
+        assertTrue(replica.isReadOnly());
+        assertTrue(replica.isClosed());
+    }
+
+    @Test
+    void shouldKeepReplicaPoolOpenWhenOtherBeanIsDestroyed() {
+        // given
+        var replica = replicaOf(postProcessor.postProcessAfterInitialization(mock(DataSource.class), "dataSource"));
+
+        // when
+        postProcessor.postProcessBeforeDestruction(mock(DataSource.class), "otherDataSource");
+
+        // then
+        assertFalse(replica.isClosed());
+    }
+
+    @Test
+    void shouldKeepReadOnlyTransactionsFromFillingEntityCache() {
+        // given
+        var transactionManager = new JpaTransactionManager();
+
+        // when
+        postProcessor.postProcessAfterInitialization(transactionManager, "transactionManager");
+
+        // then
+        assertInstanceOf(ReplicaCacheModeJpaDialect.class, transactionManager.getJpaDialect());
+    }
+
+    private static HikariDataSource replicaOf(Object dataSource) {
+        var routing = (TransactionRoutingDataSource) ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource();
+        return (HikariDataSource) routing.getReplica();
+    }
+}
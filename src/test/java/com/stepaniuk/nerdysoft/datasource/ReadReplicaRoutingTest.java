@@ -0,0 +1,103 @@
+package com.stepaniuk.nerdysoft.datasource;
+
+import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JpaLevelTest
+@Testcontainers
+@Import(ReadReplicaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReadReplicaRoutingTest {
+
+    @Container
+    static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16.0"))
+            .withDatabaseName("replica");
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("library.datasource.replica.enabled", () -> "true");
+        registry.add("library.datasource.replica.jdbc-url", REPLICA::getJdbcUrl);
+        registry.add("library.datasource.replica.username", REPLICA::getUsername);
+        registry.add("library.datasource.replica.password", REPLICA::getPassword);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void shouldRunReadOnlyTransactionsOnReplica() {
+        // given
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        // when
+        var database = transaction.execute(status -> currentDatabase());
+
+        // then
+        assertEquals("replica", database);
+    }
+
+    @Test
+    void shouldOnlyReadEntityCacheInReadOnlyTransactions() {
+        // given
+        var readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        var readWrite = new TransactionTemplate(transactionManager);
+
+        // when
+        var readOnlyMode = readOnly.execute(status -> entityManager.unwrap(Session.class).getCacheMode());
+        var readWriteMode = readWrite.execute(status -> entityManager.unwrap(Session.class).getCacheMode());
+
+        // then
+        assertEquals(CacheMode.GET, readOnlyMode);
+        assertEquals(CacheMode.NORMAL, readWriteMode);
+    }
+
+    @Test
+    void shouldRunReadWriteTransactionsOnPrimary() {
+        // given
+        var transaction = new TransactionTemplate(transactionManager);
+
+        // when
+        var database = transaction.execute(status -> currentDatabase());
+
+        // then
+        assertEquals("test", database);
+    }
+
+    @Test
+    void shouldRunStatementsOutsideTransactionsOnPrimary() {
+        // when & then
+        assertEquals("test", currentDatabase());
+    }
+
+    private String currentDatabase() {
+        return new JdbcTemplate(dataSource).queryForObject("select current_database()", String.class);
+    }
+}
@@ -0,0 +1,74 @@
+package com.stepaniuk.nerdysoft.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    @AfterEach
+    void clearTransactionState() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void shouldUseReplicaInsideReadOnlyTransaction() throws Exception {
+        // given
+        var routing = routingDataSource();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when
+        var connection = routing.getConnection();
+
+        // then
+        assertSame(replicaConnection, connection);
+    }
+
+    @Test
+    void shouldUsePrimaryInsideReadWriteTransaction() throws Exception {
+        // given
+        var routing = routingDataSource();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // when
+        var connection = routing.getConnection();
+
+        // then
+        assertSame(primaryConnection, connection);
+    }
+
+    @Test
+    void shouldUsePrimaryOutsideTransaction() throws Exception {
+        // given
+        var routing = routingDataSource();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when
+        var connection = routing.getConnection();
+
+        // then
+        assertSame(primaryConnection, connection);
+    }
+
+    private TransactionRoutingDataSource routingDataSource() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        var routing = new TransactionRoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+}
@@ -0,0 +1,245 @@
+package com.stepaniuk.nerdysoft.idempotency;
+
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotentRequestInProgressException;
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotentRequestTooLargeException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyService idempotencyService = mock(IdempotencyService.class);
+    private final HandlerExceptionResolver handlerExceptionResolver = mock(HandlerExceptionResolver.class);
+    private final IdempotencyFilter filter = new IdempotencyFilter(idempotencyService, handlerExceptionResolver, 64);
+
+    @Test
+    void shouldPassThroughRequestsWithoutIdempotencyKey() throws Exception {
+        // given
+        var request = new MockHttpServletRequest("POST", "/v1/library/borrowBook");
+        var chain = new MockFilterChain(servlet(200, "{}"));
+
+        // when
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // then
+        verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    void shouldStoreResponseOfFirstExecution() throws Exception {
+        // given
+        var request = keyedRequest("POST", "/v1/books");
+        var response = new MockHttpServletResponse();
+
+        // when
+        filter.doFilter(request, response, new MockFilterChain(servlet(201, "{\"id\":1}")));
+
+        // then
+        var captor = ArgumentCaptor.forClass(IdempotentResponse.class);
+        verify(idempotencyService).complete(eq("key-1"), captor.capture());
+        assertEquals(201, captor.getValue().status());
+        assertEquals("{\"id\":1}", new String(captor.getValue().body(), StandardCharsets.UTF_8));
+        assertEquals("{\"id\":1}", response.getContentAsString());
+        verify(idempotencyService, never()).release(anyString());
+    }
+
+    @Test
+    void shouldReplayStoredResponseWithoutExecutingRequest() throws Exception {
+        // given
+        var request = keyedRequest("POST", "/v1/books");
+        var response = new MockHttpServletResponse();
+        var chain = new MockFilterChain(servlet(201, "{\"id\":2}"));
+        when(idempotencyService.begin(eq("key-1"), anyString())).thenReturn(
+                new IdempotentResponse("hash", 201, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8)));
+
+        // when
+        filter.doFilter(request, response, chain);
+
+        // then
+        assertNull(chain.getRequest());
+        assertEquals(201, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("{\"id\":1}", response.getContentAsString());
+    }
+
+    @Test
+    void shouldReleaseKeyWhenRequestFailsWithServerError() throws Exception {
+        // given
+        var request = keyedRequest("POST", "/v1/library/borrowBook");
+
+        // when
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(servlet(503, "")));
+
+        // then
+        verify(idempotencyService).release("key-1");
+        verify(idempotencyService, never()).complete(anyString(), any());
+    }
+
+    @Test
+    void shouldReleaseKeyWhenRequestThrows() {
+        // given
+        var request = keyedRequest("DELETE", "/v1/members/1");
+        var chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        // when & then
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(request, new MockHttpServletResponse(), chain));
+        verify(idempotencyService).release("key-1");
+    }
+
+    @Test
+    void shouldHashMethodPathAndQueryIntoRequestFingerprint() throws Exception {
+        // given
+        var first = keyedRequest("POST", "/v1/library/borrowBook");
+        first.setQueryString("bookId=1&memberId=1");
+        var second = keyedRequest("POST", "/v1/library/borrowBook");
+        second.setQueryString("bookId=2&memberId=1");
+
+        // when
+        filter.doFilter(first, new MockHttpServletResponse(), new MockFilterChain(servlet(200, "")));
+        filter.doFilter(second, new MockHttpServletResponse(), new MockFilterChain(servlet(200, "")));
+
+        // then
+        var captor = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyService, times(2)).begin(eq("key-1"), captor.capture());
+        assertEquals(64, captor.getAllValues().get(0).length());
+        assertEquals(2, captor.getAllValues().stream().distinct().count());
+    }
+
+    @Test
+    void shouldHashBodyIntoRequestFingerprintAndPassItDownstream() throws Exception {
+        // given
+        var first = keyedRequest("POST", "/v1/members");
+        first.setContent("{\"name\":\"John\"}".getBytes(StandardCharsets.UTF_8));
+        var second = keyedRequest("POST", "/v1/members");
+        second.setContent("{\"name\":\"Jane\"}".getBytes(StandardCharsets.UTF_8));
+        var echo = new StringBuilder();
+        var chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                echo.append(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            }
+        });
+
+        // when
+        filter.doFilter(first, new MockHttpServletResponse(), chain);
+        filter.doFilter(second, new MockHttpServletResponse(), new MockFilterChain(servlet(200, "")));
+
+        // then
+        var captor = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyService, times(2)).begin(eq("key-1"), captor.capture());
+        assertEquals(2, captor.getAllValues().stream().distinct().count());
+        assertEquals("{\"name\":\"John\"}", echo.toString());
+    }
+
+    @Test
+    void shouldHashFormParametersIntoRequestFingerprint() throws Exception {
+        // given
+        var first = keyedRequest("POST", "/v1/library/borrowBook");
+        first.setContentType("application/x-www-form-urlencoded");
+        first.addParameter("bookId", "1");
+        var second = keyedRequest("POST", "/v1/library/borrowBook");
+        second.setContentType("application/x-www-form-urlencoded");
+        second.addParameter("bookId", "2");
+
+        // when
+        filter.doFilter(first, new MockHttpServletResponse(), new MockFilterChain(servlet(200, "")));
+        filter.doFilter(second, new MockHttpServletResponse(), new MockFilterChain(servlet(200, "")));
+
+        // then
+        var captor = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyService, times(2)).begin(eq("key-1"), captor.capture());
+        assertEquals(2, captor.getAllValues().stream().distinct().count());
+    }
+
+    @Test
+    void shouldRejectKeyedRequestWithBodyOverLimit() throws Exception {
+        // given
+        var request = keyedRequest("POST", "/v1/books/bulk");
+        request.setContent(new byte[65]);
+        var response = new MockHttpServletResponse();
+        when(handlerExceptionResolver.resolveException(any(HttpServletRequest.class), eq(response), eq(null),
+                any(IdempotentRequestTooLargeException.class))).thenReturn(new ModelAndView());
+        var chain = new MockFilterChain(servlet(201, "{}"));
+
+        // when
+        filter.doFilter(request, response, chain);
+
+        // then
+        assertNull(chain.getRequest());
+        verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    void shouldResolveServiceExceptionsIntoErrorResponses() throws Exception {
+        // given
+        var request = keyedRequest("POST", "/v1/books");
+        var response = new MockHttpServletResponse();
+        var exception = new IdempotentRequestInProgressException("key-1");
+        when(idempotencyService.begin(eq("key-1"), anyString())).thenThrow(exception);
+        when(handlerExceptionResolver.resolveException(any(HttpServletRequest.class), eq(response), eq(null), eq(exception))).thenReturn(new ModelAndView());
+        var chain = new MockFilterChain(servlet(201, "{}"));
+
+        // when
+        filter.doFilter(request, response, chain);
+
+        // then
+        verify(handlerExceptionResolver).resolveException(any(HttpServletRequest.class), eq(response), eq(null), eq(exception));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void shouldRethrowServiceExceptionsWithoutHandler() {
+        // given
+        var request = keyedRequest("POST", "/v1/books");
+        var exception = new DataAccessResourceFailureException("database down");
+        when(idempotencyService.begin(eq("key-1"), anyString())).thenThrow(exception);
+        var chain = new MockFilterChain(servlet(201, "{}"));
+
+        // when & then
+        var thrown = assertThrows(DataAccessResourceFailureException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), chain));
+        assertEquals(exception, thrown);
+        assertNull(chain.getRequest());
+    }
+
+    private static MockHttpServletRequest keyedRequest(String method, String uri) {
+        var request = new MockHttpServletRequest(method, uri);
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        return request;
+    }
+
+    private static HttpServlet servlet(int status, String body) {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setStatus(status);
+                resp.setContentType("application/json");
+                resp.getWriter().write(body);
+            }
+        };
+    }
+}
@@ -0,0 +1,195 @@
+package com.stepaniuk.nerdysoft.idempotency;
+
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotencyKeyReusedException;
+import com.stepaniuk.nerdysoft.idempotency.exception.IdempotentRequestInProgressException;
+import com.stepaniuk.nerdysoft.idempotency.exception.InvalidIdempotencyKeyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyRepository idempotencyRepository = mock(IdempotencyRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyService idempotencyService = new IdempotencyService(idempotencyRepository, meterRegistry,
+            Duration.ofHours(24), Duration.ofSeconds(30), 100, Duration.ofSeconds(5), Duration.ofMillis(10), 100);
+
+    @Test
+    void shouldReplayCompletedResponseFromMemoryWithoutClaimingAgain() {
+        // given
+        when(idempotencyRepository.claim(eq("key"), eq("hash"), any(), any(), any())).thenReturn(1);
+        assertNull(idempotencyService.begin("key", "hash"));
+        var response = response("hash");
+        idempotencyService.complete("key", response);
+
+        // when
+        var replayed = idempotencyService.begin("key", "hash");
+
+        // then
+        assertSame(response, replayed);
+        verify(idempotencyRepository).claim(eq("key"), eq("hash"), any(), any(), any());
+        verify(idempotencyRepository).complete("key", 200, "application/json", response.body());
+        assertEquals(1, meterRegistry.get(IdempotencyService.REPLAYED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() {
+        // given
+        when(idempotencyRepository.claim(anyString(), anyString(), any(), any(), any())).thenReturn(1);
+        idempotencyService.begin("key", "hash");
+        idempotencyService.complete("key", response("hash"));
+
+        // when & then
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.begin("key", "other-hash"));
+    }
+
+    @Test
+    void shouldReplayResponseStoredByAnotherInstance() {
+        // given
+        var now = Instant.now();
+        var body = "{}".getBytes(StandardCharsets.UTF_8);
+        when(idempotencyRepository.claim(eq("key"), eq("hash"), any(), any(), any())).thenReturn(0);
+        when(idempotencyRepository.findById("key")).thenReturn(Optional.of(
+                new IdempotencyRecord("key", "hash", 201, "application/json", body, now, now.plusSeconds(60), now)));
+
+        // when
+        var replayed = idempotencyService.begin("key", "hash");
+
+        // then
+        assertEquals(201, replayed.status());
+        assertEquals("{}", new String(replayed.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldGiveUpWhenAnotherInstanceKeepsKeyPastWaitTimeout() {
+        // given
+        var service = new IdempotencyService(idempotencyRepository, meterRegistry,
+                Duration.ofHours(24), Duration.ofSeconds(30), 100, Duration.ofMillis(50), Duration.ofMillis(10), 100);
+        var now = Instant.now();
+        when(idempotencyRepository.claim(eq("key"), eq("hash"), any(), any(), any())).thenReturn(0);
+        when(idempotencyRepository.findById("key")).thenReturn(Optional.of(
+                new IdempotencyRecord("key", "hash", null, null, null, now, now.plusSeconds(60), now.plusSeconds(30))));
+
+        // when & then
+        assertThrows(IdempotentRequestInProgressException.class, () -> service.begin("key", "hash"));
+    }
+
+    @Test
+    void shouldMakeInFlightDuplicateWaitForFirstExecution() throws Exception {
+        // given
+        when(idempotencyRepository.claim(eq("key"), eq("hash"), any(), any(), any())).thenReturn(1);
+        assertNull(idempotencyService.begin("key", "hash"));
+        var duplicate = CompletableFuture.supplyAsync(() -> idempotencyService.begin("key", "hash"));
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+
+        // when
+        var response = response("hash");
+        idempotencyService.complete("key", response);
+
+        // then
+        assertSame(response, duplicate.get(5, TimeUnit.SECONDS));
+        verify(idempotencyRepository, times(1)).claim(anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void shouldLetWaitingDuplicateExecuteWhenFirstExecutionIsReleased() throws Exception {
+        // given
+        when(idempotencyRepository.claim(eq("key"), eq("hash"), any(), any(), any())).thenReturn(1);
+        assertNull(idempotencyService.begin("key", "hash"));
+        var duplicate = CompletableFuture.supplyAsync(() -> idempotencyService.begin("key", "hash"));
+        Thread.sleep(50);
+
+        // when
+        idempotencyService.release("key");
+
+        // then
+        assertNull(duplicate.get(5, TimeUnit.SECONDS));
+        verify(idempotencyRepository).release("key");
+        verify(idempotencyRepository, times(2)).claim(anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectKeyLongerThanColumn() {
+        // when & then
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> idempotencyService.begin("k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1), "hash"));
+        verifyNoInteractions(idempotencyRepository);
+    }
+
+    @Test
+    void shouldClaimWithLeaseShorterThanTtl() {
+        // given
+        when(idempotencyRepository.claim(eq("key"), eq("hash"), any(), any(), any())).thenReturn(1);
+
+        // when
+        idempotencyService.begin("key", "hash");
+
+        // then
+        var createdAt = ArgumentCaptor.forClass(Instant.class);
+        var expiresAt = ArgumentCaptor.forClass(Instant.class);
+        var lockedUntil = ArgumentCaptor.forClass(Instant.class);
+        verify(idempotencyRepository).claim(eq("key"), eq("hash"), createdAt.capture(), expiresAt.capture(),
+                lockedUntil.capture());
+        assertEquals(Duration.ofHours(24), Duration.between(createdAt.getValue(), expiresAt.getValue()));
+        assertEquals(Duration.ofSeconds(30), Duration.between(createdAt.getValue(), lockedUntil.getValue()));
+    }
+
+    @Test
+    void shouldRenewLeasesOnlyOfRunningExecutions() {
+        // given
+        when(idempotencyRepository.claim(anyString(), anyString(), any(), any(), any())).thenReturn(1);
+        idempotencyService.begin("running", "hash");
+        idempotencyService.begin("finished", "hash");
+        idempotencyService.complete("finished", response("hash"));
+
+        // when
+        idempotencyService.renewLeases();
+
+        // then
+        verify(idempotencyRepository).renewLeases(eq(Set.of("running")), any());
+    }
+
+    @Test
+    void shouldNotRenewLeasesWhenNothingRuns() {
+        // when
+        idempotencyService.renewLeases();
+
+        // then
+        verifyNoInteractions(idempotencyRepository);
+    }
+
+    @Test
+    void shouldPurgeExpiredKeysInBatches() {
+        // given
+        when(idempotencyRepository.deleteExpired(any(), eq(100))).thenReturn(100, 7);
+
+        // when
+        idempotencyService.purgeExpired();
+
+        // then
+        verify(idempotencyRepository, times(2)).deleteExpired(any(), eq(100));
+    }
+
+    private static IdempotentResponse response(String requestHash) {
+        return new IdempotentResponse(requestHash, 200, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,22 +2,51 @@ package com.stepaniuk.nerdysoft.library;
 
 import com.stepaniuk.nerdysoft.book.Book;
 import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyBorrowedException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotAvailableException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
+import com.stepaniuk.nerdysoft.library.exception.BookAlreadyOnHoldException;
+import com.stepaniuk.nerdysoft.library.exception.BookHoldNotNeededException;
+import com.stepaniuk.nerdysoft.library.exception.LoanBatchFailedException;
+import com.stepaniuk.nerdysoft.library.exception.StatsRebuildInProgressException;
+import com.stepaniuk.nerdysoft.library.payload.BookStatsEntry;
+import com.stepaniuk.nerdysoft.library.payload.BookUtilizationEntry;
+import com.stepaniuk.nerdysoft.library.payload.DailyStatsEntry;
+import com.stepaniuk.nerdysoft.library.payload.HoldResponse;
+import com.stepaniuk.nerdysoft.library.payload.LibraryStatsResponse;
+import com.stepaniuk.nerdysoft.library.payload.LoanBatchResponse;
+import com.stepaniuk.nerdysoft.library.payload.LoanItemResult;
+import com.stepaniuk.nerdysoft.library.payload.LoanItemStatus;
+import com.stepaniuk.nerdysoft.library.payload.MemberStatsEntry;
+import com.stepaniuk.nerdysoft.library.payload.StatsRebuildResponse;
+import com.stepaniuk.nerdysoft.library.stats.LoanStatsService;
 import com.stepaniuk.nerdysoft.member.Member;
 import com.stepaniuk.nerdysoft.member.MemberRepository;
 import com.stepaniuk.nerdysoft.member.exception.MemberCannotBorrowMoreBooksException;
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
 import com.stepaniuk.nerdysoft.testspecific.ControllerLevelUnitTest;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ControllerLevelUnitTest(controllers = LibraryController.class)
@@ -28,9 +57,13 @@ public class LibraryControllerTest {
     @MockBean
     private LibraryService libraryService;
     @MockBean
+    private LoanStatsService loanStatsService;
+    @MockBean
     private MemberRepository memberRepository;
     @MockBean
     private BookRepository bookRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Test
     void shouldReturnErrorResponseWhenBorrowingNonExistingBook() throws Exception, BookNotAvailableException {
@@ -71,6 +104,32 @@ public class LibraryControllerTest {
                 .andExpect(jsonPath("$.status", is(409)))
                 .andExpect(jsonPath("$.title", is("Book not available")))
                 .andExpect(jsonPath("$.detail", is("Book with id 1 is not available")));
+
+        assertEquals(1, meterRegistry.get("library.domain.errors")
+                .tag("exception", "BookNotAvailableException")
+                .tag("outcome", "CONFLICT")
+                .counter().count());
+    }
+
+    @Test
+    void shouldReturnErrorResponseWhenBookIsAlreadyBorrowedByMember() throws Exception, BookNotAvailableException {
+        // given
+        var memberId = 1L;
+        var bookId = 2L;
+        // when
+        doThrow(new BookAlreadyBorrowedException(bookId, memberId)).when(libraryService).borrowBook(bookId, memberId);
+        // then
+
+        mockMvc.perform(post("/library/borrowBook")
+                        .contentType("application/json")
+                        .param("bookId", String.valueOf(bookId))
+                        .param("memberId", String.valueOf(memberId))
+                )
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status", is(409)))
+                .andExpect(jsonPath("$.title", is("Book already borrowed")))
+                .andExpect(jsonPath("$.detail", is("Book with id 2 is already borrowed by member with id 1")))
+                .andExpect(jsonPath("$.instance", is("/books/2")));
     }
 
     @Test
@@ -174,4 +233,186 @@ public class LibraryControllerTest {
                 )
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void shouldReturnItemResultsWhenBorrowingBooks() throws Exception {
+        // given
+        var memberId = 1L;
+        when(libraryService.borrowBooks(memberId, List.of(1L, 2L))).thenReturn(new LoanBatchResponse(memberId, List.of(
+                new LoanItemResult(1L, LoanItemStatus.BORROWED),
+                new LoanItemResult(2L, LoanItemStatus.BORROWED))));
+
+        // when & then
+        mockMvc.perform(post("/library/borrowBooks")
+                        .contentType("application/json")
+                        .param("memberId", String.valueOf(memberId))
+                        .param("bookIds", "1", "2")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.memberId", is(1)))
+                .andExpect(jsonPath("$.items[0].bookId", is(1)))
+                .andExpect(jsonPath("$.items[0].status", is("BORROWED")))
+                .andExpect(jsonPath("$.items[1].bookId", is(2)))
+                .andExpect(jsonPath("$.items[1].status", is("BORROWED")));
+    }
+
+    @Test
+    void shouldReturnErrorResponseWithItemResultsWhenLoanBatchFails() throws Exception {
+        // given
+        var memberId = 1L;
+        when(libraryService.returnBooks(memberId, List.of(1L, 2L))).thenThrow(new LoanBatchFailedException(memberId, List.of(
+                new LoanItemResult(1L, LoanItemStatus.SKIPPED),
+                new LoanItemResult(2L, LoanItemStatus.NOT_BORROWED))));
+
+        // when & then
+        mockMvc.perform(post("/library/returnBooks")
+                        .contentType("application/json")
+                        .param("memberId", String.valueOf(memberId))
+                        .param("bookIds", "1,2")
+                )
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status", is(409)))
+                .andExpect(jsonPath("$.title", is("Loan batch failed")))
+                .andExpect(jsonPath("$.detail", is("Loan batch for member with id 1 failed")))
+                .andExpect(jsonPath("$.instance", is("/members/1")))
+                .andExpect(jsonPath("$.items[0].status", is("SKIPPED")))
+                .andExpect(jsonPath("$.items[1].bookId", is(2)))
+                .andExpect(jsonPath("$.items[1].status", is("NOT_BORROWED")));
+    }
+
+    @Test
+    void shouldReturnCreatedHoldWithQueuePositionWhenPlacingHold() throws Exception {
+        // given
+        var hold = new HoldResponse(7L, 2L, 1L, Instant.parse("2024-01-01T00:00:00Z"),
+                Instant.parse("2024-01-08T00:00:00Z"), 3);
+        when(libraryService.placeHold(2L, 1L)).thenReturn(hold);
+
+        // when & then
+        mockMvc.perform(post("/library/holds")
+                        .contentType("application/json")
+                        .param("bookId", "2")
+                        .param("memberId", "1")
+                )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(7)))
+                .andExpect(jsonPath("$.bookId", is(2)))
+                .andExpect(jsonPath("$.position", is(3)))
+                .andExpect(jsonPath("$.expiresAt", is("2024-01-08T00:00:00Z")));
+    }
+
+    @Test
+    void shouldReturnErrorResponseWhenBookIsAlreadyOnHoldForMember() throws Exception {
+        // given
+        when(libraryService.placeHold(2L, 1L)).thenThrow(new BookAlreadyOnHoldException(2L, 1L));
+
+        // when & then
+        mockMvc.perform(post("/library/holds")
+                        .contentType("application/json")
+                        .param("bookId", "2")
+                        .param("memberId", "1")
+                )
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title", is("Book already on hold")))
+                .andExpect(jsonPath("$.detail", is("Book with id 2 is already on hold for member with id 1")))
+                .andExpect(jsonPath("$.instance", is("/books/2")));
+    }
+
+    @Test
+    void shouldReturnErrorResponseWhenPlacingHoldOnAvailableBook() throws Exception {
+        // given
+        when(libraryService.placeHold(2L, 1L)).thenThrow(new BookHoldNotNeededException(2L));
+
+        // when & then
+        mockMvc.perform(post("/library/holds")
+                        .contentType("application/json")
+                        .param("bookId", "2")
+                        .param("memberId", "1")
+                )
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title", is("Book available")))
+                .andExpect(jsonPath("$.detail", is("Book with id 2 is available to borrow")));
+    }
+
+    @Test
+    void shouldReturnStatsForRequestedMonth() throws Exception {
+        // given
+        var month = YearMonth.of(2024, 5);
+        var stats = new LibraryStatsResponse(month,
+                List.of(new BookStatsEntry(2L, "Title", "Author", 12)),
+                List.of(new MemberStatsEntry(1L, "John", "Doe", 4)),
+                List.of(new BookUtilizationEntry(2L, "Title", "Author", 3L, 1)),
+                List.of(new DailyStatsEntry(LocalDate.of(2024, 5, 1), 5, 2)));
+        when(loanStatsService.getStats(month, 5)).thenReturn(stats);
+
+        // when & then
+        mockMvc.perform(get("/library/stats")
+                        .param("month", "2024-05")
+                        .param("limit", "5")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.month", is("2024-05")))
+                .andExpect(jsonPath("$.topBooks[0].bookId", is(2)))
+                .andExpect(jsonPath("$.topBooks[0].borrowCount", is(12)))
+                .andExpect(jsonPath("$.topMembers[0].surname", is("Doe")))
+                .andExpect(jsonPath("$.utilization[0].utilization", is(0.75)))
+                .andExpect(jsonPath("$.daily[0].day", is("2024-05-01")))
+                .andExpect(jsonPath("$.daily[0].returnCount", is(2)));
+    }
+
+    @Test
+    void shouldReturnRebuildSummary() throws Exception {
+        // given
+        when(loanStatsService.rebuild()).thenReturn(new StatsRebuildResponse(3, 250, 40));
+
+        // when & then
+        mockMvc.perform(post("/library/stats/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.chunks", is(3)))
+                .andExpect(jsonPath("$.loanChanges", is(250)));
+    }
+
+    @Test
+    void shouldReturnErrorResponseWhenStatsAreAlreadyBeingRebuilt() throws Exception {
+        // given
+        when(loanStatsService.rebuild()).thenThrow(new StatsRebuildInProgressException());
+
+        // when & then
+        mockMvc.perform(post("/library/stats/rebuild"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title", is("Stats rebuild in progress")))
+                .andExpect(jsonPath("$.instance", is("/library/stats")));
+    }
+
+    @Test
+    void shouldReturnNumberOfReconciledMembers() throws Exception {
+        // given
+        when(libraryService.reconcileActiveLoans()).thenReturn(3);
+
+        // when & then
+        mockMvc.perform(post("/library/reconcileActiveLoans")
+                        .contentType("application/json")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", is(3)));
+    }
+
+    @Test
+    void shouldStreamNdjsonWhenExportingLoans() throws Exception {
+        // given
+        when(libraryService.exportLoans(any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // when
+        var result = mockMvc.perform(get("/library/loans/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
 }
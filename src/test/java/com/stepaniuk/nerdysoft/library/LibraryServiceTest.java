@@ -4,29 +4,66 @@ import com.stepaniuk.nerdysoft.book.Book;
 import com.stepaniuk.nerdysoft.book.BookRepository;
 import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBook;
 import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.book.borrowed.payload.BorrowedBookExportRow;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyBorrowedException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotAvailableException;
 import com.stepaniuk.nerdysoft.book.exception.BookNotFoundByIdException;
+import com.stepaniuk.nerdysoft.cache.EntityCacheEvictor;
+import com.stepaniuk.nerdysoft.library.exception.LoanBatchFailedException;
+import com.stepaniuk.nerdysoft.library.hold.BookHold;
+import com.stepaniuk.nerdysoft.library.hold.BookHoldService;
+import com.stepaniuk.nerdysoft.library.outbox.LoanEventType;
+import com.stepaniuk.nerdysoft.library.outbox.LoanOutboxEvent;
+import com.stepaniuk.nerdysoft.library.outbox.LoanOutboxRepository;
+import com.stepaniuk.nerdysoft.library.payload.LoanItemResult;
+import com.stepaniuk.nerdysoft.library.payload.LoanItemStatus;
 import com.stepaniuk.nerdysoft.member.Member;
 import com.stepaniuk.nerdysoft.member.MemberRepository;
+import com.stepaniuk.nerdysoft.metrics.LibraryMetricsConfig;
 import com.stepaniuk.nerdysoft.member.exception.MemberCannotBorrowMoreBooksException;
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import com.stepaniuk.nerdysoft.shared.export.NdjsonWriter;
 import com.stepaniuk.nerdysoft.testspecific.ServiceLevelUnitTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ServiceLevelUnitTest
-@ContextConfiguration(classes = {LibraryService.class})
+@ContextConfiguration(classes = {LibraryService.class, NdjsonWriter.class, JacksonAutoConfiguration.class,
+        LibraryMetricsConfig.class, SimpleMeterRegistry.class, AopAutoConfiguration.class})
 @SpringBootTest
 public class LibraryServiceTest {
     @Autowired
@@ -41,13 +78,27 @@ public class LibraryServiceTest {
     @MockBean
     private MemberRepository memberRepository;
 
+    @MockBean
+    private LoanOutboxRepository loanOutboxRepository;
+
+    @MockBean
+    private BookHoldService bookHoldService;
+
+    @MockBean
+    private EntityCacheEvictor entityCacheEvictor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void shouldThrowBookNotFoundWhenBorrowingNonExistingBook() {
 
         var memberId = 1L;
         var bookId = 1L;
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(memberRepository.incrementActiveLoans(eq(memberId), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmount(bookId)).thenReturn(0);
+        when(bookRepository.existsById(bookId)).thenReturn(false);
 
         assertThrows(BookNotFoundByIdException.class, () -> libraryService.borrowBook(bookId, memberId));
     }
@@ -58,12 +109,12 @@ public class LibraryServiceTest {
         var memberId = 1L;
         var bookId = 1L;
 
-        var book = new Book();
-        book.setAmount(0);
-
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(memberRepository.incrementActiveLoans(eq(memberId), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmount(bookId)).thenReturn(0);
+        when(bookRepository.existsById(bookId)).thenReturn(true);
 
         assertThrows(BookNotAvailableException.class, () -> libraryService.borrowBook(bookId, memberId));
+        verify(borrowedBookRepository, never()).saveAndFlush(any(BorrowedBook.class));
     }
 
     @Test
@@ -72,61 +123,144 @@ public class LibraryServiceTest {
         var memberId = 1L;
         var bookId = 1L;
 
-        var book = new Book();
-        book.setAmount(1);
-
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(memberRepository.findById(memberId)).thenReturn(Optional.empty());
+        when(memberRepository.incrementActiveLoans(eq(memberId), anyInt())).thenReturn(0);
+        when(memberRepository.existsById(memberId)).thenReturn(false);
 
         assertThrows(MemberNotFoundByIdException.class, () -> libraryService.borrowBook(bookId, memberId));
+        verify(bookRepository, never()).decrementAmount(bookId);
     }
 
     @Test
     void shouldThrowMemberCannotBorrowMoreBooksExceptionWhenBorrowingMoreThanLimit() {
 
+        var memberId = 1L;
+        var bookId = 2L;
+
+        when(memberRepository.incrementActiveLoans(eq(memberId), anyInt())).thenReturn(0);
+        when(memberRepository.existsById(memberId)).thenReturn(true);
+
+        var exception = assertThrows(MemberCannotBorrowMoreBooksException.class, () -> libraryService.borrowBook(bookId, memberId));
+        assertEquals(memberId, exception.getMemberId());
+        verify(bookRepository, never()).decrementAmount(bookId);
+    }
+
+    @Test
+    void shouldBorrowBookAndChangeAmountOfBooks() throws BookNotAvailableException {
         var memberId = 1L;
         var bookId = 1L;
 
-        var book = new Book();
-        book.setAmount(1);
+        when(memberRepository.incrementActiveLoans(eq(memberId), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmount(bookId)).thenReturn(1);
 
-        var member = new Member();
-        member.setId(memberId);
+        libraryService.borrowBook(bookId, memberId);
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(memberRepository.findById(memberId)).thenReturn(Optional.of(member));
-        when(borrowedBookRepository.findByMemberIdAndReturnedDateIsNull(memberId)).thenReturn(
-                java.util.List.of(new BorrowedBook(), new BorrowedBook(), new BorrowedBook(),
-                        new BorrowedBook(), new BorrowedBook(), new BorrowedBook(),
-                        new BorrowedBook(), new BorrowedBook(), new BorrowedBook(),
-                        new BorrowedBook()
-        ));
+        verify(memberRepository).incrementActiveLoans(eq(memberId), anyInt());
+        verify(bookRepository).decrementAmount(bookId);
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(borrowedBookRepository, never()).findByMemberIdAndReturnedDateIsNull(memberId);
+        verify(borrowedBookRepository).saveAndFlush(any(BorrowedBook.class));
+        verify(entityCacheEvictor).evictAfterCommit(Member.class, memberId);
+        verify(entityCacheEvictor).evictAfterCommit(Book.class, bookId);
+    }
 
-        assertThrows(MemberCannotBorrowMoreBooksException.class, () -> libraryService.borrowBook(bookId, memberId));
+    @Test
+    void shouldSetDueDateOneLoanPeriodAfterBorrowedDateWhenBorrowingBook() throws BookNotAvailableException {
+        // given
+        when(memberRepository.incrementActiveLoans(eq(1L), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmount(2L)).thenReturn(1);
+
+        // when
+        libraryService.borrowBook(2L, 1L);
+
+        // then
+        var loanCaptor = ArgumentCaptor.forClass(BorrowedBook.class);
+        verify(borrowedBookRepository).saveAndFlush(loanCaptor.capture());
+        var loan = loanCaptor.getValue();
+        assertEquals(Duration.ofDays(14), Duration.between(loan.getBorrowedDate(), loan.getDueDate()));
     }
 
     @Test
-    void shouldBorrowBookAndChangeAmountOfBooks() throws BookNotAvailableException {
+    void shouldThrowBookAlreadyBorrowedWhenOpenLoanConstraintIsViolated() {
+        // given
         var memberId = 1L;
         var bookId = 1L;
+        when(memberRepository.incrementActiveLoans(eq(memberId), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmount(bookId)).thenReturn(1);
+        when(borrowedBookRepository.saveAndFlush(any(BorrowedBook.class)))
+                .thenThrow(new DataIntegrityViolationException("borrowed_books_open_member_id_book_id_key"));
+
+        // when
+        var exception = assertThrows(BookAlreadyBorrowedException.class,
+                () -> libraryService.borrowBook(bookId, memberId));
+
+        // then
+        assertEquals(bookId, exception.getBookId());
+        assertEquals(memberId, exception.getMemberId());
+    }
 
-        var book = new Book();
-        book.setAmount(1);
+    @Test
+    void shouldWriteBorrowedEventToOutboxWhenBorrowingBook() throws BookNotAvailableException {
+        // given
+        when(memberRepository.incrementActiveLoans(eq(1L), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmount(2L)).thenReturn(1);
+
+        // when
+        libraryService.borrowBook(2L, 1L);
+
+        // then
+        var events = captureOutboxEvents();
+        assertEquals(1, events.size());
+        assertEquals(LoanEventType.BOOK_BORROWED, events.get(0).getEventType());
+        assertEquals(2L, events.get(0).getBookId());
+        assertEquals(1L, events.get(0).getMemberId());
+        assertNotNull(events.get(0).getOccurredAt());
+    }
 
-        var member = new Member();
-        member.setId(memberId);
+    @Test
+    void shouldNotWriteOutboxEventWhenBorrowingFails() {
+        // given
+        when(memberRepository.incrementActiveLoans(eq(1L), anyInt())).thenReturn(0);
+        when(memberRepository.existsById(1L)).thenReturn(true);
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(memberRepository.findById(memberId)).thenReturn(Optional.of(member));
-        when(borrowedBookRepository.findByMemberIdAndReturnedDateIsNull(memberId)).thenReturn(
-                    java.util.List.of(new BorrowedBook()));
+        // when
+        assertThrows(MemberCannotBorrowMoreBooksException.class, () -> libraryService.borrowBook(2L, 1L));
 
-        libraryService.borrowBook(bookId, memberId);
+        // then
+        verifyNoInteractions(loanOutboxRepository);
+    }
 
-        verify(bookRepository).save(book);
-        verify(borrowedBookRepository).save(any(BorrowedBook.class));
+    @Test
+    void shouldWriteReturnedEventToOutboxWhenReturningBook() {
+        // given
+        when(borrowedBookRepository.closeOpenLoan(eq(1L), eq(2L), any(Instant.class))).thenReturn(1);
+
+        // when
+        libraryService.returnBook(2L, 1L);
+
+        // then
+        var events = captureOutboxEvents();
+        assertEquals(1, events.size());
+        assertEquals(LoanEventType.BOOK_RETURNED, events.get(0).getEventType());
+        assertEquals(2L, events.get(0).getBookId());
+    }
 
-        assertEquals(0, book.getAmount());
+    @Test
+    void shouldRecordBorrowTimerWithExceptionTagWhenBorrowingBook() throws BookNotAvailableException {
+        // given
+        meterRegistry.clear();
+        when(memberRepository.incrementActiveLoans(eq(1L), anyInt())).thenReturn(1, 0);
+        when(memberRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.decrementAmount(1L)).thenReturn(1);
+
+        // when
+        libraryService.borrowBook(1L, 1L);
+        assertThrows(MemberCannotBorrowMoreBooksException.class, () -> libraryService.borrowBook(1L, 1L));
+
+        // then
+        assertEquals(1, meterRegistry.get("library.loans.borrow")
+                .tag("batch", "false").tag("exception", "none").timer().count());
+        assertEquals(1, meterRegistry.get("library.loans.borrow")
+                .tag("batch", "false").tag("exception", "MemberCannotBorrowMoreBooksException").timer().count());
     }
 
     @Test
@@ -134,9 +268,11 @@ public class LibraryServiceTest {
         var memberId = 1L;
         var bookId = 1L;
 
-        when(borrowedBookRepository.findByMemberIdAndBookIdAndReturnedDateIsNull(memberId, bookId)).thenReturn(Optional.empty());
+        when(borrowedBookRepository.closeOpenLoan(eq(memberId), eq(bookId), any(Instant.class))).thenReturn(0);
 
         assertThrows(BookNotFoundByIdException.class, () -> libraryService.returnBook(bookId, memberId));
+        verify(bookRepository, never()).incrementAmount(bookId);
+        verify(memberRepository, never()).decrementActiveLoans(memberId);
     }
 
     @Test
@@ -144,17 +280,313 @@ public class LibraryServiceTest {
         var memberId = 1L;
         var bookId = 1L;
 
-        var borrowedBook = new BorrowedBook();
-        borrowedBook.setBook(new Book());
-        borrowedBook.getBook().setAmount(1);
-
-        when(borrowedBookRepository.findByMemberIdAndBookIdAndReturnedDateIsNull(memberId, bookId)).thenReturn(Optional.of(borrowedBook));
+        when(borrowedBookRepository.closeOpenLoan(eq(memberId), eq(bookId), any(Instant.class))).thenReturn(1);
 
         libraryService.returnBook(bookId, memberId);
 
-        verify(borrowedBookRepository).save(borrowedBook);
-        verify(bookRepository).save(borrowedBook.getBook());
+        verify(borrowedBookRepository).closeOpenLoan(eq(memberId), eq(bookId), any(Instant.class));
+        verify(bookRepository).incrementAmount(bookId);
+        verify(memberRepository).decrementActiveLoans(memberId);
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(borrowedBookRepository, never()).findByMemberIdAndBookIdAndReturnedDateIsNull(memberId, bookId);
+        verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
+        verify(entityCacheEvictor).evictAfterCommit(Member.class, memberId);
+        verify(entityCacheEvictor).evictAfterCommit(Book.class, bookId);
+    }
+
+    @Test
+    void shouldHandReturnedCopyToNextHoldInsteadOfShelvingWhenReturningBook() {
+        // given
+        var hold = new BookHold(5L, 2L, 3L, Instant.now(), Instant.now().plusSeconds(60));
+        when(borrowedBookRepository.closeOpenLoan(eq(1L), eq(2L), any(Instant.class))).thenReturn(1);
+        when(bookHoldService.lockNextEligible(eq(2L), anyInt(), any(Instant.class))).thenReturn(Optional.of(hold));
+        when(memberRepository.incrementActiveLoans(eq(3L), anyInt())).thenReturn(1);
+
+        // when
+        libraryService.returnBook(2L, 1L);
+
+        // then
+        var loanCaptor = ArgumentCaptor.forClass(BorrowedBook.class);
+        verify(borrowedBookRepository).save(loanCaptor.capture());
+        assertNull(loanCaptor.getValue().getReturnedDate());
+        verify(memberRepository).decrementActiveLoans(1L);
+        verify(bookHoldService).fulfil(hold);
+        verify(bookRepository, never()).incrementAmount(any());
+        verify(entityCacheEvictor).evictAfterCommit(Member.class, 3L);
+        verify(entityCacheEvictor, never()).evictAfterCommit(eq(Book.class), any());
+
+        var events = captureOutboxEvents(2);
+        assertEquals(List.of(LoanEventType.BOOK_RETURNED, LoanEventType.BOOK_BORROWED),
+                events.stream().map(LoanOutboxEvent::getEventType).toList());
+        assertEquals(3L, events.get(1).getMemberId());
+    }
+
+    @Test
+    void shouldShelveReturnedCopyWhenHoldMemberReachedLimitMeanwhile() {
+        // given
+        var hold = new BookHold(5L, 2L, 3L, Instant.now(), Instant.now().plusSeconds(60));
+        when(borrowedBookRepository.closeOpenLoan(eq(1L), eq(2L), any(Instant.class))).thenReturn(1);
+        when(bookHoldService.lockNextEligible(eq(2L), anyInt(), any(Instant.class))).thenReturn(Optional.of(hold));
+        when(memberRepository.incrementActiveLoans(eq(3L), anyInt())).thenReturn(0);
+
+        // when
+        libraryService.returnBook(2L, 1L);
+
+        // then
+        verify(bookRepository).incrementAmount(2L);
+        verify(bookHoldService, never()).fulfil(any());
+        verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
+    }
+
+    @Test
+    void shouldLendAddedCopiesToWaitingHoldsUntilNoneIsEligible() {
+        // given
+        var hold = new BookHold(5L, 2L, 3L, Instant.now(), Instant.now().plusSeconds(60));
+        when(bookHoldService.lockNextEligible(eq(2L), anyInt(), any(Instant.class)))
+                .thenReturn(Optional.of(hold))
+                .thenReturn(Optional.empty());
+        when(bookRepository.decrementAmount(2L)).thenReturn(1);
+        when(memberRepository.incrementActiveLoans(eq(3L), anyInt())).thenReturn(1);
+
+        // when
+        var lent = libraryService.allocateAddedCopies(List.of(1L, 2L));
+
+        // then
+        assertEquals(1, lent);
+        verify(bookRepository, never()).decrementAmount(1L);
+        verify(bookRepository).decrementAmount(2L);
+        verify(borrowedBookRepository).save(any(BorrowedBook.class));
+        verify(bookHoldService).fulfil(hold);
+        assertEquals(3L, captureOutboxEvents(1).get(0).getMemberId());
+    }
+
+    @Test
+    void shouldPutAddedCopyBackWhenHoldMemberReachedLimitMeanwhile() {
+        // given
+        var hold = new BookHold(5L, 2L, 3L, Instant.now(), Instant.now().plusSeconds(60));
+        when(bookHoldService.lockNextEligible(eq(2L), anyInt(), any(Instant.class))).thenReturn(Optional.of(hold));
+        when(bookRepository.decrementAmount(2L)).thenReturn(1);
+        when(memberRepository.incrementActiveLoans(eq(3L), anyInt())).thenReturn(0);
+
+        // when
+        var lent = libraryService.allocateAddedCopies(List.of(2L));
+
+        // then
+        assertEquals(0, lent);
+        verify(bookRepository).incrementAmount(2L);
+        verify(bookHoldService, never()).fulfil(any());
+    }
+
+    @Test
+    void shouldShelveOnlyBooksWithoutEligibleHoldWhenReturningBooks() {
+        // given
+        var memberId = 1L;
+        var bookIds = List.of(1L, 2L);
+        var hold = new BookHold(5L, 2L, 3L, Instant.now(), Instant.now().plusSeconds(60));
+        when(borrowedBookRepository.closeOpenLoans(eq(memberId), eq(bookIds), any(Instant.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(bookHoldService.lockNextEligible(eq(2L), anyInt(), any(Instant.class))).thenReturn(Optional.of(hold));
+        when(memberRepository.incrementActiveLoans(eq(3L), anyInt())).thenReturn(1);
+
+        // when
+        libraryService.returnBooks(memberId, bookIds);
+
+        // then
+        verify(bookRepository).incrementAmounts(List.of(1L));
+        verify(bookHoldService).fulfil(hold);
+        verify(entityCacheEvictor).evictAllAfterCommit(Book.class, List.of(1L));
+    }
+
+    @Test
+    void shouldBorrowEveryBookWithSingleMemberUpdateWhenBorrowingBooks() {
+        // given
+        var memberId = 1L;
+        var bookIds = List.of(1L, 2L, 3L);
+        when(memberRepository.incrementActiveLoansBy(eq(memberId), eq(3), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmounts(bookIds)).thenReturn(List.of(3L, 1L, 2L));
+
+        // when
+        var response = libraryService.borrowBooks(memberId, bookIds);
+
+        // then
+        assertEquals(memberId, response.getMemberId());
+        assertEquals(List.of(
+                new LoanItemResult(1L, LoanItemStatus.BORROWED),
+                new LoanItemResult(2L, LoanItemStatus.BORROWED),
+                new LoanItemResult(3L, LoanItemStatus.BORROWED)), response.getItems());
+        verify(memberRepository, never()).incrementActiveLoans(any(), anyInt());
+        verify(bookRepository, never()).decrementAmount(any());
+        verify(entityCacheEvictor).evictAllAfterCommit(Book.class, Set.of(1L, 2L, 3L));
+        verify(borrowedBookRepository).saveAll(anyIterable());
+        verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
+    }
+
+    @Test
+    void shouldReportUnavailableAndMissingBooksWhenBorrowingBooks() {
+        // given
+        var memberId = 1L;
+        var bookIds = List.of(1L, 2L, 3L);
+        var unavailableBook = new Book();
+        unavailableBook.setId(2L);
+        when(memberRepository.incrementActiveLoansBy(eq(memberId), eq(3), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmounts(bookIds)).thenReturn(List.of(1L));
+        when(bookRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(unavailableBook));
+
+        // when
+        var exception = assertThrows(LoanBatchFailedException.class,
+                () -> libraryService.borrowBooks(memberId, bookIds));
+
+        // then
+        assertEquals(List.of(
+                new LoanItemResult(1L, LoanItemStatus.SKIPPED),
+                new LoanItemResult(2L, LoanItemStatus.NOT_AVAILABLE),
+                new LoanItemResult(3L, LoanItemStatus.NOT_FOUND)), exception.getItems());
+        verify(borrowedBookRepository, never()).saveAll(anyIterable());
+    }
+
+    @Test
+    void shouldReportAlreadyBorrowedBooksBeforeReservingCopiesWhenBorrowingBooks() {
+        // given
+        var memberId = 1L;
+        var bookIds = List.of(1L, 2L);
+        var book = new Book();
+        book.setId(2L);
+        var openLoan = new BorrowedBook();
+        openLoan.setBook(book);
+        when(borrowedBookRepository.findByMemberIdAndBookIdInAndReturnedDateIsNull(memberId, bookIds))
+                .thenReturn(List.of(openLoan));
+
+        // when
+        var exception = assertThrows(LoanBatchFailedException.class,
+                () -> libraryService.borrowBooks(memberId, bookIds));
+
+        // then
+        assertEquals(List.of(
+                new LoanItemResult(1L, LoanItemStatus.SKIPPED),
+                new LoanItemResult(2L, LoanItemStatus.ALREADY_BORROWED)), exception.getItems());
+        verify(memberRepository, never()).incrementActiveLoansBy(any(), anyInt(), anyInt());
+        verify(bookRepository, never()).decrementAmounts(any());
+    }
+
+    @Test
+    void shouldRejectDuplicateBookIdsBeforeTouchingRepositoriesWhenBorrowingBooks() {
+        // when
+        var exception = assertThrows(LoanBatchFailedException.class,
+                () -> libraryService.borrowBooks(1L, List.of(1L, 2L, 1L)));
+
+        // then
+        assertEquals(List.of(
+                new LoanItemResult(1L, LoanItemStatus.DUPLICATE),
+                new LoanItemResult(2L, LoanItemStatus.SKIPPED),
+                new LoanItemResult(1L, LoanItemStatus.DUPLICATE)), exception.getItems());
+        verifyNoInteractions(memberRepository, bookRepository, borrowedBookRepository);
+    }
+
+    @Test
+    void shouldThrowMemberCannotBorrowMoreBooksWhenBatchExceedsLimit() {
+        // given
+        var memberId = 1L;
+        when(memberRepository.incrementActiveLoansBy(eq(memberId), eq(2), anyInt())).thenReturn(0);
+        when(memberRepository.existsById(memberId)).thenReturn(true);
+
+        // when & then
+        assertThrows(MemberCannotBorrowMoreBooksException.class,
+                () -> libraryService.borrowBooks(memberId, List.of(1L, 2L)));
+        verify(bookRepository, never()).decrementAmounts(any());
+    }
+
+    @Test
+    void shouldCloseEveryLoanWithSingleUpdateWhenReturningBooks() {
+        // given
+        var memberId = 1L;
+        var bookIds = List.of(1L, 2L);
+        when(borrowedBookRepository.closeOpenLoans(eq(memberId), eq(bookIds), any(Instant.class)))
+                .thenReturn(List.of(2L, 1L));
+
+        // when
+        var response = libraryService.returnBooks(memberId, bookIds);
+
+        // then
+        assertEquals(List.of(
+                new LoanItemResult(1L, LoanItemStatus.RETURNED),
+                new LoanItemResult(2L, LoanItemStatus.RETURNED)), response.getItems());
+        verify(borrowedBookRepository, never()).findByMemberIdAndBookIdInAndReturnedDateIsNull(any(), any());
+        verify(borrowedBookRepository, never()).saveAll(anyIterable());
+        verify(bookRepository).incrementAmounts(bookIds);
+        verify(memberRepository).decrementActiveLoansBy(memberId, 2);
+    }
+
+    @Test
+    void shouldReportBooksNotBorrowedWhenReturningBooks() {
+        // given
+        var memberId = 1L;
+        var bookIds = List.of(1L, 2L);
+        when(borrowedBookRepository.closeOpenLoans(eq(memberId), eq(bookIds), any(Instant.class)))
+                .thenReturn(List.of(1L));
+
+        // when
+        var exception = assertThrows(LoanBatchFailedException.class,
+                () -> libraryService.returnBooks(memberId, bookIds));
+
+        // then
+        assertEquals(List.of(
+                new LoanItemResult(1L, LoanItemStatus.SKIPPED),
+                new LoanItemResult(2L, LoanItemStatus.NOT_BORROWED)), exception.getItems());
+        verify(bookRepository, never()).incrementAmounts(any());
+        verify(memberRepository, never()).decrementActiveLoansBy(any(), anyInt());
+    }
+
+    @Test
+    void shouldReturnNumberOfReconciledMembers() {
+        when(memberRepository.reconcileActiveLoans()).thenReturn(2);
+
+        assertEquals(2, libraryService.reconcileActiveLoans());
+        var inOrder = inOrder(memberRepository);
+        inOrder.verify(memberRepository).lockAll();
+        inOrder.verify(memberRepository).reconcileActiveLoans();
+    }
+
+    @Test
+    void shouldWriteOneJsonLinePerLoanWhenExportingLoans() throws Exception {
+        // given
+        when(borrowedBookRepository.streamExportRows()).thenReturn(Stream.of(
+                new BorrowedBookExportRow(1L, 2L, 3L, Instant.parse("2024-04-24T22:22:09Z"), null, false)));
+        var out = new ByteArrayOutputStream();
+
+        // when
+        var exported = libraryService.exportLoans(out);
+
+        // then
+        assertEquals(1, exported);
+        assertEquals("""
+                {"id":1,"bookId":2,"memberId":3,"borrowedDate":"2024-04-24T22:22:09Z","returnedDate":null,"archived":false}
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldWriteOneBorrowedEventPerBookWhenBorrowingBooks() {
+        // given
+        var bookIds = List.of(1L, 2L);
+        when(memberRepository.incrementActiveLoansBy(eq(1L), eq(2), anyInt())).thenReturn(1);
+        when(bookRepository.decrementAmounts(bookIds)).thenReturn(List.of(1L, 2L));
+
+        // when
+        libraryService.borrowBooks(1L, bookIds);
+
+        // then
+        var events = captureOutboxEvents();
+        assertEquals(List.of(1L, 2L), events.stream().map(LoanOutboxEvent::getBookId).toList());
+        assertTrue(events.stream().allMatch(event -> event.getEventType() == LoanEventType.BOOK_BORROWED));
+    }
+
+    private List<LoanOutboxEvent> captureOutboxEvents() {
+        return captureOutboxEvents(1);
+    }
 
-        assertEquals(2, borrowedBook.getBook().getAmount());
+    @SuppressWarnings("unchecked")
+    private List<LoanOutboxEvent> captureOutboxEvents(int batches) {
+        ArgumentCaptor<List<LoanOutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(loanOutboxRepository, times(batches)).saveAll(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
     }
 }
@@ -0,0 +1,59 @@
+package com.stepaniuk.nerdysoft.library.hold;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class BookHoldExpirerTest {
+
+    private final BookHoldRepository bookHoldRepository = mock(BookHoldRepository.class);
+    private final BookHoldService bookHoldService = mock(BookHoldService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldDeleteBatchesUntilLastBatchIsNotFull() {
+        // given
+        var expirer = new BookHoldExpirer(bookHoldRepository, bookHoldService, meterRegistry, 2, 10);
+        var now = Instant.parse("2025-06-01T00:00:00Z");
+        var firstBatch = holds(1, 2);
+        var secondBatch = holds(3, 1);
+        when(bookHoldRepository.deleteExpired(now, 2)).thenReturn(firstBatch).thenReturn(secondBatch);
+
+        // when
+        var expired = expirer.expire(now);
+
+        // then
+        assertEquals(3, expired);
+        verify(bookHoldService).forget(firstBatch);
+        verify(bookHoldService).forget(secondBatch);
+        assertEquals(3, meterRegistry.get(BookHoldExpirer.EXPIRED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldStopAfterMaxBatchesWhenEveryBatchIsFull() {
+        // given
+        var expirer = new BookHoldExpirer(bookHoldRepository, bookHoldService, meterRegistry, 2, 3);
+        when(bookHoldRepository.deleteExpired(any(), anyInt())).thenReturn(holds(1, 2));
+
+        // when
+        var expired = expirer.expire(Instant.parse("2025-06-01T00:00:00Z"));
+
+        // then
+        assertEquals(6, expired);
+        verify(bookHoldRepository, times(3)).deleteExpired(any(), anyInt());
+    }
+
+    private static List<BookHold> holds(long firstId, int count) {
+        return LongStream.range(firstId, firstId + count)
+                .mapToObj(id -> new BookHold(id, 1L, id, Instant.EPOCH, Instant.EPOCH))
+                .toList();
+    }
+}
@@ -0,0 +1,76 @@
+package com.stepaniuk.nerdysoft.library.hold;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookHoldQueueTest {
+
+    private final BookHoldQueue queue = new BookHoldQueue();
+
+    @Test
+    void shouldKeepHoldsInIdOrderRegardlessOfCommitOrder() {
+        // given
+        queue.add(1L, 30L);
+        queue.add(1L, 10L);
+        queue.add(1L, 20L);
+
+        // when & then
+        assertEquals(1, queue.position(1L, 10L));
+        assertEquals(2, queue.position(1L, 20L));
+        assertEquals(3, queue.position(1L, 30L));
+    }
+
+    @Test
+    void shouldForgetBookWhenLastHoldIsRemoved() {
+        // given
+        queue.add(1L, 10L);
+        queue.add(2L, 11L);
+
+        // when
+        queue.remove(1L, 10L);
+
+        // then
+        assertFalse(queue.hasHolds(1L));
+        assertTrue(queue.hasHolds(2L));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void shouldKeepExistingHoldsWhenLoadingHoldsFromDatabase() {
+        // given
+        queue.add(1L, 10L);
+
+        // when
+        queue.addAll(Stream.of(hold(11L, 1L), hold(12L, 2L)));
+
+        // then
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.position(1L, 11L));
+        assertTrue(queue.hasHolds(2L));
+    }
+
+    @Test
+    void shouldDropHoldsFulfilledElsewhereWhenReplacingHolds() {
+        // given
+        queue.add(1L, 10L);
+        queue.add(1L, 11L);
+
+        // when
+        queue.replaceAll(Stream.of(hold(11L, 1L), hold(12L, 2L)));
+
+        // then
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.position(1L, 11L));
+        assertTrue(queue.hasHolds(2L));
+    }
+
+    private static BookHold hold(Long id, Long bookId) {
+        return new BookHold(id, bookId, 1L, Instant.now(), Instant.now().plusSeconds(60));
+    }
+}
@@ -0,0 +1,85 @@
+package com.stepaniuk.nerdysoft.library.hold;
+
+import com.stepaniuk.nerdysoft.book.Book;
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.member.Member;
+import com.stepaniuk.nerdysoft.member.MemberRepository;
+import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JpaLevelTest
+public class BookHoldRepositoryTest {
+
+    @Autowired
+    private BookHoldRepository bookHoldRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Test
+    void shouldLockOldestHoldOfMemberUnderLimit() {
+        // given
+        var book = bookRepository.save(new Book(null, "Hold Title", "Hold Author", 0));
+        var full = saveMember("Full", 2);
+        var first = saveMember("First", 0);
+        var second = saveMember("Second", 0);
+        var now = Instant.now();
+        bookHoldRepository.saveAllAndFlush(List.of(
+                new BookHold(null, book.getId(), full.getId(), now, now.plus(Duration.ofDays(1))),
+                new BookHold(null, book.getId(), first.getId(), now, now.plus(Duration.ofDays(1))),
+                new BookHold(null, book.getId(), second.getId(), now, now.plus(Duration.ofDays(1)))));
+
+        // when
+        var next = bookHoldRepository.lockNextEligible(book.getId(), 2, now);
+
+        // then
+        assertEquals(first.getId(), next.orElseThrow().getMemberId());
+    }
+
+    @Test
+    void shouldSkipExpiredHoldsWhenLockingNextEligible() {
+        // given
+        var book = bookRepository.save(new Book(null, "Expired Title", "Expired Author", 0));
+        var member = saveMember("Late", 0);
+        var now = Instant.now();
+        bookHoldRepository.saveAndFlush(new BookHold(null, book.getId(), member.getId(), now.minusSeconds(60), now));
+
+        // when & then
+        assertTrue(bookHoldRepository.lockNextEligible(book.getId(), 2, now).isEmpty());
+    }
+
+    @Test
+    void shouldDeleteAndReturnExpiredHolds() {
+        // given
+        var book = bookRepository.save(new Book(null, "Sweep Title", "Sweep Author", 0));
+        var expiredMember = saveMember("Expired", 0);
+        var waitingMember = saveMember("Waiting", 0);
+        var now = Instant.now();
+        var expired = bookHoldRepository.saveAndFlush(
+                new BookHold(null, book.getId(), expiredMember.getId(), now.minusSeconds(60), now.minusSeconds(1)));
+        var waiting = bookHoldRepository.saveAndFlush(
+                new BookHold(null, book.getId(), waitingMember.getId(), now, now.plus(Duration.ofDays(1))));
+
+        // when
+        var deleted = bookHoldRepository.deleteExpired(now, 100);
+
+        // then
+        assertEquals(List.of(expired.getId()), deleted.stream().map(BookHold::getId).toList());
+        assertTrue(bookHoldRepository.existsById(waiting.getId()));
+    }
+
+    private Member saveMember(String name, int activeLoans) {
+        return memberRepository.saveAndFlush(new Member(null, name, "Holder", Instant.now(), activeLoans));
+    }
+}
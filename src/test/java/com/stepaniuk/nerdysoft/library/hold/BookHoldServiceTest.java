@@ -0,0 +1,162 @@
+package com.stepaniuk.nerdysoft.library.hold;
+
+import com.stepaniuk.nerdysoft.book.Book;
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBook;
+import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.book.exception.BookAlreadyBorrowedException;
+import com.stepaniuk.nerdysoft.library.exception.BookAlreadyOnHoldException;
+import com.stepaniuk.nerdysoft.library.exception.BookHoldNotNeededException;
+import com.stepaniuk.nerdysoft.member.MemberRepository;
+import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import com.stepaniuk.nerdysoft.testspecific.ServiceLevelUnitTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ServiceLevelUnitTest
+@ContextConfiguration(classes = {BookHoldService.class, SimpleMeterRegistry.class})
+@SpringBootTest
+public class BookHoldServiceTest {
+    @Autowired
+    private BookHoldService bookHoldService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private BookHoldRepository bookHoldRepository;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @MockBean
+    private BorrowedBookRepository borrowedBookRepository;
+
+    @MockBean
+    private MemberRepository memberRepository;
+
+    @Test
+    void shouldQueueHoldBehindEarlierHoldsWhenBookIsUnavailable() {
+        // given
+        when(memberRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(getBook(2L, 0)));
+        when(bookHoldRepository.saveAndFlush(any(BookHold.class))).thenAnswer(invocation -> {
+            BookHold hold = invocation.getArgument(0);
+            hold.setId(42L);
+            return hold;
+        });
+        when(bookHoldRepository.countByBookIdAndIdLessThan(2L, 42L)).thenReturn(2L);
+
+        // when
+        var response = bookHoldService.placeHold(2L, 1L);
+
+        // then
+        assertEquals(42L, response.getId());
+        assertEquals(3, response.getPosition());
+        assertEquals(Duration.ofDays(7), Duration.between(response.getCreatedAt(), response.getExpiresAt()));
+        assertTrue(bookHoldService.lockNextEligible(2L, 10, Instant.now()).isEmpty());
+        verify(bookHoldRepository).lockNextEligible(any(), anyInt(), any());
+        assertEquals(1, meterRegistry.get(BookHoldService.WAITING_METRIC).gauge().value());
+    }
+
+    @Test
+    void shouldRejectHoldWhenCopyIsAvailable() {
+        // given
+        when(memberRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(getBook(2L, 1)));
+
+        // when & then
+        assertThrows(BookHoldNotNeededException.class, () -> bookHoldService.placeHold(2L, 1L));
+        verify(bookHoldRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void shouldRejectHoldWhenMemberAlreadyBorrowedBook() {
+        // given
+        when(memberRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(getBook(2L, 0)));
+        when(borrowedBookRepository.findByMemberIdAndBookIdAndReturnedDateIsNull(1L, 2L))
+                .thenReturn(Optional.of(new BorrowedBook()));
+
+        // when & then
+        assertThrows(BookAlreadyBorrowedException.class, () -> bookHoldService.placeHold(2L, 1L));
+    }
+
+    @Test
+    void shouldRejectSecondHoldOfSameMemberOnSameBook() {
+        // given
+        when(memberRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(getBook(2L, 0)));
+        when(bookHoldRepository.saveAndFlush(any(BookHold.class)))
+                .thenThrow(new DataIntegrityViolationException("book_holds_book_id_member_id_key"));
+
+        // when & then
+        assertThrows(BookAlreadyOnHoldException.class, () -> bookHoldService.placeHold(2L, 1L));
+    }
+
+    @Test
+    void shouldThrowMemberNotFoundWhenPlacingHoldForNonExistingMember() {
+        // given
+        when(memberRepository.existsById(1L)).thenReturn(false);
+
+        // when & then
+        assertThrows(MemberNotFoundByIdException.class, () -> bookHoldService.placeHold(2L, 1L));
+        verify(bookRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldFindHoldPlacedThroughAnotherInstanceWhenMirrorIsEmpty() {
+        // given
+        var now = Instant.now();
+        var hold = new BookHold(5L, 99L, 1L, now, now.plusSeconds(60));
+        when(bookHoldRepository.lockNextEligible(99L, 10, now)).thenReturn(Optional.of(hold));
+
+        // when
+        var next = bookHoldService.lockNextEligible(99L, 10, now);
+
+        // then
+        assertEquals(Optional.of(hold), next);
+    }
+
+    @Test
+    void shouldDropFulfilledHoldFromQueue() {
+        // given
+        var hold = new BookHold(5L, 3L, 1L, Instant.now(), Instant.now().plusSeconds(60));
+        when(bookHoldRepository.streamAllInQueueOrder()).thenReturn(Stream.of(hold));
+        bookHoldService.loadQueue();
+
+        // when
+        bookHoldService.fulfil(hold);
+
+        // then
+        verify(bookHoldRepository).delete(hold);
+        assertEquals(0, meterRegistry.get(BookHoldService.WAITING_METRIC).gauge().value());
+    }
+
+    private static Book getBook(Long id, int amount) {
+        var book = new Book();
+        book.setId(id);
+        book.setAmount(amount);
+        return book;
+    }
+}
@@ -0,0 +1,105 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class LoanOutboxDispatcherTest {
+
+    private final LoanOutboxRepository loanOutboxRepository = mock(LoanOutboxRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<LoanEvent> delivered = new ArrayList<>();
+
+    @Test
+    void shouldDeliverEventsInIdOrderAndDeleteThemWhenDispatching() {
+        // given
+        var dispatcher = dispatcher(List.of(delivered::addAll), 10, 5);
+        when(loanOutboxRepository.lockNextBatch(10)).thenReturn(List.of(
+                outboxEvent(1L, LoanEventType.BOOK_BORROWED),
+                outboxEvent(2L, LoanEventType.BOOK_RETURNED)));
+
+        // when
+        var dispatched = dispatcher.dispatch();
+
+        // then
+        assertEquals(2, dispatched);
+        assertEquals(List.of(1L, 2L), delivered.stream().map(LoanEvent::getId).toList());
+        assertEquals(LoanEventType.BOOK_RETURNED, delivered.get(1).getType());
+        verify(loanOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(transactionManager).commit(any());
+        assertEquals(2, meterRegistry.get(LoanOutboxDispatcher.DISPATCHED_METRIC).counter().count());
+        assertEquals(2, meterRegistry.get(LoanOutboxDispatcher.LAG_METRIC).timer().count());
+    }
+
+    @Test
+    void shouldKeepDispatchingWhileBatchesAreFull() {
+        // given
+        var dispatcher = dispatcher(List.of(delivered::addAll), 1, 5);
+        when(loanOutboxRepository.lockNextBatch(1))
+                .thenReturn(List.of(outboxEvent(1L, LoanEventType.BOOK_BORROWED)))
+                .thenReturn(List.of(outboxEvent(2L, LoanEventType.BOOK_BORROWED)))
+                .thenReturn(List.of());
+
+        // when
+        var dispatched = dispatcher.dispatch();
+
+        // then
+        assertEquals(2, dispatched);
+        verify(loanOutboxRepository, times(3)).lockNextBatch(1);
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void shouldKeepEventsInOutboxWhenSinkFails() {
+        // given
+        LoanEventSink failingSink = events -> {
+            throw new IllegalStateException("sink is down");
+        };
+        var dispatcher = dispatcher(List.of(delivered::addAll, failingSink), 10, 5);
+        when(loanOutboxRepository.lockNextBatch(10)).thenReturn(List.of(outboxEvent(1L, LoanEventType.BOOK_BORROWED)));
+
+        // when
+        assertThrows(IllegalStateException.class, dispatcher::dispatch);
+
+        // then
+        verify(loanOutboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void shouldNotTouchSinksWhenOutboxIsEmpty() {
+        // given
+        var sink = mock(LoanEventSink.class);
+        var dispatcher = dispatcher(List.of(sink), 10, 5);
+        when(loanOutboxRepository.lockNextBatch(anyInt())).thenReturn(List.of());
+
+        // when
+        var dispatched = dispatcher.dispatch();
+
+        // then
+        assertEquals(0, dispatched);
+        verifyNoInteractions(sink);
+    }
+
+    private LoanOutboxDispatcher dispatcher(List<LoanEventSink> sinks, int batchSize, int maxBatches) {
+        return new LoanOutboxDispatcher(loanOutboxRepository, new TransactionTemplate(transactionManager), sinks,
+                meterRegistry, batchSize, maxBatches);
+    }
+
+    private static LoanOutboxEvent outboxEvent(Long id, LoanEventType type) {
+        return new LoanOutboxEvent(id, type, 10L + id, 1L, Instant.now().minusSeconds(1));
+    }
+}
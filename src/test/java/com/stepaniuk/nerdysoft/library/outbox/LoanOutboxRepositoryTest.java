@@ -0,0 +1,64 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JpaLevelTest
+public class LoanOutboxRepositoryTest {
+
+    @Autowired
+    private LoanOutboxRepository loanOutboxRepository;
+
+    @Test
+    void shouldLockOldestEventsFirstWhenLockingNextBatch() {
+        // given
+        var saved = loanOutboxRepository.saveAllAndFlush(List.of(
+                new LoanOutboxEvent(null, LoanEventType.BOOK_BORROWED, 1L, 1L, Instant.now()),
+                new LoanOutboxEvent(null, LoanEventType.BOOK_RETURNED, 1L, 1L, Instant.now()),
+                new LoanOutboxEvent(null, LoanEventType.BOOK_BORROWED, 2L, 1L, Instant.now())));
+
+        // when
+        var batch = loanOutboxRepository.lockNextBatch(2);
+
+        // then
+        assertEquals(List.of(saved.get(0).getId(), saved.get(1).getId()),
+                batch.stream().map(LoanOutboxEvent::getId).toList());
+    }
+
+    @Test
+    void shouldLockEventsInOccurrenceOrderWhenIdsAreOutOfOrder() {
+        // given
+        var now = Instant.now();
+        var saved = loanOutboxRepository.saveAllAndFlush(List.of(
+                new LoanOutboxEvent(null, LoanEventType.BOOK_RETURNED, 1L, 1L, now),
+                new LoanOutboxEvent(null, LoanEventType.BOOK_BORROWED, 1L, 1L, now.minusSeconds(1))));
+
+        // when
+        var batch = loanOutboxRepository.lockNextBatch(10);
+
+        // then
+        assertEquals(List.of(saved.get(1).getId(), saved.get(0).getId()),
+                batch.stream().map(LoanOutboxEvent::getId).toList());
+    }
+
+    @Test
+    void shouldRemoveDispatchedEventsWhenDeletingBatch() {
+        // given
+        var saved = loanOutboxRepository.saveAllAndFlush(List.of(
+                new LoanOutboxEvent(null, LoanEventType.BOOK_BORROWED, 1L, 1L, Instant.now()),
+                new LoanOutboxEvent(null, LoanEventType.BOOK_RETURNED, 1L, 1L, Instant.now())));
+
+        // when
+        loanOutboxRepository.deleteAllByIdInBatch(List.of(saved.get(0).getId()));
+
+        // then
+        assertEquals(List.of(saved.get(1).getId()),
+                loanOutboxRepository.lockNextBatch(10).stream().map(LoanOutboxEvent::getId).toList());
+    }
+}
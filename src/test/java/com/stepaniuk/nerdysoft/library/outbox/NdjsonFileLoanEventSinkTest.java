@@ -0,0 +1,43 @@
+package com.stepaniuk.nerdysoft.library.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stepaniuk.nerdysoft.shared.export.NdjsonWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NdjsonFileLoanEventSinkTest {
+
+    @TempDir
+    private Path directory;
+
+    private final NdjsonWriter ndjsonWriter = new NdjsonWriter(new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+    @Test
+    void shouldAppendOneLinePerEventAcrossBatches() throws Exception {
+        // given
+        var path = directory.resolve("events/loan-events.ndjson");
+        var sink = new NdjsonFileLoanEventSink(ndjsonWriter, path);
+        var occurredAt = Instant.parse("2024-04-24T22:22:09Z");
+
+        // when
+        sink.deliver(List.of(new LoanEvent(1L, LoanEventType.BOOK_BORROWED, 2L, 3L, occurredAt)));
+        sink.deliver(List.of(new LoanEvent(2L, LoanEventType.BOOK_RETURNED, 2L, 3L, occurredAt)));
+
+        // then
+        assertEquals(List.of(
+                "{\"id\":1,\"type\":\"BOOK_BORROWED\",\"bookId\":2,\"memberId\":3,\"occurredAt\":\"2024-04-24T22:22:09Z\"}",
+                "{\"id\":2,\"type\":\"BOOK_RETURNED\",\"bookId\":2,\"memberId\":3,\"occurredAt\":\"2024-04-24T22:22:09Z\"}"),
+                Files.readAllLines(path));
+    }
+}
@@ -0,0 +1,177 @@
+package com.stepaniuk.nerdysoft.library.overdue;
+
+import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.book.borrowed.payload.OverdueLoan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OverdueLoanScannerTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+    private static final Instant DUE = Instant.parse("2025-05-20T12:00:00Z");
+
+    private final BorrowedBookRepository borrowedBookRepository = mock(BorrowedBookRepository.class);
+    private final ScanCheckpointRepository scanCheckpointRepository = mock(ScanCheckpointRepository.class);
+    private final List<OverdueReminder> reminders = new CopyOnWriteArrayList<>();
+    private final List<String> savedCheckpoints = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        when(scanCheckpointRepository.save(any(ScanCheckpoint.class))).thenAnswer(invocation -> {
+            ScanCheckpoint checkpoint = invocation.getArgument(0);
+            savedCheckpoints.add(checkpoint.getLastId() + ":" + checkpoint.getProcessed() + ":" + checkpoint.isCompleted());
+            return checkpoint;
+        });
+    }
+
+    @Test
+    void shouldRemindEveryOverdueLoanAndCheckpointAfterEachWave() {
+        // given
+        var scanner = scanner(reminders::addAll, 2, 2);
+        when(borrowedBookRepository.findOverdueAfter(NOW, Instant.EPOCH, 0L, Limit.of(2))).thenReturn(loans(1, 2));
+        when(borrowedBookRepository.findOverdueAfter(NOW, DUE, 2L, Limit.of(2))).thenReturn(loans(3, 4));
+        when(borrowedBookRepository.findOverdueAfter(NOW, DUE, 4L, Limit.of(2))).thenReturn(loans(5));
+
+        // when
+        var reminded = scanner.scan(NOW);
+
+        // then
+        assertEquals(5, reminded);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), reminders.stream().map(OverdueReminder::getLoanId).sorted().toList());
+        assertEquals(List.of("4:4:false", "5:5:true"), savedCheckpoints);
+        assertEquals(5, meterRegistry.get(OverdueLoanScanner.REMINDED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldResumeAfterCheckpointOfUnfinishedScanOfSameDay() {
+        // given
+        var scanner = scanner(reminders::addAll, 2, 2);
+        when(scanCheckpointRepository.findById(OverdueLoanScanner.CHECKPOINT_NAME)).thenReturn(Optional.of(
+                new ScanCheckpoint(OverdueLoanScanner.CHECKPOINT_NAME, LocalDate.of(2025, 6, 1), DUE, 4L, 4, false, NOW)));
+        when(borrowedBookRepository.findOverdueAfter(NOW, DUE, 4L, Limit.of(2))).thenReturn(loans(5));
+
+        // when
+        var reminded = scanner.scan(NOW);
+
+        // then
+        assertEquals(1, reminded);
+        verify(borrowedBookRepository, never()).findOverdueAfter(any(), eq(Instant.EPOCH), any(), any());
+        assertEquals(List.of("5:5:true"), savedCheckpoints);
+    }
+
+    @Test
+    void shouldSkipScanWhenTodaysScanIsCompleted() {
+        // given
+        var scanner = scanner(reminders::addAll, 2, 2);
+        when(scanCheckpointRepository.findById(OverdueLoanScanner.CHECKPOINT_NAME)).thenReturn(Optional.of(
+                new ScanCheckpoint(OverdueLoanScanner.CHECKPOINT_NAME, LocalDate.of(2025, 6, 1), DUE, 5L, 5, true, NOW)));
+
+        // when
+        var reminded = scanner.scan(NOW);
+
+        // then
+        assertEquals(0, reminded);
+        verifyNoInteractions(borrowedBookRepository);
+    }
+
+    @Test
+    void shouldStartNewScanWhenCheckpointIsFromPreviousDay() {
+        // given
+        var scanner = scanner(reminders::addAll, 2, 2);
+        when(scanCheckpointRepository.findById(OverdueLoanScanner.CHECKPOINT_NAME)).thenReturn(Optional.of(
+                new ScanCheckpoint(OverdueLoanScanner.CHECKPOINT_NAME, LocalDate.of(2025, 5, 31), DUE, 5L, 5, true, NOW)));
+        when(borrowedBookRepository.findOverdueAfter(NOW, Instant.EPOCH, 0L, Limit.of(2))).thenReturn(loans(1));
+
+        // when
+        var reminded = scanner.scan(NOW);
+
+        // then
+        assertEquals(1, reminded);
+        assertEquals(List.of("1:1:true"), savedCheckpoints);
+    }
+
+    @Test
+    void shouldKeepCheckpointBeforeWaveWhenNotifierFails() {
+        // given
+        var scanner = scanner(batch -> {
+            if (batch.stream().anyMatch(reminder -> reminder.getLoanId() == 3L)) {
+                throw new IllegalStateException("mail server down");
+            }
+        }, 2, 1);
+        when(borrowedBookRepository.findOverdueAfter(NOW, Instant.EPOCH, 0L, Limit.of(2))).thenReturn(loans(1, 2));
+        when(borrowedBookRepository.findOverdueAfter(NOW, DUE, 2L, Limit.of(2))).thenReturn(loans(3, 4));
+
+        // when & then
+        assertThrows(IllegalStateException.class, () -> scanner.scan(NOW));
+        assertEquals(List.of("2:2:false"), savedCheckpoints);
+    }
+
+    @Test
+    void shouldChargeFinePerStartedDayUpToMaximum() {
+        // given
+        var scanner = scanner(reminders::addAll, 2, 2);
+
+        // when
+        var hourLate = scanner.toReminder(new OverdueLoan(1L, 2L, 3L, NOW.minus(Duration.ofHours(1))), NOW);
+        var threeDaysLate = scanner.toReminder(new OverdueLoan(1L, 2L, 3L, NOW.minus(Duration.ofDays(3))), NOW);
+        var yearLate = scanner.toReminder(new OverdueLoan(1L, 2L, 3L, NOW.minus(Duration.ofDays(365))), NOW);
+
+        // then
+        assertEquals(1, hourLate.getDaysOverdue());
+        assertEquals(new BigDecimal("0.25"), hourLate.getFine());
+        assertEquals(3, threeDaysLate.getDaysOverdue());
+        assertEquals(new BigDecimal("0.75"), threeDaysLate.getFine());
+        assertEquals(new BigDecimal("10.00"), yearLate.getFine());
+    }
+
+    @Test
+    void shouldNotifyChunksOfOneWaveConcurrently() {
+        // given
+        var threads = new CopyOnWriteArrayList<Thread>();
+        var scanner = scanner(batch -> threads.add(Thread.currentThread()), 1, 3);
+        when(borrowedBookRepository.findOverdueAfter(NOW, Instant.EPOCH, 0L, Limit.of(1))).thenReturn(loans(1));
+        when(borrowedBookRepository.findOverdueAfter(NOW, DUE, 1L, Limit.of(1))).thenReturn(loans(2));
+        when(borrowedBookRepository.findOverdueAfter(NOW, DUE, 2L, Limit.of(1))).thenReturn(List.of());
+
+        // when
+        scanner.scan(NOW);
+
+        // then
+        assertEquals(2, threads.stream().distinct().count());
+        assertTrue(threads.stream().allMatch(Thread::isVirtual));
+        assertFalse(threads.contains(Thread.currentThread()));
+    }
+
+    private OverdueLoanScanner scanner(OverdueNotifier notifier, int chunkSize, int parallelism) {
+        return new OverdueLoanScanner(borrowedBookRepository, scanCheckpointRepository, notifier, meterRegistry,
+                chunkSize, parallelism, new BigDecimal("0.25"), new BigDecimal("10.00"));
+    }
+
+    private static List<OverdueLoan> loans(long... ids) {
+        var loans = new ArrayList<OverdueLoan>(ids.length);
+        for (long id : ids) {
+            loans.add(new OverdueLoan(id, 10 + id, 20 + id, DUE));
+        }
+        return loans;
+    }
+}
@@ -0,0 +1,79 @@
+package com.stepaniuk.nerdysoft.library.stats;
+
+import com.stepaniuk.nerdysoft.library.outbox.LoanEventType;
+import com.stepaniuk.nerdysoft.library.outbox.LoanOutboxEvent;
+import com.stepaniuk.nerdysoft.library.outbox.LoanOutboxRepository;
+import com.stepaniuk.nerdysoft.library.payload.BookStatsEntry;
+import com.stepaniuk.nerdysoft.library.payload.BookUtilizationEntry;
+import com.stepaniuk.nerdysoft.library.payload.DailyStatsEntry;
+import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JpaLevelTest
+@Sql(scripts = {"classpath:sql/borrowed_books.sql"})
+public class LoanStatsRepositoryTest {
+
+    private static final Instant BORROWED = Instant.parse("2024-04-24T22:22:09.266615Z");
+    private static final LocalDate APRIL = LocalDate.of(2024, 4, 1);
+
+    @Autowired
+    private LoanStatsRepository loanStatsRepository;
+    @Autowired
+    private LoanOutboxRepository loanOutboxRepository;
+
+    @Test
+    void shouldLeavePendingEventsToDispatcherWhenRebuildingChunk() {
+        // given
+        var pending = loanOutboxRepository.saveAndFlush(
+                new LoanOutboxEvent(null, LoanEventType.BOOK_BORROWED, 2L, 2L, BORROWED));
+
+        // when
+        var rebuilt = loanStatsRepository.rebuildChunk(1L, 2L);
+        var applied = loanStatsRepository.applyOutboxEvents(List.of(pending.getId()));
+
+        // then
+        assertEquals(2, rebuilt);
+        assertEquals(1, applied);
+        assertEquals(List.of(new DailyStatsEntry(LocalDate.of(2024, 4, 24), 2, 1)),
+                loanStatsRepository.findDaily(APRIL, LocalDate.of(2024, 4, 30)));
+        assertEquals(List.of(
+                        new BookStatsEntry(1L, "The Lord of the Rings", "J.R.R. Tolkien", 1),
+                        new BookStatsEntry(2L, "Harry Potter and the Philosopher's Stone", "J.K. Rowling", 1)),
+                loanStatsRepository.findTopBooks(APRIL, Limit.of(10)));
+        assertEquals(List.of(new BookUtilizationEntry(2L, "Harry Potter and the Philosopher's Stone", "J.K. Rowling", 1L, 1)),
+                loanStatsRepository.findMostUtilized(Limit.of(10)));
+    }
+
+    @Test
+    void shouldAddUpBatchesOnSameCounters() {
+        // given
+        var first = loanOutboxRepository.saveAndFlush(
+                new LoanOutboxEvent(null, LoanEventType.BOOK_BORROWED, 1L, 1L, BORROWED));
+        var second = loanOutboxRepository.saveAndFlush(
+                new LoanOutboxEvent(null, LoanEventType.BOOK_BORROWED, 1L, 2L, BORROWED.plusSeconds(60)));
+
+        // when
+        loanStatsRepository.applyOutboxEvents(List.of(first.getId()));
+        loanStatsRepository.applyOutboxEvents(List.of(second.getId()));
+
+        // then
+        assertEquals(2, loanStatsRepository.findTopBooks(APRIL, Limit.of(1)).getFirst().getBorrowCount());
+        assertEquals(2, loanStatsRepository.findTopMembers(APRIL, Limit.of(10)).size());
+    }
+
+    @Test
+    void shouldFindLoanIdRangeAcrossLiveAndArchivedLoans() {
+        // when & then
+        assertEquals(1L, loanStatsRepository.findMinLoanId());
+        assertEquals(2L, loanStatsRepository.findMaxLoanId());
+    }
+}
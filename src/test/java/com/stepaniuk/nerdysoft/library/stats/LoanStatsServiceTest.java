@@ -0,0 +1,114 @@
+package com.stepaniuk.nerdysoft.library.stats;
+
+import com.stepaniuk.nerdysoft.library.exception.StatsRebuildInProgressException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class LoanStatsServiceTest {
+
+    private final LoanStatsRepository loanStatsRepository = mock(LoanStatsRepository.class);
+    private final LoanStatsLock loanStatsLock = mock(LoanStatsLock.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final LoanStatsService loanStatsService = new LoanStatsService(loanStatsRepository, loanStatsLock,
+            new TransactionTemplate(transactionManager), 10);
+
+    @BeforeEach
+    void setUp() {
+        when(loanStatsLock.exclusively(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    }
+
+    @Test
+    void shouldRebuildEveryIdRangeInOneTransactionAfterDeletingCounters() {
+        // given
+        when(loanStatsRepository.findMinLoanId()).thenReturn(5L);
+        when(loanStatsRepository.findMaxLoanId()).thenReturn(27L);
+        when(loanStatsRepository.rebuildChunk(anyLong(), anyLong())).thenReturn(4L);
+
+        // when
+        var response = loanStatsService.rebuild();
+
+        // then
+        assertEquals(3, response.getChunks());
+        assertEquals(12, response.getLoanChanges());
+        var inOrder = inOrder(loanStatsRepository);
+        inOrder.verify(loanStatsRepository).deleteAllStats();
+        inOrder.verify(loanStatsRepository).findMinLoanId();
+        inOrder.verify(loanStatsRepository).rebuildChunk(5L, 14L);
+        inOrder.verify(loanStatsRepository).rebuildChunk(15L, 24L);
+        inOrder.verify(loanStatsRepository).rebuildChunk(25L, 27L);
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void shouldOnlyDeleteCountersWhenThereAreNoLoans() {
+        // given
+        when(loanStatsRepository.findMinLoanId()).thenReturn(null);
+
+        // when
+        var response = loanStatsService.rebuild();
+
+        // then
+        assertEquals(0, response.getChunks());
+        verify(loanStatsRepository).deleteAllStats();
+        verify(loanStatsRepository, never()).rebuildChunk(anyLong(), anyLong());
+    }
+
+    @Test
+    void shouldRollBackWholeRebuildWhenChunkFails() {
+        // given
+        when(loanStatsRepository.findMinLoanId()).thenReturn(1L);
+        when(loanStatsRepository.findMaxLoanId()).thenReturn(30L);
+        when(loanStatsRepository.rebuildChunk(1L, 10L)).thenReturn(4L);
+        when(loanStatsRepository.rebuildChunk(11L, 20L)).thenThrow(new IllegalStateException("boom"));
+
+        // when & then
+        assertThrows(IllegalStateException.class, loanStatsService::rebuild);
+        verify(loanStatsRepository, never()).rebuildChunk(21L, 30L);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void shouldNotRebuildWhileAnotherRebuildHoldsTheLock() {
+        // given
+        reset(loanStatsLock);
+        when(loanStatsLock.exclusively(any())).thenThrow(new StatsRebuildInProgressException());
+
+        // when & then
+        assertThrows(StatsRebuildInProgressException.class, loanStatsService::rebuild);
+        verify(loanStatsRepository, never()).deleteAllStats();
+    }
+
+    @Test
+    void shouldReadStatsOfWholeMonthWithClampedLimit() {
+        // given
+        var month = YearMonth.of(2024, 2);
+        when(loanStatsRepository.findTopBooks(any(), any())).thenReturn(List.of());
+        when(loanStatsRepository.findTopMembers(any(), any())).thenReturn(List.of());
+        when(loanStatsRepository.findMostUtilized(any())).thenReturn(List.of());
+        when(loanStatsRepository.findDaily(any(), any())).thenReturn(List.of());
+
+        // when
+        var stats = loanStatsService.getStats(month, 1000);
+
+        // then
+        assertEquals(month, stats.getMonth());
+        verify(loanStatsRepository).findTopBooks(LocalDate.of(2024, 2, 1), Limit.of(LoanStatsService.MAX_LIMIT));
+        verify(loanStatsRepository).findDaily(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+    }
+}
@@ -0,0 +1,46 @@
+package com.stepaniuk.nerdysoft.library.stats;
+
+import com.stepaniuk.nerdysoft.library.exception.StatsRebuildInProgressException;
+import com.stepaniuk.nerdysoft.library.outbox.LoanEvent;
+import com.stepaniuk.nerdysoft.library.outbox.LoanEventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LoanStatsSinkTest {
+
+    private final LoanStatsRepository loanStatsRepository = mock(LoanStatsRepository.class);
+    private final LoanStatsSink sink = new LoanStatsSink(loanStatsRepository);
+
+    @Test
+    void shouldApplyWholeBatchInOneStatement() {
+        // given
+        var now = Instant.parse("2024-05-01T10:00:00Z");
+        var events = List.of(
+                new LoanEvent(1L, LoanEventType.BOOK_BORROWED, 2L, 3L, now),
+                new LoanEvent(2L, LoanEventType.BOOK_RETURNED, 2L, 3L, now));
+        when(loanStatsRepository.tryLockShared(LoanStatsLock.KEY)).thenReturn(true);
+
+        // when
+        sink.deliver(events);
+
+        // then
+        verify(loanStatsRepository).applyOutboxEvents(List.of(1L, 2L));
+    }
+
+    @Test
+    void shouldRejectBatchWhileStatsAreBeingRebuilt() {
+        // given
+        var events = List.of(new LoanEvent(1L, LoanEventType.BOOK_BORROWED, 2L, 3L, Instant.now()));
+        when(loanStatsRepository.tryLockShared(LoanStatsLock.KEY)).thenReturn(false);
+
+        // when & then
+        assertThrows(StatsRebuildInProgressException.class, () -> sink.deliver(events));
+        verify(loanStatsRepository, never()).applyOutboxEvents(any());
+    }
+}
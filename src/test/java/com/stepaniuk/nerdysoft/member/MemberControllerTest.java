@@ -2,9 +2,12 @@ package com.stepaniuk.nerdysoft.member;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import com.stepaniuk.nerdysoft.member.payload.LoanStatusFilter;
 import com.stepaniuk.nerdysoft.member.payload.MemberCreateRequest;
+import com.stepaniuk.nerdysoft.member.payload.MemberLoanResponse;
 import com.stepaniuk.nerdysoft.member.payload.MemberResponse;
 import com.stepaniuk.nerdysoft.member.payload.MemberUpdateRequest;
+import com.stepaniuk.nerdysoft.shared.pagination.CursorPage;
 import com.stepaniuk.nerdysoft.testspecific.ControllerLevelUnitTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -227,4 +230,68 @@ public class MemberControllerTest {
                 .andExpect(jsonPath("$.detail", is("Member with id 1 not found")))
                 .andExpect(jsonPath("$.instance", is("/members/1")));
     }
+
+    @Test
+    void shouldReturnCursorPageWhenGettingMembersAfterCursor() throws Exception {
+        // given
+        var response = new MemberResponse(1L, "Name", "Surname", Instant.now());
+
+        when(memberService.getMembersAfter("cursor", 20)).thenReturn(new CursorPage<>(List.of(response), null));
+
+        // when & then
+        mockMvc.perform(get("/members")
+                        .contentType("application/json")
+                        .param("after", "cursor")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(response.getId()), Long.class))
+                .andExpect(jsonPath("$.content[0].surname", is(response.getSurname())))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void shouldReturnMemberLoansPageWhenGettingMemberLoans() throws Exception {
+        // given
+        var loan = new MemberLoanResponse(10L, 2L, "The Hobbit", "John Tolkien",
+                Instant.parse("2024-06-01T00:00:00Z"), null);
+
+        when(memberService.getMemberLoans(1L, LoanStatusFilter.OPEN, null, 20))
+                .thenReturn(new CursorPage<>(List.of(loan), "next"));
+
+        // when & then
+        mockMvc.perform(get("/members/1/loans")
+                        .param("status", "OPEN")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(10)))
+                .andExpect(jsonPath("$.content[0].bookId", is(2)))
+                .andExpect(jsonPath("$.content[0].title", is("The Hobbit")))
+                .andExpect(jsonPath("$.content[0].author", is("John Tolkien")))
+                .andExpect(jsonPath("$.content[0].returnedDate").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    void shouldReturnErrorResponseWhenGettingLoansOfNonExistingMember() throws Exception {
+        // given
+        doThrow(new MemberNotFoundByIdException(1L)).when(memberService).getMemberLoans(1L, LoanStatusFilter.ALL, null, 20);
+
+        // when & then
+        mockMvc.perform(get("/members/1/loans"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.title", is("Member not found")))
+                .andExpect(jsonPath("$.instance", is("/members/1")));
+    }
+
+    @Test
+    void shouldReturnAllMemberLoansByDefault() throws Exception {
+        // given
+        when(memberService.getMemberLoans(1L, LoanStatusFilter.ALL, null, 20))
+                .thenReturn(new CursorPage<>(List.of(), null));
+
+        // when & then
+        mockMvc.perform(get("/members/1/loans"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty());
+    }
 }
@@ -1,5 +1,6 @@
 package com.stepaniuk.nerdysoft.member;
 
+import com.stepaniuk.nerdysoft.member.payload.MemberListRow;
 import com.stepaniuk.nerdysoft.member.payload.MemberResponse;
 import com.stepaniuk.nerdysoft.testspecific.MapperLevelUnitTest;
 import org.junit.jupiter.api.Test;
@@ -19,7 +20,7 @@ public class MemberMapperTest {
     @Test
     void shouldMapMemberToMemberResponse() {
         // given
-        Member memberToMap = new Member(1L, "John", "Doe", Instant.now());
+        Member memberToMap = new Member(1L, "John", "Doe", Instant.now(), 0);
         // when
         MemberResponse memberResponse = memberMapper.toResponse(memberToMap);
         // then
@@ -32,5 +33,22 @@ public class MemberMapperTest {
         assertTrue(memberResponse.getLinks().hasLink("self"));
         assertTrue(memberResponse.getLinks().hasLink("update"));
         assertTrue(memberResponse.getLinks().hasLink("delete"));
+        assertEquals("/members/1/loans", memberResponse.getLink("loans").orElseThrow().getHref());
+    }
+
+    @Test
+    void shouldMapMemberListRowToMemberResponse() {
+        // given
+        MemberListRow rowToMap = new MemberListRow(1L, "John", "Doe", Instant.now());
+        // when
+        MemberResponse memberResponse = memberMapper.toResponse(rowToMap);
+        // then
+        assertNotNull(memberResponse);
+        assertEquals(rowToMap.getId(), memberResponse.getId());
+        assertEquals(rowToMap.getName(), memberResponse.getName());
+        assertEquals(rowToMap.getSurname(), memberResponse.getSurname());
+        assertEquals(rowToMap.getMembershipDate(), memberResponse.getMembershipDate());
+        assertEquals("/members/1", memberResponse.getRequiredLink("self").getHref());
+        assertEquals("/members/1/loans", memberResponse.getLink("loans").orElseThrow().getHref());
     }
 }
@@ -1,9 +1,13 @@
 package com.stepaniuk.nerdysoft.member;
 
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import com.stepaniuk.nerdysoft.member.payload.MemberListRow;
 import com.stepaniuk.nerdysoft.testspecific.JpaLevelTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.time.Instant;
@@ -18,11 +22,14 @@ public class MemberRepositoryTest {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void shouldSaveMember() {
         // given
         Instant membershipDate = Instant.now();
-        Member memberToSave = new Member(null, "John", "Doe", membershipDate);
+        Member memberToSave = new Member(null, "John", "Doe", membershipDate, 0);
 
         // when
         Member savedMember = memberRepository.save(memberToSave);
@@ -130,4 +137,134 @@ public class MemberRepositoryTest {
         assertNotNull(members);
         assertFalse(members.isEmpty());
     }
+
+    @Test
+    void shouldKeepBorrowCommittedBetweenReadAndSaveOfMemberUpdate() {
+        // given
+        var staleMember = memberRepository.findById(1L).orElseThrow();
+        memberRepository.incrementActiveLoans(1L, 10);
+
+        // when
+        staleMember.setName("Jane");
+        memberRepository.saveAndFlush(staleMember);
+        entityManager.clear();
+
+        // then
+        var member = memberRepository.findById(1L).orElseThrow();
+        assertEquals("Jane", member.getName());
+        assertEquals(1, member.getActiveLoans());
+    }
+
+    @Test
+    void shouldIncrementActiveLoansWhenBelowLimit() {
+        // when
+        int updated = memberRepository.incrementActiveLoans(1L, 1);
+
+        // then
+        assertEquals(1, updated);
+        assertEquals(1, memberRepository.findById(1L).orElseThrow().getActiveLoans());
+    }
+
+    @Test
+    void shouldNotIncrementActiveLoansWhenLimitReached() {
+        // given
+        memberRepository.incrementActiveLoans(1L, 1);
+
+        // when
+        int updated = memberRepository.incrementActiveLoans(1L, 1);
+
+        // then
+        assertEquals(0, updated);
+        assertEquals(1, memberRepository.findById(1L).orElseThrow().getActiveLoans());
+    }
+
+    @Test
+    void shouldIncrementActiveLoansByWholeBatchWhenWithinLimit() {
+        // when
+        int updated = memberRepository.incrementActiveLoansBy(1L, 3, 3);
+
+        // then
+        assertEquals(1, updated);
+        assertEquals(3, memberRepository.findById(1L).orElseThrow().getActiveLoans());
+    }
+
+    @Test
+    void shouldNotIncrementActiveLoansByWhenBatchExceedsLimit() {
+        // when
+        int updated = memberRepository.incrementActiveLoansBy(1L, 4, 3);
+
+        // then
+        assertEquals(0, updated);
+        assertEquals(0, memberRepository.findById(1L).orElseThrow().getActiveLoans());
+    }
+
+    @Test
+    void shouldNotDecrementActiveLoansByMoreThanOpenLoans() {
+        // given
+        memberRepository.incrementActiveLoansBy(1L, 1, 10);
+
+        // when
+        int updated = memberRepository.decrementActiveLoansBy(1L, 2);
+
+        // then
+        assertEquals(0, updated);
+        assertEquals(1, memberRepository.findById(1L).orElseThrow().getActiveLoans());
+    }
+
+    @Test
+    void shouldNotDecrementActiveLoansBelowZero() {
+        // when
+        int updated = memberRepository.decrementActiveLoans(1L);
+
+        // then
+        assertEquals(0, updated);
+        assertEquals(0, memberRepository.findById(1L).orElseThrow().getActiveLoans());
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/borrowed_books.sql"})
+    void shouldRebuildActiveLoansFromBorrowedBooks() {
+        // given
+        memberRepository.incrementActiveLoans(1L, 10);
+        memberRepository.incrementActiveLoans(1L, 10);
+
+        // when
+        memberRepository.lockAll();
+        int reconciled = memberRepository.reconcileActiveLoans();
+
+        // then
+        assertEquals(2, reconciled);
+        assertEquals(0, memberRepository.findById(1L).orElseThrow().getActiveLoans());
+        assertEquals(1, memberRepository.findById(2L).orElseThrow().getActiveLoans());
+    }
+
+    @Test
+    void shouldReturnPageOfRowsWhenFindingListRows() {
+        // when
+        var page = memberRepository.findListRows(PageRequest.of(0, 10));
+
+        // then
+        assertEquals(1, page.getTotalElements());
+        assertEquals(new MemberListRow(1L, "John", "Doe", Instant.parse("2024-04-24T22:22:09.266615Z")),
+                page.getContent().getFirst());
+    }
+
+    @Test
+    void shouldReturnMembersOrderedBySurnameAndIdWhenFindingFirstPage() {
+        // when
+        var members = memberRepository.findByOrderBySurnameAscIdAsc(Limit.of(10));
+
+        // then
+        assertEquals(1, members.size());
+        assertEquals(1L, members.getFirst().getId());
+    }
+
+    @Test
+    void shouldReturnEmptyListWhenFindingPageAfterLastMember() {
+        // when
+        var members = memberRepository.findPageAfter("Doe", 1L, 10);
+
+        // then
+        assertTrue(members.isEmpty());
+    }
 }
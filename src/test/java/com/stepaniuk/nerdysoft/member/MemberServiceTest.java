@@ -1,14 +1,21 @@
 package com.stepaniuk.nerdysoft.member;
 
 import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import com.stepaniuk.nerdysoft.member.exception.MemberHasBorrowedBooksException;
 import com.stepaniuk.nerdysoft.member.exception.MemberNotFoundByIdException;
+import com.stepaniuk.nerdysoft.member.payload.LoanStatusFilter;
 import com.stepaniuk.nerdysoft.member.payload.MemberCreateRequest;
+import com.stepaniuk.nerdysoft.member.payload.MemberLoanResponse;
+import com.stepaniuk.nerdysoft.member.payload.MemberListRow;
 import com.stepaniuk.nerdysoft.member.payload.MemberUpdateRequest;
+import com.stepaniuk.nerdysoft.shared.exception.InvalidCursorException;
+import com.stepaniuk.nerdysoft.shared.pagination.KeysetCursor;
 import com.stepaniuk.nerdysoft.testspecific.ServiceLevelUnitTest;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer1;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ContextConfiguration;
@@ -57,7 +64,7 @@ public class MemberServiceTest {
     @Test
     void shouldReturnMemberResponseWhenGettingMember(){
         // given
-        var member = new Member(1L, "John", "Doe", Instant.now());
+        var member = new Member(1L, "John", "Doe", Instant.now(), 0);
         when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
 
         // when
@@ -85,7 +92,7 @@ public class MemberServiceTest {
     @Test
     void shouldUpdateAndReturnMemberResponseWhenChangingName() {
         // given
-        var member = new Member(2L, "John", "Doe", Instant.now());
+        var member = new Member(2L, "John", "Doe", Instant.now(), 0);
         var request = new MemberUpdateRequest("Jane", null);
         when(memberRepository.findById(2L)).thenReturn(Optional.of(member));
         when(memberRepository.save(any())).thenAnswer(answer(getFakeSaveAnswer(2L)));
@@ -117,9 +124,9 @@ public class MemberServiceTest {
         // given
         var memberId = 1L;
 
-        var member = new Member(1L, "Name", "Surname", Instant.now());
+        var member = new Member(1L, "Name", "Surname", Instant.now(), 0);
         when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
-        when(borrowedBookRepository.findByMemberIdAndReturnedDateIsNull(1L)).thenReturn(List.of());
+        when(borrowedBookRepository.existsByMemberIdAndReturnedDateIsNull(1L)).thenReturn(false);
 
         // when
         memberService.deleteMember(memberId);
@@ -128,6 +135,19 @@ public class MemberServiceTest {
         verify(memberRepository, times(1)).delete(member);
     }
 
+    @Test
+    void shouldThrowMemberHasBorrowedBooksExceptionWhenDeletingMemberWithOpenLoans() {
+        // given
+        when(borrowedBookRepository.existsByMemberIdAndReturnedDateIsNull(1L)).thenReturn(true);
+
+        // when
+        var exception = assertThrows(MemberHasBorrowedBooksException.class, () -> memberService.deleteMember(1L));
+
+        // then
+        assertEquals(1L, exception.getId());
+        verify(memberRepository, never()).delete(any());
+    }
+
     @Test
     void shouldThrowMemberNotFoundByIdExceptionWhenDeletingNonExistingMember() {
         // given
@@ -141,8 +161,8 @@ public class MemberServiceTest {
     void shouldReturnPageOfMemberResponsesWhenGettingAllMembers(){
         // given
         var pageable = PageRequest.of(0, 1);
-        var memberToFind = new Member(1L, "Name", "Surname", Instant.now());
-        when(memberRepository.findAll(eq(pageable))).thenReturn(new PageImpl<>(List.of(memberToFind)));
+        var memberToFind = new MemberListRow(1L, "Name", "Surname", Instant.now());
+        when(memberRepository.findListRows(eq(pageable))).thenReturn(new PageImpl<>(List.of(memberToFind)));
 
         // when
         var membersPage = memberService.getAllMembers(pageable);
@@ -168,4 +188,90 @@ public class MemberServiceTest {
             return member;
         };
     }
+
+    @Test
+    void shouldReturnCursorPageOfMembersWhenSeekingAfterCursor() {
+        // given
+        var cursor = new KeysetCursor("Doe", 1L).encode();
+        var member = new Member(2L, "Jane", "Smith", Instant.now(), 0);
+
+        when(memberRepository.findPageAfter("Doe", 1L, 2)).thenReturn(List.of(member));
+
+        // when
+        var page = memberService.getMembersAfter(cursor, 1);
+
+        // then
+        assertEquals(1, page.getContent().size());
+        assertEquals(member.getId(), page.getContent().getFirst().getId());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldQueryOnlyOpenLoansWhenGettingOpenMemberLoans() {
+        // given
+        var loan = new MemberLoanResponse(10L, 2L, "The Hobbit", "John Tolkien", Instant.parse("2024-06-01T00:00:00Z"), null);
+        when(borrowedBookRepository.findMemberLoans(1L, true, false, Limit.of(21))).thenReturn(List.of(loan));
+
+        // when
+        var page = memberService.getMemberLoans(1L, LoanStatusFilter.OPEN, null, 20);
+
+        // then
+        assertEquals(List.of(loan), page.getContent());
+        assertNull(page.getNextCursor());
+        verify(memberRepository, never()).existsById(any());
+    }
+
+    @Test
+    void shouldReturnCursorOfLastLoanWhenMoreMemberLoansExist() {
+        // given
+        var newer = new MemberLoanResponse(20L, 2L, "The Hobbit", "John Tolkien", Instant.parse("2024-06-01T00:00:00Z"), null);
+        var older = new MemberLoanResponse(10L, 3L, "Dune", "Frank Herbert", Instant.parse("2024-01-01T00:00:00Z"),
+                Instant.parse("2024-01-10T00:00:00Z"));
+        when(borrowedBookRepository.findMemberLoans(1L, true, true, Limit.of(2))).thenReturn(List.of(newer, older));
+
+        // when
+        var page = memberService.getMemberLoans(1L, LoanStatusFilter.ALL, null, 1);
+
+        // then
+        assertEquals(List.of(newer), page.getContent());
+        assertEquals(new KeysetCursor("2024-06-01T00:00:00Z", 20L), KeysetCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void shouldQueryLoansBeforeCursorWhenGettingReturnedMemberLoansAfterCursor() {
+        // given
+        var borrowedDate = Instant.parse("2024-06-01T00:00:00Z");
+        var after = new KeysetCursor(borrowedDate.toString(), 20L).encode();
+        when(borrowedBookRepository.findMemberLoansBefore(1L, false, true, borrowedDate, 20L, Limit.of(21)))
+                .thenReturn(List.of());
+        when(memberRepository.existsById(1L)).thenReturn(true);
+
+        // when
+        var page = memberService.getMemberLoans(1L, LoanStatusFilter.RETURNED, after, 20);
+
+        // then
+        assertTrue(page.getContent().isEmpty());
+        verify(borrowedBookRepository).findMemberLoansBefore(1L, false, true, borrowedDate, 20L, Limit.of(21));
+    }
+
+    @Test
+    void shouldThrowMemberNotFoundByIdExceptionWhenGettingLoansOfNonExistingMember() {
+        // given
+        when(borrowedBookRepository.findMemberLoans(1L, true, true, Limit.of(21))).thenReturn(List.of());
+        when(memberRepository.existsById(1L)).thenReturn(false);
+
+        // when & then
+        assertThrows(MemberNotFoundByIdException.class,
+                () -> memberService.getMemberLoans(1L, LoanStatusFilter.ALL, null, 20));
+    }
+
+    @Test
+    void shouldThrowInvalidCursorWhenMemberLoansCursorHasNoDate() {
+        // given
+        var after = new KeysetCursor("Doe", 20L).encode();
+
+        // when & then
+        assertThrows(InvalidCursorException.class,
+                () -> memberService.getMemberLoans(1L, LoanStatusFilter.ALL, after, 20));
+    }
 }
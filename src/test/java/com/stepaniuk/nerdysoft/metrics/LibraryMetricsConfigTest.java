@@ -0,0 +1,58 @@
+package com.stepaniuk.nerdysoft.metrics;
+
+import com.stepaniuk.nerdysoft.book.BookRepository;
+import com.stepaniuk.nerdysoft.book.borrowed.BorrowedBookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LibraryMetricsConfigTest {
+
+    @Test
+    void shouldReuseAvailableCopiesAndOpenLoansWithinTtl() {
+        // given
+        var bookRepository = mock(BookRepository.class);
+        var borrowedBookRepository = mock(BorrowedBookRepository.class);
+        var registry = new SimpleMeterRegistry();
+        new LibraryMetricsConfig().libraryInventoryMetrics(bookRepository, borrowedBookRepository, Duration.ofHours(1))
+                .bindTo(registry);
+        when(bookRepository.sumAmounts()).thenReturn(42L, 41L);
+        when(borrowedBookRepository.countByReturnedDateIsNull()).thenReturn(3L);
+
+        // when
+        var availableBooks = registry.get(LibraryMetricsConfig.AVAILABLE_BOOKS_METRIC).gauge();
+        var openLoans = registry.get(LibraryMetricsConfig.OPEN_LOANS_METRIC).gauge();
+
+        // then
+        assertEquals(42, availableBooks.value());
+        assertEquals(42, availableBooks.value());
+        assertEquals(3, openLoans.value());
+        assertEquals(3, openLoans.value());
+        verify(bookRepository, times(1)).sumAmounts();
+        verify(borrowedBookRepository, times(1)).countByReturnedDateIsNull();
+    }
+
+    @Test
+    void shouldReadRepositoriesOnEachScrapeWhenTtlIsZero() {
+        // given
+        var bookRepository = mock(BookRepository.class);
+        var registry = new SimpleMeterRegistry();
+        new LibraryMetricsConfig().libraryInventoryMetrics(bookRepository, mock(BorrowedBookRepository.class), Duration.ZERO)
+                .bindTo(registry);
+        when(bookRepository.sumAmounts()).thenReturn(42L, 41L);
+
+        // when
+        var availableBooks = registry.get(LibraryMetricsConfig.AVAILABLE_BOOKS_METRIC).gauge();
+
+        // then
+        assertEquals(42, availableBooks.value());
+        assertEquals(41, availableBooks.value());
+    }
+}
@@ -0,0 +1,44 @@
+package com.stepaniuk.nerdysoft.shared.hateoas;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.RepresentationModel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LinkTemplateTest {
+
+    @Test
+    void shouldExpandIdWhenTemplateHasSuffix() {
+        // given
+        var template = new LinkTemplate("/members/{id}/loans");
+
+        // when
+        var href = template.expand(42L);
+
+        // then
+        assertEquals("/members/42/loans", href);
+    }
+
+    @Test
+    void shouldAddLinkForEveryRelationWhenAddingLinks() {
+        // given
+        var template = new LinkTemplate("/books/{id}",
+                IanaLinkRelations.SELF, LibraryLinkRelations.UPDATE, LibraryLinkRelations.DELETE);
+
+        // when
+        var model = template.addLinks(new RepresentationModel<>(), 7L);
+
+        // then
+        assertEquals(3, model.getLinks().toList().size());
+        assertEquals("/books/7", model.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        assertEquals("/books/7", model.getRequiredLink(LibraryLinkRelations.UPDATE).getHref());
+        assertEquals("/books/7", model.getRequiredLink(LibraryLinkRelations.DELETE).getHref());
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenTemplateHasNoIdVariable() {
+        // when & then
+        assertThrows(IllegalArgumentException.class, () -> new LinkTemplate("/books"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.stepaniuk.nerdysoft.shared.pagination;
+
+import com.stepaniuk.nerdysoft.shared.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetCursorTest {
+
+    @Test
+    void shouldDecodeSameCursorWhenEncodingKeyWithSeparator() {
+        // given
+        var cursor = new KeysetCursor("Dune: Messiah", 42L);
+
+        // when
+        var decoded = KeysetCursor.decode(cursor.encode());
+
+        // then
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void shouldThrowInvalidCursorExceptionWhenDecodingMalformedCursor() {
+        // when
+        var exception = assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode("not a cursor"));
+
+        // then
+        assertEquals("not a cursor", exception.getCursor());
+    }
+
+    @Test
+    void shouldThrowInvalidCursorExceptionWhenDecodingCursorWithoutId() {
+        // given
+        var cursor = new KeysetCursor("Title", 1L).encode().substring(2);
+
+        // when & then
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode(cursor));
+    }
+}
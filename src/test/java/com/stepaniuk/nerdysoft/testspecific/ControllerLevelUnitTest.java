@@ -2,6 +2,7 @@ package com.stepaniuk.nerdysoft.testspecific;
 
 
 import com.stepaniuk.nerdysoft.shared.GeneralControllerExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
@@ -19,7 +20,7 @@ import java.lang.annotation.*;
 @ExtendWith(SpringExtension.class)
 @ExtendWith(MockitoExtension.class)
 @WebMvcTest(properties = "spring.mvc.problem-details.enabled=true")
-@Import({ GeneralControllerExceptionHandler.class})
+@Import({GeneralControllerExceptionHandler.class, SimpleMeterRegistry.class})
 @ImportAutoConfiguration
 public @interface ControllerLevelUnitTest {
 
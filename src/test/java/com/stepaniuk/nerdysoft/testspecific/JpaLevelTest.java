@@ -16,7 +16,7 @@ import java.lang.annotation.*;
 @Documented
 @Inherited
 @ExtendWith(SpringExtension.class)
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.stepaniuk.nerdysoft.testspecific.SqlStatementCounter")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @AutoConfigureTestDatabaseContainer
 @ImportAutoConfiguration
@@ -0,0 +1,66 @@
+package com.stepaniuk.nerdysoft.testspecific;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SqlStatementCounter implements StatementInspector {
+
+    public enum StatementType {
+        SELECT, INSERT, UPDATE, DELETE, OTHER
+    }
+
+    private static final ThreadLocal<Map<StatementType, Integer>> COUNTS =
+            ThreadLocal.withInitial(() -> new EnumMap<>(StatementType.class));
+
+    @Override
+    public String inspect(String sql) {
+        COUNTS.get().merge(typeOf(sql), 1, Integer::sum);
+        return sql;
+    }
+
+    public static void reset() {
+        COUNTS.get().clear();
+    }
+
+    public static int count(StatementType type) {
+        return COUNTS.get().getOrDefault(type, 0);
+    }
+
+    public static void assertSelectCount(int expected) {
+        assertEquals(expected, count(StatementType.SELECT), "Unexpected number of SELECT statements");
+    }
+
+    public static void assertInsertCount(int expected) {
+        assertEquals(expected, count(StatementType.INSERT), "Unexpected number of INSERT statements");
+    }
+
+    public static void assertUpdateCount(int expected) {
+        assertEquals(expected, count(StatementType.UPDATE), "Unexpected number of UPDATE statements");
+    }
+
+    public static void assertDeleteCount(int expected) {
+        assertEquals(expected, count(StatementType.DELETE), "Unexpected number of DELETE statements");
+    }
+
+    private static StatementType typeOf(String sql) {
+        var normalized = sql.stripLeading().toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("select") || normalized.startsWith("with")) {
+            return StatementType.SELECT;
+        }
+        if (normalized.startsWith("insert")) {
+            return StatementType.INSERT;
+        }
+        if (normalized.startsWith("update")) {
+            return StatementType.UPDATE;
+        }
+        if (normalized.startsWith("delete")) {
+            return StatementType.DELETE;
+        }
+        return StatementType.OTHER;
+    }
+}
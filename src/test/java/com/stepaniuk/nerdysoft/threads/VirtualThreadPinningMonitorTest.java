@@ -0,0 +1,50 @@
+package com.stepaniuk.nerdysoft.threads;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+
+    @Test
+    void shouldCountVirtualThreadBlockedInsideSynchronizedBlock() throws Exception {
+        // given
+        var meterRegistry = new SimpleMeterRegistry();
+        var monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ZERO);
+        monitor.start();
+
+        try {
+            // when
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    sleep(50);
+                }
+            }).join();
+
+            // then
+            var counter = meterRegistry.get(VirtualThreadPinningMonitor.PINNED_METRIC).counter();
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (counter.count() == 0 && System.nanoTime() < deadline) {
+                sleep(100);
+            }
+            assertTrue(counter.count() >= 1);
+        } finally {
+            monitor.stop();
+        }
+        assertFalse(monitor.isRunning());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -6,5 +6,6 @@ INSERT INTO members(id, name, surname, membership_date)
 VALUES (1, 'John', 'Doe', '2024-04-24T22:22:09.266615Z'),
        (2, 'Jane', 'Doe', '2024-04-24T22:22:09.266615Z');
 
-INSERT INTO borrowed_books (id, member_id, book_id, borrowed_date, returned_date)
-VALUES (1, 1, 1, '2024-04-24T22:22:09.266615Z', '2024-04-24T22:28:19.266615Z');
+INSERT INTO borrowed_books (id, member_id, book_id, borrowed_date, due_date, returned_date)
+VALUES (1, 1, 1, '2024-04-24T22:22:09.266615Z', '2024-05-08T22:22:09.266615Z', '2024-04-24T22:28:19.266615Z'),
+       (2, 2, 2, '2024-04-24T22:22:09.266615Z', '2024-05-08T22:22:09.266615Z', NULL);